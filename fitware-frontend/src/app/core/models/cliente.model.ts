@@ -6,6 +6,12 @@ export interface Cliente {
   pesoInicial: number;
   alturaInicial: number;
   usuario?: Usuario;
+  // Resumen de progreso (mantenido en el servidor)
+  ultimaFechaProgreso?: string | null;
+  registrosProgreso?: number;
+  ultimoPeso?: number | null;
+  ultimoImc?: number | null;
+  cambioPeso?: number | null;
   // Campos aplanados para compatibilidad con respuestas antiguas
   cedula?: string;
   nombre?: string;
@@ -24,3 +30,24 @@ export interface RegistroClienteDTO {
     alturaInicial: number;
   };
 }
+
+export interface BusquedaClientes {
+  consulta: string;
+  total: number;
+  pagina: number;
+  tamano: number;
+  items: { cedula: string; nombre: string; apellidos: string; puntaje: number }[];
+}
+
+export interface RegistroMasivoClientes {
+  recibidos: number;
+  creados: number;
+  actualizados: number;
+  rechazados: number;
+  lotes: {
+    lote: number;
+    creados: string[];
+    actualizados: string[];
+    rechazados: { indice: number; cedula: string | null; mensaje: string }[];
+  }[];
+}
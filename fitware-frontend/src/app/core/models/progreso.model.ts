@@ -5,3 +5,24 @@ export interface Progreso {
   imc: number;
   observaciones: string;
 }
+
+export interface PuntoSerieProgreso {
+  desde: string;
+  hasta: string;
+  registros: number;
+  pesoMin: number | null;
+  pesoMax: number | null;
+  pesoPromedio: number | null;
+  imcMin: number | null;
+  imcMax: number | null;
+  imcPromedio: number | null;
+}
+
+export interface SerieProgreso {
+  clienteCedula: string;
+  desde: string | null;
+  hasta: string | null;
+  diasPorPunto: number;
+  registros: number;
+  puntos: PuntoSerieProgreso[];
+}
@@ -7,6 +7,7 @@ export interface ReportSection {
   description: string;
   headers: string[];
   rows: string[][];
+  durationMs?: number;
 }
 
 export interface ReportSummary {
@@ -15,3 +16,34 @@ export interface ReportSummary {
   generatedAt: string;
   sections: ReportSection[];
 }
+
+export type ReportColumnType = 'id' | 'string' | 'long' | 'double' | 'date' | 'datetime' | 'month';
+
+/** Columna tipada de `GET /api/reportes?format=raw`. */
+export interface ReportColumn {
+  key: string;
+  label: string;
+  type: ReportColumnType;
+  unit?: string;
+  decimals?: number;
+  values: Array<number | string | null>;
+  /** Filas sin dato en columnas numéricas. */
+  nulls?: number[];
+}
+
+export interface ReportRawSection {
+  id: string;
+  category: ReportCategory;
+  title: string;
+  description: string;
+  rowCount: number;
+  columns: ReportColumn[];
+  durationMs?: number;
+}
+
+export interface ReportRawSummary {
+  from: string;
+  to: string;
+  generatedAt: string;
+  sections: ReportRawSection[];
+}
@@ -10,3 +10,25 @@ export interface Rutina {
   planes?: PlanAlimentacion[];
   [key: string]: any;
 }
+
+export interface DiaAgenda {
+  dia: 'MONDAY' | 'TUESDAY' | 'WEDNESDAY' | 'THURSDAY' | 'FRIDAY' | 'SATURDAY' | 'SUNDAY';
+  hora: string;
+  duracionMinutos?: number;
+}
+
+export interface GeneracionAgenda {
+  clientes: string[];
+  fechaInicio: string;
+  semana: DiaAgenda[];
+  ejercicios?: { ejercicioId: number; repeticiones: number; series: number; estado?: string }[];
+  permitirSolape?: boolean;
+}
+
+export interface GeneracionAgendaResultado {
+  rutinaId: number;
+  desde: string;
+  hasta: string;
+  sesionesPorCliente: number;
+  clientes: { cedula: string; sesionesCreadas: number; asignacionesCreadas: number; error: string | null }[];
+}
@@ -7,3 +7,18 @@ export interface SesionEjercicio {
   estado: string;
   ejercicioNombre?: string;
 }
+
+export interface SesionEjercicioDetalle extends SesionEjercicio {
+  ejercicioTipo?: string;
+  ejercicioEquipamiento?: string;
+}
+
+export type ResultadoAsignacion = 'CREADO' | 'DUPLICADO' | 'EJERCICIO_NO_ENCONTRADO' | 'INVALIDO';
+
+export interface AsignacionResultado {
+  indice: number;
+  ejercicioId?: number;
+  resultado: ResultadoAsignacion;
+  asignacionId?: number;
+  mensaje?: string;
+}
@@ -1,4 +1,4 @@
-import { SesionEjercicio } from './sesion-ejercicio.model';
+import { SesionEjercicio, SesionEjercicioDetalle } from './sesion-ejercicio.model';
 
 export interface Sesion {
   id?: number;
@@ -8,7 +8,28 @@ export interface Sesion {
   gastoCalorico: number | null;
   clienteCedula?: string;
   cliente?: any;
+  totalEjercicios?: number;
+  totalSeries?: number;
+  totalRepeticiones?: number;
+  ejerciciosCompletados?: number;
 
   ejercicios?: SesionEjercicio[];
   [key: string]: any;
 }
+
+export interface SesionDetalle extends Sesion {
+  clienteNombre: string;
+  ejercicios: SesionEjercicioDetalle[];
+}
+
+export interface SesionPagina {
+  items: Sesion[];
+  siguienteCursor: string | null;
+}
+
+export interface FiltroSesiones {
+  clienteCedula?: string;
+  desde?: string;
+  hasta?: string;
+  estado?: string;
+}
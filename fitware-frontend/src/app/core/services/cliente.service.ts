@@ -1,8 +1,8 @@
 import { Injectable } from '@angular/core';
-import { HttpClient } from '@angular/common/http';
+import { HttpClient, HttpParams } from '@angular/common/http';
 import { Observable } from 'rxjs';
-import { Progreso } from '../models/progreso.model';
-import { Cliente, RegistroClienteDTO } from '../models/cliente.model';
+import { Progreso, SerieProgreso } from '../models/progreso.model';
+import { BusquedaClientes, Cliente, RegistroClienteDTO, RegistroMasivoClientes } from '../models/cliente.model';
 import { environment } from '../../../environments/environment';
 
 @Injectable({ providedIn: 'root' })
@@ -15,10 +15,22 @@ export class ClienteService {
     return this.http.post<Cliente>(this.baseUrl, payload);
   }
 
+  registrarClientes(payload: RegistroClienteDTO[]): Observable<RegistroMasivoClientes> {
+    return this.http.post<RegistroMasivoClientes>(this.baseUrl + '/batch', payload);
+  }
+
   listarClientes(): Observable<Cliente[]> {
     return this.http.get<Cliente[]>(this.baseUrl);
   }
 
+  buscarClientes(consulta: string, pagina = 0, tamano = 20): Observable<BusquedaClientes> {
+    const params = new HttpParams()
+      .set('q', consulta)
+      .set('pagina', pagina)
+      .set('tamano', tamano);
+    return this.http.get<BusquedaClientes>(this.baseUrl + '/buscar', { params });
+  }
+
   obtenerCliente(cedula: string): Observable<Cliente> {
     return this.http.get<Cliente>(this.baseUrl + '/' + cedula);
   }
@@ -35,6 +47,20 @@ export class ClienteService {
     return this.http.get<Progreso[]>(this.baseUrl + '/' + cedula + '/progreso');
   }
 
+  serieProgreso(cedula: string, filtro: { desde?: string; hasta?: string; maxPuntos?: number } = {}): Observable<SerieProgreso> {
+    let params = new HttpParams();
+    if (filtro.desde) {
+      params = params.set('desde', filtro.desde);
+    }
+    if (filtro.hasta) {
+      params = params.set('hasta', filtro.hasta);
+    }
+    if (filtro.maxPuntos) {
+      params = params.set('maxPuntos', filtro.maxPuntos);
+    }
+    return this.http.get<SerieProgreso>(this.baseUrl + '/' + cedula + '/progreso/serie', { params });
+  }
+
   agregarProgreso(cedula: string, progreso: Progreso): Observable<Progreso> {
     return this.http.post<Progreso>(this.baseUrl + '/' + cedula + '/progreso', progreso);
   }
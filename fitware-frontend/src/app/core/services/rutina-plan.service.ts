@@ -1,7 +1,7 @@
 import { Injectable } from '@angular/core';
 import { HttpClient, HttpParams } from '@angular/common/http';
 import { Observable } from 'rxjs';
-import { Rutina } from '../models/rutina.model';
+import { GeneracionAgenda, GeneracionAgendaResultado, Rutina } from '../models/rutina.model';
 import { PlanAlimentacion } from '../models/plan-alimentacion.model';
 import { PlanAlimentos } from '../models/plan-alimentos.model';
 import { environment } from '../../../environments/environment';
@@ -40,6 +40,10 @@ export class RutinaPlanService {
     return this.http.delete<void>(this.baseUrl + '/' + id);
   }
 
+  generarAgenda(rutinaId: number, pedido: GeneracionAgenda): Observable<GeneracionAgendaResultado> {
+    return this.http.post<GeneracionAgendaResultado>(this.baseUrl + '/' + rutinaId + '/agenda', pedido);
+  }
+
   listarPlanes(rutinaId?: number): Observable<PlanAlimentacion[]> {
     let params = new HttpParams();
     if (rutinaId !== undefined && rutinaId !== null) {
@@ -1,8 +1,8 @@
 import { Injectable } from '@angular/core';
 import { HttpClient, HttpParams } from '@angular/common/http';
 import { Observable } from 'rxjs';
-import { Sesion } from '../models/sesion.model';
-import { SesionEjercicio } from '../models/sesion-ejercicio.model';
+import { FiltroSesiones, Sesion, SesionDetalle, SesionPagina } from '../models/sesion.model';
+import { AsignacionResultado, SesionEjercicio } from '../models/sesion-ejercicio.model';
 import { environment } from '../../../environments/environment';
 
 @Injectable({ providedIn: 'root' })
@@ -19,14 +19,35 @@ export class SesionService {
     return this.http.get<Sesion[]>(this.baseUrl, { params });
   }
 
+  listarPagina(filtro: FiltroSesiones = {}, cursor?: string | null, limite = 50): Observable<SesionPagina> {
+    let params = new HttpParams().set('limite', limite.toString());
+    if (cursor) {
+      params = params.set('cursor', cursor);
+    }
+    for (const [clave, valor] of Object.entries(filtro)) {
+      if (valor) {
+        params = params.set(clave, valor);
+      }
+    }
+    return this.http.get<SesionPagina>(this.baseUrl + '/pagina', { params });
+  }
+
   obtenerSesion(id: number): Observable<Sesion> {
     return this.http.get<Sesion>(this.baseUrl + '/' + id);
   }
 
+  obtenerDetalle(id: number): Observable<SesionDetalle> {
+    return this.http.get<SesionDetalle>(this.baseUrl + '/' + id + '/full');
+  }
+
   crearSesion(clienteCedula: string, sesion: Sesion): Observable<Sesion> {
     return this.http.post<Sesion>(this.baseUrl + '/' + clienteCedula, sesion);
   }
 
+  crearSesiones(clienteCedula: string, sesiones: Sesion[]): Observable<Sesion[]> {
+    return this.http.post<Sesion[]>(this.baseUrl + '/' + clienteCedula + '/batch', sesiones);
+  }
+
   actualizarSesion(id: number, sesion: Sesion, clienteCedula?: string): Observable<Sesion> {
     let params = new HttpParams();
     if (clienteCedula) {
@@ -55,6 +76,10 @@ export class SesionService {
     return this.http.post<SesionEjercicio>(this.baseUrl + '/' + sesionId + '/ejercicios/' + ejercicioId, null, { params });
   }
 
+  asignarEjercicios(sesionId: number, ejercicios: Array<Pick<SesionEjercicio, 'ejercicioId' | 'repeticiones' | 'series' | 'estado'>>): Observable<AsignacionResultado[]> {
+    return this.http.post<AsignacionResultado[]>(this.baseUrl + '/' + sesionId + '/ejercicios', ejercicios);
+  }
+
   actualizarSesionEjercicio(id: number, cambios: { ejercicioId?: number; repeticiones?: number; series?: number; estado?: string; }): Observable<SesionEjercicio> {
     let params = new HttpParams();
     if (cambios.ejercicioId !== undefined) {
@@ -123,10 +123,10 @@ export class SesionesComponent implements OnInit {
     if (!sesion.id) return;
 
     this.loadingEjercicios = true;
-    this.sesionService.listarEjercicios(sesion.id)
+    this.sesionService.obtenerDetalle(sesion.id)
       .pipe(finalize(() => this.loadingEjercicios = false))
       .subscribe({
-        next: data => this.ejercicios = data,
+        next: detalle => this.ejercicios = detalle.ejercicios,
         error: err => this.error = this.obtenerMensajeError(err)
       });
   }
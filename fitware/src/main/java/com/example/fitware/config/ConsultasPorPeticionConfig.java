@@ -0,0 +1,128 @@
+package com.example.fitware.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Presupuesto de sentencias SQL por petición. Cuenta lo que Hibernate envía para cada petición a
+ * /api, también desde los cuerpos en streaming y las secciones de reportes que corren en otros
+ * hilos, y señala los endpoints que lo superan, la huella típica de un N+1 (una consulta extra por
+ * fila listada). En producción es solo un aviso en el log; con {@code presupuesto-estricto: true}
+ * (las pruebas de integración) la sentencia que lo excede falla. Con
+ * {@code max-consultas-por-peticion: 0} no cuenta nada.
+ */
+@Configuration
+public class ConsultasPorPeticionConfig implements WebMvcConfigurer {
+
+    private static final Logger log = LoggerFactory.getLogger(ConsultasPorPeticionConfig.class);
+
+    /** Atributo de la petición con el contador; sobrevive al redespacho de las respuestas asíncronas. */
+    public static final String ATRIBUTO = ConsultasPorPeticionConfig.class.getName() + ".contador";
+
+    private static final ThreadLocal<AtomicInteger> CONTADOR = new ThreadLocal<>();
+
+    private final int maxConsultas;
+    private final boolean estricto;
+
+    public ConsultasPorPeticionConfig(@Value("${fitware.sql.max-consultas-por-peticion:0}") int maxConsultas,
+                                      @Value("${fitware.sql.presupuesto-estricto:false}") boolean estricto) {
+        this.maxConsultas = maxConsultas;
+        this.estricto = estricto;
+    }
+
+    /**
+     * Envuelve una tarea para que sus sentencias cuenten en la petición que la encoló. Lo usan
+     * los ejecutores que trabajan para una petición en curso.
+     */
+    public static Runnable propagar(Runnable tarea) {
+        AtomicInteger contador = CONTADOR.get();
+        if (contador == null) {
+            return tarea;
+        }
+        return () -> {
+            AtomicInteger previo = CONTADOR.get();
+            CONTADOR.set(contador);
+            try {
+                tarea.run();
+            } finally {
+                if (previo == null) {
+                    CONTADOR.remove();
+                } else {
+                    CONTADOR.set(previo);
+                }
+            }
+        };
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer contadorConsultas() {
+        StatementInspector inspector = sql -> {
+            AtomicInteger contador = CONTADOR.get();
+            if (contador != null && contador.incrementAndGet() > maxConsultas && estricto) {
+                throw new IllegalStateException(
+                    "Presupuesto de sentencias SQL por petición superado (" + maxConsultas + "): " + sql);
+            }
+            return sql;
+        };
+        return properties -> {
+            if (maxConsultas > 0) {
+                properties.put(AvailableSettings.STATEMENT_INSPECTOR, inspector);
+            }
+        };
+    }
+
+    /** Boot lo aplica al applicationTaskExecutor, que ejecuta los {@code StreamingResponseBody}. */
+    @Bean
+    public TaskDecorator contadorConsultasEnStreaming() {
+        return ConsultasPorPeticionConfig::propagar;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (maxConsultas <= 0) {
+            return;
+        }
+        registry.addInterceptor(new AsyncHandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                AtomicInteger contador = (AtomicInteger) request.getAttribute(ATRIBUTO);
+                if (contador == null) {
+                    contador = new AtomicInteger();
+                    request.setAttribute(ATRIBUTO, contador);
+                }
+                CONTADOR.set(contador);
+                return true;
+            }
+
+            @Override
+            public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                // El cuerpo ya se encoló con el contador; el total se revisa en el redespacho
+                CONTADOR.remove();
+            }
+
+            @Override
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+                CONTADOR.remove();
+                AtomicInteger contador = (AtomicInteger) request.getAttribute(ATRIBUTO);
+                if (contador != null && contador.get() > maxConsultas) {
+                    log.warn("{} {} ejecutó {} sentencias SQL (presupuesto: {})",
+                        request.getMethod(), request.getRequestURI(), contador.get(), maxConsultas);
+                }
+            }
+        }).addPathPatterns("/api/**");
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.fitware.config;
+
+import com.example.fitware.service.PresupuestoConexiones;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ejecutores del trabajo en segundo plano. Todos tienen cola acotada: al llenarse rechazan la
+ * tarea y el servicio responde 429, en lugar de acumular trabajo hasta afectar la web.
+ */
+@Configuration
+@EnableScheduling
+public class ReportConfig {
+
+    /**
+     * Secciones de reportes. Usa hilos virtuales, pero el número de tareas simultáneas queda
+     * limitado; las conexiones las reparte {@link PresupuestoConexiones}.
+     */
+    @Bean(name = "reportExecutor", destroyMethod = "shutdown")
+    public ExecutorService reportExecutor(
+        @Value("${fitware.reportes.max-concurrencia:4}") int maxConcurrencia,
+        @Value("${fitware.reportes.cola:64}") int cola,
+        PresupuestoConexiones presupuesto
+    ) {
+        int limite = Math.max(1, Math.min(maxConcurrencia, presupuesto.total()));
+        // Las secciones cuentan en el presupuesto de sentencias de la petición que pidió el reporte
+        return new ThreadPoolExecutor(
+            limite, limite,
+            0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(cola),
+            Thread.ofVirtual().name("reportes-", 0).factory(),
+            new ThreadPoolExecutor.AbortPolicy()
+        ) {
+            @Override
+            public void execute(Runnable tarea) {
+                super.execute(ConsultasPorPeticionConfig.propagar(tarea));
+            }
+        };
+    }
+
+    /** Pool propio de los trabajos asíncronos de reportes. */
+    @Bean(name = "reportJobExecutor", destroyMethod = "shutdown")
+    public ThreadPoolExecutor reportJobExecutor(
+        @Value("${fitware.reportes.jobs.hilos:2}") int hilos,
+        @Value("${fitware.reportes.jobs.cola:20}") int cola
+    ) {
+        return new ThreadPoolExecutor(
+            hilos, hilos,
+            60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(cola),
+            Thread.ofPlatform().name("reportes-job-", 0).daemon(true).factory(),
+            new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+
+    /**
+     * Purgas asíncronas de clientes: un solo hilo para que dos purgas grandes no compitan
+     * por los mismos bloqueos.
+     */
+    @Bean(name = "purgaExecutor", destroyMethod = "shutdown")
+    public ThreadPoolExecutor purgaExecutor(@Value("${fitware.clientes.purga.cola:10}") int cola) {
+        return new ThreadPoolExecutor(
+            1, 1,
+            60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(cola),
+            Thread.ofPlatform().name("purga-cliente-", 0).daemon(true).factory(),
+            new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+
+    /**
+     * Generación de agendas por rutina: cada cliente del grupo corre en su propia transacción,
+     * con pocos hilos que además comparten {@link PresupuestoConexiones}.
+     */
+    @Bean(name = "agendaExecutor", destroyMethod = "shutdown")
+    public ThreadPoolExecutor agendaExecutor(
+        @Value("${fitware.agenda.max-concurrencia:4}") int maxConcurrencia,
+        @Value("${fitware.agenda.cola:500}") int cola,
+        PresupuestoConexiones presupuesto
+    ) {
+        int hilos = Math.max(1, Math.min(maxConcurrencia, presupuesto.total()));
+        return new ThreadPoolExecutor(
+            hilos, hilos,
+            60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(cola),
+            Thread.ofPlatform().name("agenda-", 0).daemon(true).factory(),
+            new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+}
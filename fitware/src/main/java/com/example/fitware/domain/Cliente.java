@@ -1,11 +1,19 @@
 package com.example.fitware.domain;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.SecondaryRow;
 import org.springframework.data.domain.Persistable;
 import java.time.LocalDate;
 
 @Entity
 @Table(name = "cliente")
+// Resumen de progreso mantenido por ProgresoResumenService: se lee en el mismo SELECT del cliente
+// (la FK replica la de schema.sql para los esquemas que genera Hibernate, p. ej. en pruebas)
+@SecondaryTable(name = "cliente_progreso_resumen",
+    pkJoinColumns = @PrimaryKeyJoinColumn(name = "cliente_cedula", referencedColumnName = "usuario_cedula"),
+    foreignKey = @ForeignKey(foreignKeyDefinition =
+        "FOREIGN KEY (cliente_cedula) REFERENCES cliente (usuario_cedula) ON DELETE CASCADE"))
+@SecondaryRow(table = "cliente_progreso_resumen", owned = false)
 public class Cliente implements Persistable<String> {
 
     @Id
@@ -26,6 +34,18 @@ public class Cliente implements Persistable<String> {
     @Column(name = "altura_inicial")
     private Double alturaInicial;
 
+    @Column(table = "cliente_progreso_resumen", name = "ultima_fecha", insertable = false, updatable = false)
+    private LocalDate ultimaFechaProgreso;
+
+    @Column(table = "cliente_progreso_resumen", name = "registros", insertable = false, updatable = false)
+    private Long registrosProgreso;
+
+    @Column(table = "cliente_progreso_resumen", name = "ultimo_peso", insertable = false, updatable = false)
+    private Double ultimoPeso;
+
+    @Column(table = "cliente_progreso_resumen", name = "ultimo_imc", insertable = false, updatable = false)
+    private Double ultimoImc;
+
     @Transient
     private boolean isNew = true;
 
@@ -66,6 +86,23 @@ public class Cliente implements Persistable<String> {
         this.alturaInicial = alturaInicial;
     }
 
+    public LocalDate getUltimaFechaProgreso() {
+        return ultimaFechaProgreso;
+    }
+    public long getRegistrosProgreso() {
+        return registrosProgreso == null ? 0 : registrosProgreso;
+    }
+    public Double getUltimoPeso() {
+        return ultimoPeso;
+    }
+    public Double getUltimoImc() {
+        return ultimoImc;
+    }
+    /** Cambio de peso desde el registro inicial; null si falta alguno de los dos. */
+    public Double getCambioPeso() {
+        return ultimoPeso == null || pesoInicial == null ? null : ultimoPeso - pesoInicial;
+    }
+
     // --- Persistable ---
     @Override
     @Transient
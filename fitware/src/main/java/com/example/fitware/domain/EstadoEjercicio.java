@@ -0,0 +1,36 @@
+package com.example.fitware.domain;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.Locale;
+
+/** Estado de un ejercicio asignado a una sesión; el literal es el que guarda sesion_ejercicios.estado. */
+public enum EstadoEjercicio {
+
+    COMPLETADO("Completado"),
+    PENDIENTE("Pendiente");
+
+    private final String literal;
+
+    EstadoEjercicio(String literal) {
+        this.literal = literal;
+    }
+
+    @JsonValue
+    public String literal() {
+        return literal;
+    }
+
+    @JsonCreator
+    public static EstadoEjercicio de(String valor) {
+        if (valor == null || valor.isBlank()) {
+            return null;
+        }
+        return switch (valor.trim().toUpperCase(Locale.ROOT)) {
+            case "COMPLETADO", "COMPLETA", "COMPLETO" -> COMPLETADO;
+            case "PENDIENTE" -> PENDIENTE;
+            default -> throw new IllegalArgumentException("Estado inválido. Use 'Completado' o 'Pendiente'");
+        };
+    }
+}
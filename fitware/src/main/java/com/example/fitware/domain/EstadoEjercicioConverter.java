@@ -0,0 +1,19 @@
+package com.example.fitware.domain;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/** Guarda {@link EstadoEjercicio} como el literal de sesion_ejercicios.estado, que es lo que ya admite el CHECK de la BD. */
+@Converter
+public class EstadoEjercicioConverter implements AttributeConverter<EstadoEjercicio, String> {
+
+    @Override
+    public String convertToDatabaseColumn(EstadoEjercicio estado) {
+        return estado == null ? null : estado.literal();
+    }
+
+    @Override
+    public EstadoEjercicio convertToEntityAttribute(String valor) {
+        return EstadoEjercicio.de(valor);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.fitware.domain;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Estado de una sesión. En BD y en JSON se usa el literal que acepta el CHECK de la tabla
+ * ("Completada" / "Pendiente"); {@link #de(String)} admite además los sinónimos que envía el front.
+ */
+public enum EstadoSesion {
+
+    COMPLETADA("Completada"),
+    PENDIENTE("Pendiente");
+
+    private static final Map<String, EstadoSesion> SINONIMOS = new HashMap<>();
+
+    static {
+        for (String s : new String[] {"COMPLETADA", "COMPLETADO", "COMPLETO", "FINALIZADA", "FINALIZADO"}) {
+            SINONIMOS.put(s, COMPLETADA);
+        }
+        for (String s : new String[] {"PENDIENTE", "PROGRAMADA", "EN_PROGRESO", "EN-CURSO", "EN_CURSO"}) {
+            SINONIMOS.put(s, PENDIENTE);
+        }
+    }
+
+    private final String literal;
+
+    EstadoSesion(String literal) {
+        this.literal = literal;
+    }
+
+    /** Literal guardado en la columna sesion.estado. */
+    @JsonValue
+    public String literal() {
+        return literal;
+    }
+
+    /** Interpreta la entrada del usuario; lanza IllegalArgumentException si no es un estado válido. */
+    @JsonCreator
+    public static EstadoSesion de(String valor) {
+        if (valor == null || valor.isBlank()) {
+            return null;
+        }
+        EstadoSesion estado = SINONIMOS.get(valor.trim().toUpperCase(Locale.ROOT).replace(' ', '_'));
+        if (estado == null) {
+            throw new IllegalArgumentException("Estado de sesión inválido. Use uno de: Completada, Pendiente");
+        }
+        return estado;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.fitware.domain;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/** Guarda {@link EstadoSesion} como el literal de sesion.estado, que es lo que ya admite el CHECK de la BD. */
+@Converter
+public class EstadoSesionConverter implements AttributeConverter<EstadoSesion, String> {
+
+    @Override
+    public String convertToDatabaseColumn(EstadoSesion estado) {
+        return estado == null ? null : estado.literal();
+    }
+
+    @Override
+    public EstadoSesion convertToEntityAttribute(String valor) {
+        return EstadoSesion.de(valor);
+    }
+}
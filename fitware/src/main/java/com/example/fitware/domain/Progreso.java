@@ -6,7 +6,9 @@ import java.time.LocalDate;
 @Entity
 @Table(name = "progreso")
 public class Progreso {
-@Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+@Id
+@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "progreso_seq")
+@SequenceGenerator(name = "progreso_seq", sequenceName = "progreso_id_seq", allocationSize = 50)
 private Integer id;
 
 
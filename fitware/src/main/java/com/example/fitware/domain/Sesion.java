@@ -2,12 +2,14 @@ package com.example.fitware.domain;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import java.time.LocalDateTime;
 
@@ -15,15 +17,18 @@ import java.time.LocalDateTime;
 @Table(name = "sesion")
 public class Sesion {
 
+    // Secuencia con bloques de 50 ids: permite agrupar los INSERT en lotes JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sesion_seq")
+    @SequenceGenerator(name = "sesion_seq", sequenceName = "sesion_id_seq", allocationSize = 50)
     private Integer id;
 
     @ManyToOne(optional = false)
     @JoinColumn(name = "cliente_cedula")
     private Cliente cliente;
 
-    private String estado;
+    @Convert(converter = EstadoSesionConverter.class)
+    private EstadoSesion estado;
 
     @Column(name = "fecha_inicio")
     private LocalDateTime fechaInicio;
@@ -34,6 +39,20 @@ public class Sesion {
     @Column(name = "gasto_calorico")
     private Double gastoCalorico;
 
+    // Totales de carga: los mantiene SesionTotalesService con SQL, nunca se escriben desde aquí;
+    // aplicarTotales solo copia a la entidad lo que ese UPDATE acaba de calcular
+    @Column(name = "total_ejercicios", updatable = false)
+    private Integer totalEjercicios = 0;
+
+    @Column(name = "total_series", updatable = false)
+    private Integer totalSeries = 0;
+
+    @Column(name = "total_repeticiones", updatable = false)
+    private Integer totalRepeticiones = 0;
+
+    @Column(name = "ejercicios_completados", updatable = false)
+    private Integer ejerciciosCompletados = 0;
+
     public Integer getId() {
         return id;
     }
@@ -50,12 +69,12 @@ public class Sesion {
         this.cliente = cliente;
     }
 
-    public String getEstado() {
+    public EstadoSesion getEstado() {
         return estado;
     }
 
-    public void setEstado(String estado) {
-        this.estado = estado == null ? null : estado.trim();
+    public void setEstado(EstadoSesion estado) {
+        this.estado = estado;
     }
 
     public LocalDateTime getFechaInicio() {
@@ -82,46 +101,31 @@ public class Sesion {
         this.gastoCalorico = gastoCalorico;
     }
 
-    @JsonProperty("clienteCedula")
-    public String getClienteCedula() {
-        return cliente != null ? cliente.getUsuarioCedula() : null;
+    public Integer getTotalEjercicios() {
+        return totalEjercicios;
+    }
+
+    public Integer getTotalSeries() {
+        return totalSeries;
+    }
+
+    public Integer getTotalRepeticiones() {
+        return totalRepeticiones;
     }
 
+    public Integer getEjerciciosCompletados() {
+        return ejerciciosCompletados;
+    }
 
+    public void aplicarTotales(int ejercicios, int series, int repeticiones, int completados) {
+        this.totalEjercicios = ejercicios;
+        this.totalSeries = series;
+        this.totalRepeticiones = repeticiones;
+        this.ejerciciosCompletados = completados;
+    }
 
-    public static String canonizarEstado(String estado2) {
-        if (estado2 == null) {
-            return null;
-        }
-        String s = estado2.trim();
-        if (s.isEmpty()) {
-            return null;
-        }
-        // Normalizar: eliminar caracteres no alfabéticos y poner en mayúsculas
-        String key = s.replaceAll("[^A-Za-z]+", "_").toUpperCase();
-
-        switch (key) {
-            case "PROGRAMADA":
-            case "PROGRAMADO":
-                return "PROGRAMADA";
-            case "EN_PROGRESO":
-            case "ENPROGRESO":
-            case "EN-PROGRESO":
-                return "EN_PROGRESO";
-            case "COMPLETADA":
-            case "COMPLETADO":
-                return "COMPLETADA";
-            case "CANCELADA":
-            case "CANCELADO":
-                return "CANCELADA";
-            default:
-                // aceptar también las formas ya humanizadas
-                String lower = s.toLowerCase();
-                if (lower.equals("programada") || lower.equals("programado")) return "PROGRAMADA";
-                if (lower.equals("en progreso") || lower.equals("enprogreso")) return "EN_PROGRESO";
-                if (lower.equals("completada") || lower.equals("completado")) return "COMPLETADA";
-                if (lower.equals("cancelada") || lower.equals("cancelado")) return "CANCELADA";
-                return null;
-        }
+    @JsonProperty("clienteCedula")
+    public String getClienteCedula() {
+        return cliente != null ? cliente.getUsuarioCedula() : null;
     }
 }
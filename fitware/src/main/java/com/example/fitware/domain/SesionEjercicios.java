@@ -3,12 +3,14 @@ package com.example.fitware.domain;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import jakarta.persistence.UniqueConstraint;
 
@@ -20,7 +22,8 @@ import jakarta.persistence.UniqueConstraint;
 public class SesionEjercicios {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sesion_ejercicios_seq")
+    @SequenceGenerator(name = "sesion_ejercicios_seq", sequenceName = "sesion_ejercicios_id_seq", allocationSize = 50)
     private Integer id;
 
     @JsonIgnore
@@ -37,7 +40,8 @@ public class SesionEjercicios {
     private Integer series;
 
     @Column(length = 20)
-    private String estado;
+    @Convert(converter = EstadoEjercicioConverter.class)
+    private EstadoEjercicio estado;
 
     public Integer getId() {
         return id;
@@ -79,12 +83,12 @@ public class SesionEjercicios {
         this.series = series;
     }
 
-    public String getEstado() {
+    public EstadoEjercicio getEstado() {
         return estado;
     }
 
-    public void setEstado(String estado) {
-        this.estado = estado == null ? null : estado.trim();
+    public void setEstado(EstadoEjercicio estado) {
+        this.estado = estado;
     }
 
     @JsonProperty("sesionId")
@@ -1,7 +1,14 @@
 package com.example.fitware.repository;
 
 import com.example.fitware.domain.Cliente;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
+
 public interface ClienteRepository extends JpaRepository<Cliente, String> {
+
+    @Override
+    @EntityGraph(attributePaths = "usuario")
+    List<Cliente> findAll();
 }
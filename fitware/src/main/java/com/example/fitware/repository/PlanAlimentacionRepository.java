@@ -3,10 +3,16 @@
 package com.example.fitware.repository;
 
 import com.example.fitware.domain.PlanAlimentacion;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.List;
 
 public interface PlanAlimentacionRepository extends JpaRepository<PlanAlimentacion, Integer> {
+    @EntityGraph(attributePaths = {"rutina", "rutina.entrenador"})
     List<PlanAlimentacion> findByRutina_Id(Integer rutinaId);
+
+    @Override
+    @EntityGraph(attributePaths = {"rutina", "rutina.entrenador"})
+    List<PlanAlimentacion> findAll();
 }
@@ -1,10 +1,16 @@
 
 package com.example.fitware.repository;
 import com.example.fitware.domain.PlanAlimentos;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.List;
 
 public interface PlanAlimentosRepository extends JpaRepository<PlanAlimentos, Integer> {
+    @EntityGraph(attributePaths = {"alimento", "plan", "plan.rutina", "plan.rutina.entrenador"})
     List<PlanAlimentos> findByPlan_Id(Integer planId);
+
+    @Override
+    @EntityGraph(attributePaths = {"alimento", "plan", "plan.rutina", "plan.rutina.entrenador"})
+    List<PlanAlimentos> findAll();
 }
@@ -1,13 +1,20 @@
 package com.example.fitware.repository;
 
 import com.example.fitware.domain.Progreso;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.util.List;
 
 public interface ProgresoRepository extends JpaRepository<Progreso, Integer> {
 
     // Ruta: Progreso -> cliente -> usuario -> cedula
+    @EntityGraph(attributePaths = {"cliente", "cliente.usuario"})
     List<Progreso> findByCliente_Usuario_CedulaOrderByFechaDesc(String cedula);
 
-    void deleteByCliente_Usuario_Cedula(String cedula);
+    @Modifying
+    @Query("delete from Progreso p where p.cliente.usuarioCedula = :cedula")
+    int deleteByClienteCedula(@Param("cedula") String cedula);
 }
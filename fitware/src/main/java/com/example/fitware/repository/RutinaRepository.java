@@ -1,14 +1,20 @@
 package com.example.fitware.repository;
 
 import com.example.fitware.domain.Rutina;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import java.util.List;
 
 public interface RutinaRepository extends JpaRepository<Rutina, Integer> {
 
     // Ruta correcta: rutina -> entrenador (Entidad) -> cedula (PK heredada de Usuario)
+    @EntityGraph(attributePaths = "entrenador")
     List<Rutina> findByEntrenador_Cedula(String cedula);
 
+    @Override
+    @EntityGraph(attributePaths = "entrenador")
+    List<Rutina> findAll();
+
     // (Opcional) Si quieres las más recientes primero y tienes fecha:
     // List<Rutina> findByEntrenador_CedulaOrderByFechaDesc(String cedula);
 }
@@ -1,14 +1,37 @@
 package com.example.fitware.repository;
 
 import com.example.fitware.domain.SesionEjercicios;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
 import java.util.List;
 
 public interface SesionEjerciciosRepository extends JpaRepository<SesionEjercicios, Integer> {
 
-    // Para listar por la FK de sesión (campo: sesion.id)
+    // Para listar por la FK de sesión (campo: sesion.id); ejercicio y sesión en el mismo SELECT
+    @EntityGraph(attributePaths = {"ejercicio", "sesion", "sesion.cliente", "sesion.cliente.usuario"})
     List<SesionEjercicios> findBySesion_Id(Integer sesionId);
 
-    // Para eliminar en cascada las asignaciones de una sesión
-    void deleteBySesion_Id(Integer sesionId);
+    @Override
+    @EntityGraph(attributePaths = {"ejercicio", "sesion", "sesion.cliente", "sesion.cliente.usuario"})
+    List<SesionEjercicios> findAll();
+
+    // Para eliminar en cascada las asignaciones de una sesión (un solo DELETE, sin cargar filas)
+    @Modifying
+    @Query("delete from SesionEjercicios se where se.sesion.id = :sesionId")
+    int deleteBySesion_Id(@Param("sesionId") Integer sesionId);
+
+    // Todas las asignaciones de las sesiones de un cliente en un solo DELETE
+    @Modifying
+    @Query("delete from SesionEjercicios se where se.sesion.id in (select s.id from Sesion s where s.cliente.usuarioCedula = :cedula)")
+    int deleteByClienteCedula(@Param("cedula") String cedula);
+
+    // Cuáles de los ejercicios indicados ya están asignados a la sesión (una sola consulta IN)
+    @Query("select se.ejercicio.id from SesionEjercicios se where se.sesion.id = :sesionId and se.ejercicio.id in :ejercicioIds")
+    List<Integer> findEjercicioIdsAsignados(@Param("sesionId") Integer sesionId,
+                                            @Param("ejercicioIds") Collection<Integer> ejercicioIds);
 }
@@ -1,11 +1,24 @@
 package com.example.fitware.repository;
 
 import com.example.fitware.domain.Sesion;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.util.List;
 
 public interface SesionRepository extends JpaRepository<Sesion, Integer> {
 
-    // Ruta: Sesion -> cliente -> usuario -> cedula
+    // Ruta: Sesion -> cliente -> usuario -> cedula (cliente y usuario en el mismo SELECT)
+    @EntityGraph(attributePaths = {"cliente", "cliente.usuario"})
     List<Sesion> findByCliente_Usuario_CedulaOrderByFechaInicioDesc(String cedula);
+
+    @Override
+    @EntityGraph(attributePaths = {"cliente", "cliente.usuario"})
+    List<Sesion> findAll();
+
+    @Modifying
+    @Query("delete from Sesion s where s.cliente.usuarioCedula = :cedula")
+    int deleteByClienteCedula(@Param("cedula") String cedula);
 }
@@ -0,0 +1,211 @@
+package com.example.fitware.service;
+
+import com.example.fitware.domain.Sesion;
+import com.example.fitware.service.ArbolIntervalos.Intervalo;
+import jakarta.persistence.EntityManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Índice en memoria de las sesiones próximas (que aún no terminan) de cada cliente, para
+ * detectar solapes sin consultar la BD en cada alta. El árbol de un cliente se carga la primera
+ * vez que se consulta y después se mantiene con los cambios ya confirmados.
+ */
+@Component
+public class AgendaSesiones {
+
+    /** Duración que se asume para las sesiones sin fecha fin. */
+    static final Duration DURACION_POR_DEFECTO = Duration.ofHours(1);
+
+    /** Candados locales por cliente, repartidos por hash: dos clientes pueden compartir uno. */
+    private static final int CANDADOS = 64;
+
+    private final EntityManager entityManager;
+    private final Map<String, ArbolIntervalos> porCliente = new ConcurrentHashMap<>();
+    private final ReentrantLock[] candados = new ReentrantLock[CANDADOS];
+
+    public AgendaSesiones(EntityManager entityManager) {
+        this.entityManager = entityManager;
+        for (int i = 0; i < CANDADOS; i++) {
+            candados[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Serializa, hasta que termine la transacción actual, a quienes revisan solapes y escriben
+     * sesiones del cliente; sin esto dos altas concurrentes pueden pasar la revisión a la vez.
+     * El candado de la BD ({@code pg_advisory_xact_lock}) cubre cualquier conexión, pero se libera
+     * al confirmar, antes de que {@code afterCommit} agregue la sesión a la agenda; por eso el
+     * candado local se suelta recién en {@code afterCompletion}.
+     */
+    public void bloquearCliente(String cedula) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("bloquearCliente requiere una transacción activa");
+        }
+        ReentrantLock candado = candado(cedula);
+        candado.lock();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                candado.unlock();
+            }
+        });
+        entityManager.createNativeQuery("SELECT 1 FROM pg_advisory_xact_lock(hashtext(:cedula))")
+            .setParameter("cedula", cedula)
+            .getSingleResult();
+    }
+
+    static LocalDateTime fin(LocalDateTime inicio, LocalDateTime fin) {
+        return fin != null && fin.isAfter(inicio) ? fin : inicio.plus(DURACION_POR_DEFECTO);
+    }
+
+    /**
+     * Sesiones próximas del cliente que solapan [inicio, fin), sin contar {@code excluirId}.
+     * Una sesión que ya terminó no se compara con nada.
+     */
+    public List<Intervalo> solapes(String cedula, LocalDateTime inicio, LocalDateTime fin, Integer excluirId) {
+        LocalDateTime finEfectivo = fin(inicio, fin);
+        if (!finEfectivo.isAfter(LocalDateTime.now())) {
+            return List.of();
+        }
+        ArbolIntervalos arbol = arbol(cedula);
+        synchronized (arbol) {
+            return arbol.solapes(inicio, finEfectivo).stream()
+                .filter(i -> excluirId == null || i.id() != excluirId)
+                .toList();
+        }
+    }
+
+    /** Registra (o mueve) la sesión cuando la transacción actual confirme. */
+    public void registrar(Sesion sesion, String cedulaAnterior) {
+        Integer id = sesion.getId();
+        String cedula = sesion.getClienteCedula();
+        Intervalo intervalo = new Intervalo(id, sesion.getFechaInicio(), fin(sesion.getFechaInicio(), sesion.getFechaFin()));
+        alConfirmar(() -> {
+            if (cedulaAnterior != null && !cedulaAnterior.equals(cedula)) {
+                quitarDe(cedulaAnterior, id);
+            }
+            conCandado(cedula, () -> porCliente.computeIfPresent(cedula, (c, arbol) -> {
+                synchronized (arbol) {
+                    arbol.insertar(intervalo);
+                }
+                return arbol;
+            }));
+        });
+    }
+
+    public void retirar(String cedula, Integer id) {
+        alConfirmar(() -> quitarDe(cedula, id));
+    }
+
+    public void olvidarCliente(String cedula) {
+        alConfirmar(() -> conCandado(cedula, () -> porCliente.remove(cedula)));
+    }
+
+    /** Descarta las sesiones que ya terminaron y los clientes que se quedan sin próximas. */
+    @Scheduled(fixedDelayString = "${fitware.sesiones.agenda.poda-ms:3600000}")
+    public void podar() {
+        LocalDateTime ahora = LocalDateTime.now();
+        porCliente.values().removeIf(arbol -> {
+            synchronized (arbol) {
+                arbol.podar(ahora);
+                return arbol.vacio();
+            }
+        });
+    }
+
+    private void quitarDe(String cedula, Integer id) {
+        conCandado(cedula, () -> porCliente.computeIfPresent(cedula, (c, arbol) -> {
+            synchronized (arbol) {
+                arbol.quitar(id);
+            }
+            return arbol;
+        }));
+    }
+
+    private ReentrantLock candado(String cedula) {
+        return candados[Math.floorMod(cedula.hashCode(), CANDADOS)];
+    }
+
+    private void conCandado(String cedula, Runnable accion) {
+        ReentrantLock candado = candado(cedula);
+        candado.lock();
+        try {
+            accion.run();
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Árbol del cliente, cargándolo si falta. La consulta corre fuera del mapa pero con el
+     * candado del cliente, que también toman los cambios confirmados: ninguno cae entre la
+     * lectura y la publicación del árbol.
+     */
+    private ArbolIntervalos arbol(String cedula) {
+        ArbolIntervalos arbol = porCliente.get(cedula);
+        if (arbol != null) {
+            return arbol;
+        }
+        ReentrantLock candado = candado(cedula);
+        candado.lock();
+        try {
+            arbol = porCliente.get(cedula);
+            if (arbol == null) {
+                arbol = cargar(cedula);
+                porCliente.put(cedula, arbol);
+            }
+            return arbol;
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    private ArbolIntervalos cargar(String cedula) {
+        LocalDateTime ahora = LocalDateTime.now();
+        String sql = """
+            SELECT s.id, s.fecha_inicio, s.fecha_fin
+            FROM sesion s
+            WHERE s.cliente_cedula = :cedula
+              AND s.fecha_inicio IS NOT NULL
+              AND (s.fecha_fin > :ahora OR s.fecha_inicio > :ahoraMenosDuracion)
+        """;
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager.createNativeQuery(sql)
+            .setParameter("cedula", cedula)
+            .setParameter("ahora", ahora)
+            .setParameter("ahoraMenosDuracion", ahora.minus(DURACION_POR_DEFECTO))
+            .getResultList();
+        ArbolIntervalos arbol = new ArbolIntervalos();
+        for (Object[] row : rows) {
+            LocalDateTime inicio = TablaReporte.aFechaHora(row[1]);
+            LocalDateTime fin = fin(inicio, TablaReporte.aFechaHora(row[2]));
+            if (fin.isAfter(ahora)) {
+                arbol.insertar(new Intervalo(((Number) row[0]).intValue(), inicio, fin));
+            }
+        }
+        return arbol;
+    }
+
+    private static void alConfirmar(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accion.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.fitware.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Árbol de intervalos semiabiertos [inicio, fin): AVL ordenado por (inicio, id) y aumentado con
+ * el fin máximo de cada subárbol. Insertar y quitar cuestan O(log n); buscar solapes cuesta
+ * O(log n + k), donde k es el número de solapes encontrados. No es seguro entre hilos.
+ */
+final class ArbolIntervalos {
+
+    record Intervalo(int id, LocalDateTime inicio, LocalDateTime fin) {
+
+        boolean solapa(LocalDateTime otroInicio, LocalDateTime otroFin) {
+            return inicio.isBefore(otroFin) && otroInicio.isBefore(fin);
+        }
+    }
+
+    private Nodo raiz;
+    private final Map<Integer, Intervalo> porId = new HashMap<>();
+
+    /** Inserta o reemplaza el intervalo con ese id. */
+    void insertar(Intervalo intervalo) {
+        quitar(intervalo.id());
+        raiz = insertar(raiz, intervalo);
+        porId.put(intervalo.id(), intervalo);
+    }
+
+    void quitar(int id) {
+        Intervalo intervalo = porId.remove(id);
+        if (intervalo != null) {
+            raiz = quitar(raiz, intervalo);
+        }
+    }
+
+    boolean vacio() {
+        return porId.isEmpty();
+    }
+
+    int tamano() {
+        return porId.size();
+    }
+
+    /** 0 si está vacío; en un AVL nunca supera ~1,44·log2(n + 2). */
+    int altura() {
+        return altura(raiz);
+    }
+
+    /** Intervalos que solapan [inicio, fin), en orden de inicio. */
+    List<Intervalo> solapes(LocalDateTime inicio, LocalDateTime fin) {
+        List<Intervalo> resultado = new ArrayList<>();
+        solapes(raiz, inicio, fin, resultado);
+        return resultado;
+    }
+
+    /** Quita los intervalos que terminan en o antes de {@code limite}. */
+    void podar(LocalDateTime limite) {
+        List<Integer> vencidos = porId.values().stream()
+            .filter(i -> !i.fin().isAfter(limite))
+            .map(Intervalo::id)
+            .toList();
+        vencidos.forEach(this::quitar);
+    }
+
+    private static void solapes(Nodo nodo, LocalDateTime inicio, LocalDateTime fin, List<Intervalo> resultado) {
+        // Si nada en el subárbol termina después de 'inicio', no puede solapar
+        if (nodo == null || !nodo.maxFin.isAfter(inicio)) {
+            return;
+        }
+        solapes(nodo.izq, inicio, fin, resultado);
+        if (nodo.intervalo.solapa(inicio, fin)) {
+            resultado.add(nodo.intervalo);
+        }
+        // A la derecha todo empieza en o después de este nodo
+        if (nodo.intervalo.inicio().isBefore(fin)) {
+            solapes(nodo.der, inicio, fin, resultado);
+        }
+    }
+
+    private static int comparar(Intervalo a, Intervalo b) {
+        int c = a.inicio().compareTo(b.inicio());
+        return c != 0 ? c : Integer.compare(a.id(), b.id());
+    }
+
+    private static Nodo insertar(Nodo nodo, Intervalo intervalo) {
+        if (nodo == null) {
+            return new Nodo(intervalo);
+        }
+        if (comparar(intervalo, nodo.intervalo) < 0) {
+            nodo.izq = insertar(nodo.izq, intervalo);
+        } else {
+            nodo.der = insertar(nodo.der, intervalo);
+        }
+        return balancear(nodo);
+    }
+
+    private static Nodo quitar(Nodo nodo, Intervalo intervalo) {
+        if (nodo == null) {
+            return null;
+        }
+        int c = comparar(intervalo, nodo.intervalo);
+        if (c < 0) {
+            nodo.izq = quitar(nodo.izq, intervalo);
+        } else if (c > 0) {
+            nodo.der = quitar(nodo.der, intervalo);
+        } else {
+            if (nodo.izq == null) {
+                return nodo.der;
+            }
+            if (nodo.der == null) {
+                return nodo.izq;
+            }
+            Nodo sucesor = nodo.der;
+            while (sucesor.izq != null) {
+                sucesor = sucesor.izq;
+            }
+            nodo.intervalo = sucesor.intervalo;
+            nodo.der = quitar(nodo.der, sucesor.intervalo);
+        }
+        return balancear(nodo);
+    }
+
+    private static Nodo balancear(Nodo nodo) {
+        actualizar(nodo);
+        int factor = altura(nodo.izq) - altura(nodo.der);
+        if (factor > 1) {
+            if (altura(nodo.izq.izq) < altura(nodo.izq.der)) {
+                nodo.izq = rotarIzquierda(nodo.izq);
+            }
+            return rotarDerecha(nodo);
+        }
+        if (factor < -1) {
+            if (altura(nodo.der.der) < altura(nodo.der.izq)) {
+                nodo.der = rotarDerecha(nodo.der);
+            }
+            return rotarIzquierda(nodo);
+        }
+        return nodo;
+    }
+
+    private static Nodo rotarDerecha(Nodo nodo) {
+        Nodo nuevaRaiz = nodo.izq;
+        nodo.izq = nuevaRaiz.der;
+        nuevaRaiz.der = nodo;
+        actualizar(nodo);
+        actualizar(nuevaRaiz);
+        return nuevaRaiz;
+    }
+
+    private static Nodo rotarIzquierda(Nodo nodo) {
+        Nodo nuevaRaiz = nodo.der;
+        nodo.der = nuevaRaiz.izq;
+        nuevaRaiz.izq = nodo;
+        actualizar(nodo);
+        actualizar(nuevaRaiz);
+        return nuevaRaiz;
+    }
+
+    private static void actualizar(Nodo nodo) {
+        nodo.altura = 1 + Math.max(altura(nodo.izq), altura(nodo.der));
+        LocalDateTime max = nodo.intervalo.fin();
+        if (nodo.izq != null && nodo.izq.maxFin.isAfter(max)) {
+            max = nodo.izq.maxFin;
+        }
+        if (nodo.der != null && nodo.der.maxFin.isAfter(max)) {
+            max = nodo.der.maxFin;
+        }
+        nodo.maxFin = max;
+    }
+
+    private static int altura(Nodo nodo) {
+        return nodo == null ? 0 : nodo.altura;
+    }
+
+    private static final class Nodo {
+
+        private Intervalo intervalo;
+        private LocalDateTime maxFin;
+        private int altura = 1;
+        private Nodo izq;
+        private Nodo der;
+
+        Nodo(Intervalo intervalo) {
+            this.intervalo = intervalo;
+            this.maxFin = intervalo.fin();
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.example.fitware.service;
+
+import com.example.fitware.repository.ClienteRepository;
+import com.example.fitware.service.ReportDataChangedEvent.Tabla;
+import com.example.fitware.service.ReportRollupService.HuellaProgreso;
+import com.example.fitware.service.ReportRollupService.HuellaSesion;
+import com.example.fitware.web.dto.PurgaClienteDTO;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.IntConsumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Borrado asíncrono de clientes con historiales muy grandes. Las dependencias se eliminan en
+ * lotes acotados, cada uno en su propia transacción corta, y al final se borra el cliente con
+ * {@link ClienteService#eliminarCliente(String)}, que recoge lo que se haya agregado entretanto.
+ * Cada lote descuenta lo borrado de agregados, totales y resumen, y avisa a agenda y cachés, así
+ * que lo que se lee a mitad de la purga es coherente con lo que queda en la BD.
+ */
+@Service
+public class ClientePurgaService {
+
+    private static final Logger log = LoggerFactory.getLogger(ClientePurgaService.class);
+
+    public enum Estado { EN_PROCESO, COMPLETADO, FALLIDO }
+
+    /** Devuelve la sesión de cada asignación borrada para recalcular sus totales. */
+    private static final String BORRAR_ASIGNACIONES = """
+        DELETE FROM sesion_ejercicios
+        WHERE id IN (
+            SELECT se.id
+            FROM sesion_ejercicios se
+            JOIN sesion s ON s.id = se.sesion_id
+            WHERE s.cliente_cedula = :cedula
+            LIMIT :lote
+        )
+        RETURNING sesion_id
+        """;
+
+    /** Devuelve la celda del agregado de cada sesión borrada (mismas reglas que schema.sql). */
+    private static final String BORRAR_SESIONES = """
+        DELETE FROM sesion
+        WHERE id IN (SELECT id FROM sesion WHERE cliente_cedula = :cedula LIMIT :lote)
+        RETURNING CAST(DATE_TRUNC('month', fecha_inicio) AS DATE),
+                  COALESCE(UPPER(estado), 'SIN_ESTADO'),
+                  gasto_calorico
+        """;
+
+    private static final String BORRAR_PROGRESOS = """
+        DELETE FROM progreso
+        WHERE id IN (SELECT id FROM progreso WHERE cliente_cedula = :cedula LIMIT :lote)
+        RETURNING CAST(DATE_TRUNC('month', fecha) AS DATE), peso
+        """;
+
+    private final ClienteRepository cRepo;
+    private final ClienteService clienteService;
+    private final ReportRollupService rollups;
+    private final ProgresoResumenService resumenes;
+    private final SesionTotalesService totales;
+    private final AgendaSesiones agenda;
+    private final ApplicationEventPublisher events;
+    private final EntityManager entityManager;
+    private final TransactionTemplate tx;
+    private final ThreadPoolExecutor executor;
+    private final PresupuestoConexiones presupuesto;
+    private final int lote;
+    private final Map<String, Purga> purgas = new ConcurrentHashMap<>();
+
+    public ClientePurgaService(ClienteRepository cRepo,
+                               ClienteService clienteService,
+                               ReportRollupService rollups,
+                               ProgresoResumenService resumenes,
+                               SesionTotalesService totales,
+                               AgendaSesiones agenda,
+                               ApplicationEventPublisher events,
+                               EntityManager entityManager,
+                               PlatformTransactionManager transactionManager,
+                               @Qualifier("purgaExecutor") ThreadPoolExecutor executor,
+                               PresupuestoConexiones presupuesto,
+                               @Value("${fitware.clientes.purga.lote:5000}") int lote) {
+        this.cRepo = cRepo;
+        this.clienteService = clienteService;
+        this.rollups = rollups;
+        this.resumenes = resumenes;
+        this.totales = totales;
+        this.agenda = agenda;
+        this.events = events;
+        this.entityManager = entityManager;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.executor = executor;
+        this.presupuesto = presupuesto;
+        this.lote = lote;
+    }
+
+    public PurgaClienteDTO iniciar(String cedula) {
+        String c = cedula == null ? "" : cedula.trim();
+        if (c.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "La cédula es obligatoria");
+        }
+        if (!cRepo.existsById(c)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Cliente no encontrado");
+        }
+        Purga purga = new Purga(c);
+        Purga vigente = purgas.compute(c, (k, previa) ->
+            previa != null && previa.estado == Estado.EN_PROCESO ? previa : purga);
+        if (vigente != purga) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Ya hay una purga en curso para el cliente");
+        }
+        try {
+            executor.execute(() -> ejecutar(purga));
+        } catch (RejectedExecutionException ex) {
+            purgas.remove(c, purga);
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                "Hay demasiadas purgas en cola; intente más tarde");
+        }
+        return purga.aDto();
+    }
+
+    public PurgaClienteDTO consultar(String cedula) {
+        Purga purga = cedula == null ? null : purgas.get(cedula.trim());
+        if (purga == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No hay purga registrada para el cliente");
+        }
+        return purga.aDto();
+    }
+
+    private void ejecutar(Purga purga) {
+        try {
+            borrarEnLotes(purga.cedula, this::borrarAsignaciones, n -> purga.asignaciones += n);
+            borrarEnLotes(purga.cedula, this::borrarSesiones, n -> purga.sesiones += n);
+            borrarEnLotes(purga.cedula, this::borrarProgresos, n -> purga.progresos += n);
+            try (PresupuestoConexiones.Permiso permiso = presupuesto.ocuparEsperando()) {
+                clienteService.eliminarCliente(purga.cedula);
+            }
+            purga.estado = Estado.COMPLETADO;
+        } catch (Exception ex) {
+            log.error("Falló la purga del cliente {}", purga.cedula, ex);
+            purga.error = "Error interno al purgar el cliente; los lotes ya borrados no se restauran";
+            purga.estado = Estado.FALLIDO;
+        } finally {
+            purga.finalizada = Instant.now();
+        }
+    }
+
+    /**
+     * Repite el lote, cada vez en una transacción nueva, hasta que no quede nada. El permiso se
+     * suelta entre lotes para que una purga larga no retenga el presupuesto de conexiones.
+     */
+    private void borrarEnLotes(String cedula, ToIntFunction<String> borrarLote, IntConsumer avance) {
+        while (true) {
+            Integer borradas;
+            try (PresupuestoConexiones.Permiso permiso = presupuesto.ocuparEsperando()) {
+                borradas = tx.execute(status -> borrarLote.applyAsInt(cedula));
+            }
+            if (borradas == null || borradas == 0) {
+                return;
+            }
+            avance.accept(borradas);
+        }
+    }
+
+    int borrarAsignaciones(String cedula) {
+        List<Object> sesiones = borrar(BORRAR_ASIGNACIONES, cedula);
+        totales.refrescar(sesiones.stream().map(id -> ((Number) id).intValue()).distinct().toList());
+        return sesiones.size();
+    }
+
+    int borrarSesiones(String cedula) {
+        List<Object> filas = borrar(BORRAR_SESIONES, cedula);
+        if (filas.isEmpty()) {
+            return 0;
+        }
+        List<HuellaSesion> huellas = new ArrayList<>(filas.size());
+        for (Object fila : filas) {
+            Object[] row = (Object[]) fila;
+            LocalDate mes = TablaReporte.aFecha(row[0]);
+            if (mes != null) {
+                huellas.add(new HuellaSesion(cedula, mes, (String) row[1], numero(row[2])));
+            }
+        }
+        rollups.retirarSesiones(huellas);
+        agenda.olvidarCliente(cedula);
+        events.publishEvent(ReportDataChangedEvent.todo(Tabla.SESION));
+        return filas.size();
+    }
+
+    int borrarProgresos(String cedula) {
+        List<Object> filas = borrar(BORRAR_PROGRESOS, cedula);
+        if (filas.isEmpty()) {
+            return 0;
+        }
+        List<HuellaProgreso> huellas = new ArrayList<>(filas.size());
+        for (Object fila : filas) {
+            Object[] row = (Object[]) fila;
+            LocalDate mes = TablaReporte.aFecha(row[0]);
+            if (mes != null) {
+                huellas.add(new HuellaProgreso(cedula, mes, numero(row[1])));
+            }
+        }
+        rollups.retirarProgresos(huellas);
+        resumenes.refrescar(cedula);
+        events.publishEvent(ReportDataChangedEvent.todo(Tabla.PROGRESO));
+        return filas.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object> borrar(String sql, String cedula) {
+        return entityManager.createNativeQuery(sql)
+            .setParameter("cedula", cedula)
+            .setParameter("lote", lote)
+            .getResultList();
+    }
+
+    private static Double numero(Object value) {
+        return value == null ? null : ((Number) value).doubleValue();
+    }
+
+    private static final class Purga {
+
+        private final String cedula;
+        private final Instant iniciada = Instant.now();
+        private volatile Estado estado = Estado.EN_PROCESO;
+        private volatile long asignaciones;
+        private volatile long sesiones;
+        private volatile long progresos;
+        private volatile Instant finalizada;
+        private volatile String error;
+
+        Purga(String cedula) {
+            this.cedula = cedula;
+        }
+
+        PurgaClienteDTO aDto() {
+            return new PurgaClienteDTO(
+                cedula, estado.name(), asignaciones, sesiones, progresos, iniciada, finalizada, error
+            );
+        }
+    }
+}
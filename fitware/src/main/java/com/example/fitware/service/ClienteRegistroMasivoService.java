@@ -0,0 +1,238 @@
+package com.example.fitware.service;
+
+import com.example.fitware.domain.Cliente;
+import com.example.fitware.domain.Usuario;
+import com.example.fitware.service.ReportDataChangedEvent.Tabla;
+import com.example.fitware.web.dto.RegistroClienteDTO;
+import com.example.fitware.web.dto.RegistroMasivoClientesDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Alta/actualización masiva de clientes (migraciones de otros gimnasios). Las filas de usuario y
+ * cliente se escriben con un INSERT ... ON CONFLICT de varias filas por lote, cada lote en su propia
+ * transacción; {@code RETURNING (xmax = 0)} distingue las filas creadas de las actualizadas.
+ */
+@Service
+public class ClienteRegistroMasivoService {
+
+    private static final Logger log = LoggerFactory.getLogger(ClienteRegistroMasivoService.class);
+
+    private static final int MAX_POR_SOLICITUD = 50_000;
+
+    private final EntityManager entityManager;
+    private final ProgresoResumenService resumenes;
+    private final IndiceClientes indice;
+    private final ApplicationEventPublisher events;
+    private final TransactionTemplate tx;
+    private final int lote;
+
+    public ClienteRegistroMasivoService(EntityManager entityManager,
+                                        ProgresoResumenService resumenes,
+                                        IndiceClientes indice,
+                                        ApplicationEventPublisher events,
+                                        PlatformTransactionManager transactionManager,
+                                        @Value("${fitware.clientes.registro.lote:500}") int lote) {
+        this.entityManager = entityManager;
+        this.resumenes = resumenes;
+        this.indice = indice;
+        this.events = events;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.lote = lote;
+    }
+
+    /**
+     * A diferencia de {@link ClienteService#registrarCliente}, un cliente que ya existe se actualiza
+     * en lugar de responder 409. Los errores de validación rechazan solo ese registro; un error de
+     * BD rechaza el lote completo sin afectar a los ya confirmados.
+     */
+    public RegistroMasivoClientesDTO registrar(List<RegistroClienteDTO> registros) {
+        if (registros == null || registros.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Debe enviar al menos un cliente");
+        }
+        if (registros.size() > MAX_POR_SOLICITUD) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "Máximo " + MAX_POR_SOLICITUD + " clientes por solicitud");
+        }
+        List<RegistroMasivoClientesDTO.Lote> lotes = new ArrayList<>();
+        Set<String> vistas = new HashSet<>();
+        int creados = 0;
+        int actualizados = 0;
+        int rechazados = 0;
+        for (int inicio = 0; inicio < registros.size(); inicio += lote) {
+            int fin = Math.min(inicio + lote, registros.size());
+            List<RegistroMasivoClientesDTO.Rechazo> rechazos = new ArrayList<>();
+            List<Fila> filas = new ArrayList<>(fin - inicio);
+            for (int i = inicio; i < fin; i++) {
+                try {
+                    Fila fila = fila(i, registros.get(i));
+                    if (!vistas.add(fila.cedula())) {
+                        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cédula repetida en la solicitud");
+                    }
+                    filas.add(fila);
+                } catch (ResponseStatusException ex) {
+                    rechazos.add(new RegistroMasivoClientesDTO.Rechazo(i, cedula(registros.get(i)), ex.getReason()));
+                }
+            }
+            RegistroMasivoClientesDTO.Lote resultado = guardar(lotes.size(), filas, rechazos);
+            lotes.add(resultado);
+            creados += resultado.creados().size();
+            actualizados += resultado.actualizados().size();
+            rechazados += resultado.rechazados().size();
+        }
+        return new RegistroMasivoClientesDTO(registros.size(), creados, actualizados, rechazados, lotes);
+    }
+
+    private RegistroMasivoClientesDTO.Lote guardar(int numero, List<Fila> filas,
+                                                   List<RegistroMasivoClientesDTO.Rechazo> rechazos) {
+        List<String> creados = new ArrayList<>();
+        List<String> actualizados = new ArrayList<>();
+        if (!filas.isEmpty()) {
+            // Mismo orden de filas en todos los lotes: dos cargas concurrentes no se bloquean en cruz
+            filas.sort(Comparator.comparing(Fila::cedula));
+            try {
+                tx.executeWithoutResult(status -> {
+                    upsertUsuarios(filas);
+                    for (Object[] row : upsertClientes(filas)) {
+                        (Boolean.TRUE.equals(row[1]) ? creados : actualizados).add((String) row[0]);
+                    }
+                    resumenes.inicializar(creados);
+                    for (Fila fila : filas) {
+                        indice.registrar(fila.usuario());
+                    }
+                    events.publishEvent(actualizados.isEmpty()
+                        ? ReportDataChangedEvent.de(Tabla.CLIENTE,
+                            filas.stream().map(Fila::fechaRegistro).toArray(LocalDate[]::new))
+                        // Nombres y fechas de registro aparecen en casi todas las secciones
+                        : ReportDataChangedEvent.todo(Tabla.CLIENTE));
+                });
+            } catch (RuntimeException ex) {
+                log.warn("No se guardó el lote {} del registro masivo de clientes", numero, ex);
+                creados.clear();
+                actualizados.clear();
+                for (Fila fila : filas) {
+                    rechazos.add(new RegistroMasivoClientesDTO.Rechazo(fila.indice(), fila.cedula(),
+                        "Lote no guardado por un error al escribir en la base de datos"));
+                }
+            }
+        }
+        rechazos.sort(Comparator.comparingInt(RegistroMasivoClientesDTO.Rechazo::indice));
+        return new RegistroMasivoClientesDTO.Lote(numero, creados, actualizados, rechazos);
+    }
+
+    private void upsertUsuarios(List<Fila> filas) {
+        StringBuilder sql = new StringBuilder(
+            "INSERT INTO usuario (cedula, nombre, apellidos, fecha_nacimiento, telefono, genero) VALUES ");
+        for (int i = 0; i < filas.size(); i++) {
+            sql.append(i == 0 ? "" : ", ")
+                .append("(:c").append(i)
+                .append(", CAST(:n").append(i).append(" AS VARCHAR)")
+                .append(", CAST(:a").append(i).append(" AS VARCHAR)")
+                .append(", CAST(:f").append(i).append(" AS DATE)")
+                .append(", CAST(:t").append(i).append(" AS VARCHAR)")
+                .append(", CAST(:g").append(i).append(" AS VARCHAR))");
+        }
+        sql.append("""
+             ON CONFLICT (cedula) DO UPDATE
+            SET nombre = EXCLUDED.nombre,
+                apellidos = EXCLUDED.apellidos,
+                fecha_nacimiento = EXCLUDED.fecha_nacimiento,
+                telefono = EXCLUDED.telefono,
+                genero = EXCLUDED.genero
+            """);
+        Query query = entityManager.createNativeQuery(sql.toString());
+        for (int i = 0; i < filas.size(); i++) {
+            Usuario u = filas.get(i).usuario();
+            query.setParameter("c" + i, u.getCedula())
+                .setParameter("n" + i, u.getNombre())
+                .setParameter("a" + i, u.getApellidos())
+                .setParameter("f" + i, u.getFechaNacimiento())
+                .setParameter("t" + i, u.getTelefono())
+                .setParameter("g" + i, u.getGenero());
+        }
+        query.executeUpdate();
+    }
+
+    /** Filas (cedula, creado): xmax = 0 solo en las filas que insertó esta sentencia. */
+    private List<Object[]> upsertClientes(List<Fila> filas) {
+        StringBuilder sql = new StringBuilder(
+            "INSERT INTO cliente (usuario_cedula, fecha_registro, peso_inicial, altura_inicial) VALUES ");
+        for (int i = 0; i < filas.size(); i++) {
+            sql.append(i == 0 ? "" : ", ")
+                .append("(:c").append(i)
+                .append(", CAST(:f").append(i).append(" AS DATE)")
+                .append(", CAST(:p").append(i).append(" AS DOUBLE PRECISION)")
+                .append(", CAST(:h").append(i).append(" AS DOUBLE PRECISION))");
+        }
+        sql.append("""
+             ON CONFLICT (usuario_cedula) DO UPDATE
+            SET fecha_registro = EXCLUDED.fecha_registro,
+                peso_inicial = EXCLUDED.peso_inicial,
+                altura_inicial = EXCLUDED.altura_inicial
+            RETURNING usuario_cedula, (xmax = 0) AS creado
+            """);
+        Query query = entityManager.createNativeQuery(sql.toString());
+        for (int i = 0; i < filas.size(); i++) {
+            Fila fila = filas.get(i);
+            query.setParameter("c" + i, fila.cedula())
+                .setParameter("f" + i, fila.fechaRegistro())
+                .setParameter("p" + i, fila.pesoInicial())
+                .setParameter("h" + i, fila.alturaInicial());
+        }
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = query.getResultList();
+        return rows;
+    }
+
+    /** Mismas reglas de identificación que {@link ClienteService#registrarCliente}. */
+    private static Fila fila(int indice, RegistroClienteDTO registro) {
+        if (registro == null || registro.usuario() == null || registro.cliente() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Datos incompletos para registrar cliente");
+        }
+        Usuario u = registro.usuario();
+        Cliente c = registro.cliente();
+        String cedula = u.getCedula() == null ? "" : u.getCedula().trim();
+        if (cedula.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "La cédula del usuario es obligatoria");
+        }
+        String cedulaCliente = c.getUsuarioCedula();
+        if (cedulaCliente != null && !cedulaCliente.isBlank() && !cedula.equals(cedulaCliente.trim())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "PK/FK deben coincidir (usuario.cedula == cliente.usuarioCedula)");
+        }
+        Usuario usuario = new Usuario();
+        usuario.setCedula(cedula);
+        usuario.setNombre(u.getNombre());
+        usuario.setApellidos(u.getApellidos());
+        usuario.setFechaNacimiento(u.getFechaNacimiento());
+        usuario.setTelefono(u.getTelefono());
+        usuario.setGenero(u.getGenero());
+        return new Fila(indice, usuario, c.getFechaRegistro(), c.getPesoInicial(), c.getAlturaInicial());
+    }
+
+    private static String cedula(RegistroClienteDTO registro) {
+        return registro == null || registro.usuario() == null ? null : registro.usuario().getCedula();
+    }
+
+    private record Fila(int indice, Usuario usuario, LocalDate fechaRegistro, Double pesoInicial, Double alturaInicial) {
+
+        String cedula() {
+            return usuario.getCedula();
+        }
+    }
+}
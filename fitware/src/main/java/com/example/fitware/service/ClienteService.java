@@ -2,40 +2,75 @@ package com.example.fitware.service;
 
 import com.example.fitware.domain.Cliente;
 import com.example.fitware.domain.Progreso;
-import com.example.fitware.domain.Sesion;
 import com.example.fitware.domain.Usuario;
 import com.example.fitware.repository.ClienteRepository;
 import com.example.fitware.repository.ProgresoRepository;
 import com.example.fitware.repository.SesionEjerciciosRepository;
 import com.example.fitware.repository.SesionRepository;
 import com.example.fitware.repository.UsuarioRepository;
+import com.example.fitware.service.ReportDataChangedEvent.Tabla;
+import com.example.fitware.service.ReportRollupService.HuellaProgreso;
+import com.example.fitware.web.dto.BusquedaClientesDTO;
+import com.example.fitware.web.dto.SerieProgresoDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
+import java.util.stream.Stream;
 
 @Service
 public class ClienteService {
 
+    private static final int TAMANO_BUSQUEDA = 20;
+    private static final int MAX_TAMANO_BUSQUEDA = 100;
+    private static final int PUNTOS_SERIE = 200;
+    private static final int MAX_PUNTOS_SERIE = 2_000;
+    private static final int FILAS_POR_LECTURA = 500;
+
     private final ClienteRepository cRepo;
     private final UsuarioRepository uRepo;
     private final ProgresoRepository pRepo;
     private final SesionRepository sRepo;
     private final SesionEjerciciosRepository seRepo;
+    private final ReportRollupService rollups;
+    private final ProgresoResumenService resumenes;
+    private final ApplicationEventPublisher events;
+    private final AgendaSesiones agenda;
+    private final IndiceClientes indice;
+    private final EntityManager entityManager;
 
     public ClienteService(ClienteRepository cRepo,
                           UsuarioRepository uRepo,
                           ProgresoRepository pRepo,
                           SesionRepository sRepo,
-                          SesionEjerciciosRepository seRepo) {
+                          SesionEjerciciosRepository seRepo,
+                          ReportRollupService rollups,
+                          ProgresoResumenService resumenes,
+                          ApplicationEventPublisher events,
+                          AgendaSesiones agenda,
+                          IndiceClientes indice,
+                          EntityManager entityManager) {
         this.cRepo = cRepo;
         this.uRepo = uRepo;
         this.pRepo = pRepo;
         this.sRepo = sRepo;
         this.seRepo = seRepo;
+        this.rollups = rollups;
+        this.resumenes = resumenes;
+        this.events = events;
+        this.agenda = agenda;
+        this.indice = indice;
+        this.entityManager = entityManager;
     }
 
     /**
@@ -83,7 +118,11 @@ public class ClienteService {
         nuevo.setPesoInicial(c.getPesoInicial());
         nuevo.setAlturaInicial(c.getAlturaInicial());
 
-        return cRepo.save(nuevo);
+        Cliente guardado = cRepo.save(nuevo);
+        resumenes.refrescar(cedula);
+        indice.registrar(userDb);
+        events.publishEvent(ReportDataChangedEvent.de(Tabla.CLIENTE, guardado.getFechaRegistro()));
+        return guardado;
     }
 
     @Transactional(readOnly = true)
@@ -93,11 +132,93 @@ public class ClienteService {
         return pRepo.findByCliente_Usuario_CedulaOrderByFechaDesc(cedula);
     }
 
+    /**
+     * Serie de peso/IMC para graficar, con a lo sumo {@code maxPuntos} puntos: el rango se parte
+     * en tramos de igual número de días y cada tramo guarda mínimo, máximo y promedio, así que
+     * los picos no se pierden. Los registros se recorren una sola vez, en orden de fecha, sin
+     * cargarlos en memoria. Sin rango, se usa el de los registros del cliente.
+     */
+    @Transactional(readOnly = true)
+    public SerieProgresoDTO serieProgreso(String cedula, LocalDate desde, LocalDate hasta, Integer maxPuntos) {
+        String c = verificarCliente(cedula).getUsuarioCedula();
+        int puntos = maxPuntos == null ? PUNTOS_SERIE : maxPuntos;
+        if (puntos <= 0 || puntos > MAX_PUNTOS_SERIE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "maxPuntos debe estar entre 1 y " + MAX_PUNTOS_SERIE);
+        }
+        if (desde == null || hasta == null) {
+            Object[] rango = (Object[]) entityManager.createNativeQuery(
+                    "SELECT MIN(p.fecha), MAX(p.fecha) FROM progreso p WHERE p.cliente_cedula = :cedula")
+                .setParameter("cedula", c)
+                .getSingleResult();
+            if (rango[0] == null) {
+                return new SerieProgresoDTO(c, desde, hasta, 1, 0, List.of());
+            }
+            desde = desde != null ? desde : TablaReporte.aFecha(rango[0]);
+            hasta = hasta != null ? hasta : TablaReporte.aFecha(rango[1]);
+        }
+        if (hasta.isBefore(desde)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "La fecha hasta no puede ser anterior a desde");
+        }
+        long dias = ChronoUnit.DAYS.between(desde, hasta) + 1;
+        int diasPorPunto = (int) ((dias + puntos - 1) / puntos);
+
+        Query query = entityManager.createNativeQuery("""
+                SELECT p.fecha, p.peso, p.imc
+                FROM progreso p
+                WHERE p.cliente_cedula = :cedula
+                  AND p.fecha BETWEEN :desde AND :hasta
+                ORDER BY p.fecha, p.id
+                """)
+            .setParameter("cedula", c)
+            .setParameter("desde", desde)
+            .setParameter("hasta", hasta)
+            .setHint("org.hibernate.fetchSize", FILAS_POR_LECTURA);
+
+        List<SerieProgresoDTO.Punto> serie = new ArrayList<>();
+        TramoSerie tramo = null;
+        long registros = 0;
+        try (@SuppressWarnings("unchecked") Stream<Object[]> filas = query.getResultStream()) {
+            Iterator<Object[]> it = filas.iterator();
+            while (it.hasNext()) {
+                Object[] row = it.next();
+                LocalDate fecha = TablaReporte.aFecha(row[0]);
+                long indiceTramo = ChronoUnit.DAYS.between(desde, fecha) / diasPorPunto;
+                if (tramo == null || tramo.indice != indiceTramo) {
+                    if (tramo != null) {
+                        serie.add(tramo.aPunto());
+                    }
+                    tramo = new TramoSerie(indiceTramo, fecha);
+                }
+                tramo.agregar(fecha, numero(row[1]), numero(row[2]));
+                registros++;
+            }
+        }
+        if (tramo != null) {
+            serie.add(tramo.aPunto());
+        }
+        return new SerieProgresoDTO(c, desde, hasta, diasPorPunto, registros, serie);
+    }
+
     @Transactional(readOnly = true)
     public List<Cliente> listarClientes() {
         return cRepo.findAll();
     }
 
+    /** Búsqueda por nombre, apellidos o cédula contra el índice en memoria (no consulta la BD). */
+    public BusquedaClientesDTO buscarClientes(String consulta, Integer pagina, Integer tamano) {
+        int p = pagina == null ? 0 : pagina;
+        int t = tamano == null ? TAMANO_BUSQUEDA : tamano;
+        if (p < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "La página no puede ser negativa");
+        }
+        if (t <= 0 || t > MAX_TAMANO_BUSQUEDA) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "El tamaño debe estar entre 1 y " + MAX_TAMANO_BUSQUEDA);
+        }
+        return indice.buscar(safe(consulta), p, t);
+    }
+
     @Transactional(readOnly = true)
     public Cliente obtenerCliente(String cedula) {
         return verificarCliente(cedula);
@@ -111,7 +232,11 @@ public class ClienteService {
         Cliente c = verificarCliente(cedula);
         p.setId(null);
         p.setCliente(c);
-        return pRepo.save(p);
+        Progreso guardado = pRepo.save(p);
+        rollups.registrarProgreso(guardado);
+        resumenes.refrescar(c.getUsuarioCedula());
+        events.publishEvent(ReportDataChangedEvent.de(Tabla.PROGRESO, guardado.getFecha()));
+        return guardado;
     }
 
     /**
@@ -141,6 +266,7 @@ public class ClienteService {
         userDb.setTelefono(datosUsuario.getTelefono());
         userDb.setGenero(datosUsuario.getGenero());
         uRepo.save(userDb);
+        indice.registrar(userDb);
 
         // Ahora datos propios de Cliente
         existente.setFechaRegistro(datosCliente.getFechaRegistro());
@@ -152,7 +278,10 @@ public class ClienteService {
             existente.setUsuario(userDb);
         }
 
-        return cRepo.save(existente);
+        Cliente guardado = cRepo.save(existente);
+        // Nombres y fechas de registro aparecen en casi todas las secciones
+        events.publishEvent(ReportDataChangedEvent.todo(Tabla.CLIENTE));
+        return guardado;
     }
 
     /**
@@ -162,22 +291,21 @@ public class ClienteService {
     @Transactional
     public void eliminarCliente(String cedula) {
         Cliente cliente = verificarCliente(cedula);
+        String c = cliente.getUsuarioCedula();
 
-        // Primero, ejercicios asignados a sesiones del cliente
-        // Ruta: sesion -> cliente -> usuario -> cedula
-        List<Sesion> sesiones = sRepo.findByCliente_Usuario_CedulaOrderByFechaInicioDesc(cedula);
-        sesiones.forEach(sesion -> {
-            if (sesion.getId() != null) {
-                seRepo.deleteBySesion_Id(sesion.getId());
-            }
-        });
-        sRepo.deleteAll(sesiones);
+        // Un DELETE por tabla, filtrando por la cédula del cliente (sin cargar filas).
+        // Primero, ejercicios asignados a sesiones del cliente; luego sesiones y progresos
+        seRepo.deleteByClienteCedula(c);
+        sRepo.deleteByClienteCedula(c);
+        pRepo.deleteByClienteCedula(c);
 
-        // Luego, progresos
-        pRepo.deleteByCliente_Usuario_Cedula(cedula);
-
-        // Finalmente, el cliente
+        // Finalmente, el cliente (sus agregados de reportes caen por ON DELETE CASCADE)
         cRepo.delete(cliente);
+        agenda.olvidarCliente(c);
+        indice.retirar(c);
+        events.publishEvent(ReportDataChangedEvent.todo(Tabla.CLIENTE));
+        events.publishEvent(ReportDataChangedEvent.todo(Tabla.SESION));
+        events.publishEvent(ReportDataChangedEvent.todo(Tabla.PROGRESO));
 
         // Si quieres borrar también el Usuario:
         // uRepo.deleteById(cedula);
@@ -187,21 +315,29 @@ public class ClienteService {
     public Progreso editarProgreso(Integer id, Progreso p) {
         Progreso db = pRepo.findById(id)
             .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Progreso no encontrado"));
+        HuellaProgreso antes = rollups.huella(db);
+        LocalDate fechaAnterior = db.getFecha();
 
         if (p.getFecha() != null) db.setFecha(p.getFecha());
         if (p.getPeso() != null) db.setPeso(p.getPeso());
         if (p.getImc() != null) db.setImc(p.getImc());
         db.setObservaciones(p.getObservaciones());
 
-        return pRepo.save(db);
+        Progreso guardado = pRepo.save(db);
+        rollups.moverProgreso(antes, rollups.huella(guardado));
+        resumenes.refrescar(guardado.getCliente().getUsuarioCedula());
+        events.publishEvent(ReportDataChangedEvent.de(Tabla.PROGRESO, fechaAnterior, guardado.getFecha()));
+        return guardado;
     }
 
     @Transactional
     public void eliminarProgreso(Integer id) {
-        if (!pRepo.existsById(id)) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Progreso no encontrado");
-        }
-        pRepo.deleteById(id);
+        Progreso db = pRepo.findById(id)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Progreso no encontrado"));
+        rollups.retirarProgreso(db);
+        pRepo.delete(db);
+        resumenes.refrescar(db.getCliente().getUsuarioCedula());
+        events.publishEvent(ReportDataChangedEvent.de(Tabla.PROGRESO, db.getFecha()));
     }
 
     private Cliente verificarCliente(String cedula) {
@@ -216,4 +352,67 @@ public class ClienteService {
     private static String safe(String s) {
         return s == null ? "" : s.trim();
     }
+
+    private static Double numero(Object value) {
+        return value == null ? null : ((Number) value).doubleValue();
+    }
+
+    /** Acumulador de un tramo de la serie; peso e IMC pueden faltar en un registro. */
+    private static final class TramoSerie {
+
+        private final long indice;
+        private final LocalDate primera;
+        private LocalDate ultima;
+        private int registros;
+        private final Estadistica peso = new Estadistica();
+        private final Estadistica imc = new Estadistica();
+
+        TramoSerie(long indice, LocalDate primera) {
+            this.indice = indice;
+            this.primera = primera;
+        }
+
+        void agregar(LocalDate fecha, Double peso, Double imc) {
+            ultima = fecha;
+            registros++;
+            this.peso.agregar(peso);
+            this.imc.agregar(imc);
+        }
+
+        SerieProgresoDTO.Punto aPunto() {
+            return new SerieProgresoDTO.Punto(primera, ultima, registros,
+                peso.min(), peso.max(), peso.promedio(),
+                imc.min(), imc.max(), imc.promedio());
+        }
+    }
+
+    private static final class Estadistica {
+
+        private int n;
+        private double suma;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+
+        void agregar(Double valor) {
+            if (valor == null) {
+                return;
+            }
+            n++;
+            suma += valor;
+            min = Math.min(min, valor);
+            max = Math.max(max, valor);
+        }
+
+        Double min() {
+            return n == 0 ? null : min;
+        }
+
+        Double max() {
+            return n == 0 ? null : max;
+        }
+
+        Double promedio() {
+            return n == 0 ? null : suma / n;
+        }
+    }
 }
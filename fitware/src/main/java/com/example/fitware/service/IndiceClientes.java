@@ -0,0 +1,335 @@
+package com.example.fitware.service;
+
+import com.example.fitware.domain.Usuario;
+import com.example.fitware.web.dto.BusquedaClientesDTO;
+import jakarta.persistence.EntityManager;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice en memoria para buscar clientes por nombre, apellidos o cédula sin ir a la BD.
+ * Cada palabra se indexa por sus trigramas y por sus prefijos de 1 y 2 caracteres; una consulta
+ * intersecta las listas de cada término (empezando por la más corta) y verifica los candidatos.
+ * Se carga completo al arrancar y después se mantiene con los cambios ya confirmados.
+ */
+@Component
+public class IndiceClientes {
+
+    private static final Pattern DIACRITICOS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^a-z0-9]+");
+    /** Marca las claves de prefijo corto para que no choquen con los trigramas. */
+    private static final char PREFIJO = '^';
+
+    private static final Comparator<Coincidencia> ORDEN = Comparator
+        .comparingInt(Coincidencia::puntaje).reversed()
+        .thenComparing(c -> c.documento().orden);
+
+    private final EntityManager entityManager;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> porCedula = new HashMap<>();
+    private final List<Documento> documentos = new ArrayList<>();
+    private final Deque<Integer> libres = new ArrayDeque<>();
+    private final Map<String, Set<Integer>> postings = new HashMap<>();
+    private volatile boolean cargado;
+
+    public IndiceClientes(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void precargar() {
+        asegurarCargado();
+    }
+
+    /**
+     * Coincidencias de todos los términos de la consulta, ordenadas por relevancia
+     * (cédula exacta, palabra exacta, prefijo de palabra, subcadena) y luego por apellidos y nombre.
+     */
+    public BusquedaClientesDTO buscar(String consulta, int pagina, int tamano) {
+        List<String> terminos = terminos(consulta);
+        if (terminos.isEmpty()) {
+            return new BusquedaClientesDTO(consulta, 0, pagina, tamano, List.of());
+        }
+        asegurarCargado();
+        lock.readLock().lock();
+        try {
+            Set<Integer> candidatos = null;
+            for (String termino : terminos) {
+                candidatos = intersectar(candidatos, candidatos(termino));
+                if (candidatos.isEmpty()) {
+                    return new BusquedaClientesDTO(consulta, 0, pagina, tamano, List.of());
+                }
+            }
+            // Solo se ordenan las mejores hasta la página pedida: un heap acotado, no todo el resultado
+            int limite = (pagina + 1) * tamano;
+            PriorityQueue<Coincidencia> mejores = new PriorityQueue<>(ORDEN.reversed());
+            int total = 0;
+            for (Integer slot : candidatos) {
+                Documento doc = documentos.get(slot);
+                int puntaje = puntaje(doc, terminos);
+                if (puntaje == 0) {
+                    continue;
+                }
+                total++;
+                mejores.add(new Coincidencia(doc, puntaje));
+                if (mejores.size() > limite) {
+                    mejores.poll();
+                }
+            }
+            List<Coincidencia> ordenadas = new ArrayList<>(mejores);
+            ordenadas.sort(ORDEN);
+            int desde = Math.min(pagina * tamano, ordenadas.size());
+            List<BusquedaClientesDTO.Item> items = ordenadas.subList(desde, ordenadas.size()).stream()
+                .map(c -> new BusquedaClientesDTO.Item(
+                    c.documento().cedula, c.documento().nombre, c.documento().apellidos, c.puntaje()))
+                .toList();
+            return new BusquedaClientesDTO(consulta, total, pagina, tamano, items);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Agrega o reemplaza el cliente cuando la transacción actual confirme. */
+    public void registrar(Usuario usuario) {
+        String cedula = usuario.getCedula();
+        String nombre = usuario.getNombre();
+        String apellidos = usuario.getApellidos();
+        alConfirmar(() -> conEscritura(() -> {
+            quitar(cedula);
+            agregar(cedula, nombre, apellidos);
+        }));
+    }
+
+    public void retirar(String cedula) {
+        alConfirmar(() -> conEscritura(() -> quitar(cedula)));
+    }
+
+    /** Las escrituras esperan a la carga inicial; si el índice no está cargado, la carga ya las verá. */
+    private void conEscritura(Runnable accion) {
+        lock.writeLock().lock();
+        try {
+            if (cargado) {
+                accion.run();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void asegurarCargado() {
+        if (cargado) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (cargado) {
+                return;
+            }
+            String sql = """
+                SELECT u.cedula, u.nombre, u.apellidos
+                FROM cliente c
+                JOIN usuario u ON u.cedula = c.usuario_cedula
+            """;
+            @SuppressWarnings("unchecked")
+            List<Object[]> rows = entityManager.createNativeQuery(sql).getResultList();
+            for (Object[] row : rows) {
+                agregar((String) row[0], (String) row[1], (String) row[2]);
+            }
+            cargado = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void agregar(String cedula, String nombre, String apellidos) {
+        Integer libre = libres.pollFirst();
+        Documento doc = new Documento(cedula, nombre, apellidos);
+        int slot;
+        if (libre == null) {
+            slot = documentos.size();
+            documentos.add(doc);
+        } else {
+            slot = libre;
+            documentos.set(slot, doc);
+        }
+        porCedula.put(cedula, slot);
+        for (String clave : doc.claves()) {
+            postings.computeIfAbsent(clave, k -> new HashSet<>()).add(slot);
+        }
+    }
+
+    private void quitar(String cedula) {
+        Integer slot = porCedula.remove(cedula);
+        if (slot == null) {
+            return;
+        }
+        Documento doc = documentos.set(slot, null);
+        for (String clave : doc.claves()) {
+            Set<Integer> lista = postings.get(clave);
+            if (lista != null) {
+                lista.remove(slot);
+                if (lista.isEmpty()) {
+                    postings.remove(clave);
+                }
+            }
+        }
+        libres.addLast(slot);
+    }
+
+    /** Candidatos de un término; pueden incluir falsos positivos que descarta {@link #puntaje}. */
+    private Set<Integer> candidatos(String termino) {
+        if (termino.length() < 3) {
+            return postings.getOrDefault(PREFIJO + termino, Set.of());
+        }
+        Set<Integer> resultado = null;
+        for (String trigrama : trigramas(termino)) {
+            resultado = intersectar(resultado, postings.getOrDefault(trigrama, Set.of()));
+            if (resultado.isEmpty()) {
+                break;
+            }
+        }
+        return resultado;
+    }
+
+    private static Set<Integer> intersectar(Set<Integer> acumulado, Set<Integer> lista) {
+        if (acumulado == null) {
+            return lista;
+        }
+        Set<Integer> menor = acumulado.size() <= lista.size() ? acumulado : lista;
+        Set<Integer> mayor = menor == acumulado ? lista : acumulado;
+        Set<Integer> resultado = new HashSet<>();
+        for (Integer slot : menor) {
+            if (mayor.contains(slot)) {
+                resultado.add(slot);
+            }
+        }
+        return resultado;
+    }
+
+    /** 0 si algún término no aparece realmente en el documento. */
+    private static int puntaje(Documento doc, List<String> terminos) {
+        int total = 0;
+        for (String termino : terminos) {
+            int mejor = 0;
+            if (doc.cedulaNormalizada.equals(termino)) {
+                mejor = 100;
+            }
+            for (String palabra : doc.palabras) {
+                if (palabra.equals(termino)) {
+                    mejor = Math.max(mejor, 50);
+                } else if (palabra.startsWith(termino)) {
+                    mejor = Math.max(mejor, 30);
+                } else if (palabra.contains(termino)) {
+                    mejor = Math.max(mejor, 10);
+                }
+            }
+            if (mejor == 0) {
+                return 0;
+            }
+            total += mejor;
+        }
+        return total;
+    }
+
+    /** Minúsculas, sin tildes ni diéresis y separado en palabras alfanuméricas. */
+    static List<String> palabras(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return List.of();
+        }
+        String plano = DIACRITICOS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        List<String> resultado = new ArrayList<>();
+        for (String palabra : SEPARADORES.split(plano.toLowerCase(Locale.ROOT))) {
+            if (!palabra.isEmpty()) {
+                resultado.add(palabra);
+            }
+        }
+        return resultado;
+    }
+
+    /** Una cédula escrita con guiones o espacios ("1-0203-0456") se busca como un solo número. */
+    private static List<String> terminos(String consulta) {
+        List<String> palabras = palabras(consulta);
+        if (palabras.size() > 1 && palabras.stream().allMatch(p -> p.chars().allMatch(Character::isDigit))) {
+            return List.of(String.join("", palabras));
+        }
+        return List.copyOf(new LinkedHashSet<>(palabras));
+    }
+
+    private static List<String> trigramas(String palabra) {
+        List<String> resultado = new ArrayList<>(Math.max(0, palabra.length() - 2));
+        for (int i = 0; i + 3 <= palabra.length(); i++) {
+            resultado.add(palabra.substring(i, i + 3));
+        }
+        return resultado;
+    }
+
+    private static void alConfirmar(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accion.run();
+            }
+        });
+    }
+
+    private static final class Documento {
+
+        private final String cedula;
+        private final String nombre;
+        private final String apellidos;
+        private final String cedulaNormalizada;
+        private final List<String> palabras;
+        private final String orden;
+
+        Documento(String cedula, String nombre, String apellidos) {
+            this.cedula = cedula;
+            this.nombre = nombre;
+            this.apellidos = apellidos;
+            this.cedulaNormalizada = String.join("", palabras(cedula));
+            List<String> todas = new ArrayList<>(palabras(nombre));
+            todas.addAll(palabras(apellidos));
+            if (!cedulaNormalizada.isEmpty()) {
+                todas.add(cedulaNormalizada);
+            }
+            this.palabras = List.copyOf(new LinkedHashSet<>(todas));
+            this.orden = String.join(" ", palabras(apellidos)) + "|" + String.join(" ", palabras(nombre)) + "|" + cedula;
+        }
+
+        Set<String> claves() {
+            Set<String> claves = new HashSet<>();
+            for (String palabra : palabras) {
+                claves.add(PREFIJO + palabra.substring(0, 1));
+                if (palabra.length() >= 2) {
+                    claves.add(PREFIJO + palabra.substring(0, 2));
+                }
+                claves.addAll(trigramas(palabra));
+            }
+            return claves;
+        }
+    }
+
+    private record Coincidencia(Documento documento, int puntaje) {}
+}
@@ -0,0 +1,75 @@
+package com.example.fitware.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Presupuesto único de conexiones para el trabajo pesado: secciones de reportes, exportaciones
+ * CSV, listados en streaming, generación de agendas y purgas. Todos comparten un semáforo de
+ * {@code maximum-pool-size - reserva-crud} permisos, así que juntos nunca dejan al CRUD sin las
+ * conexiones reservadas. Cada permiso cubre una conexión; quien lo tiene no debe pedir otro.
+ */
+@Component
+public class PresupuestoConexiones {
+
+    private final Semaphore permisos;
+    private final int total;
+    private final Duration espera;
+
+    public PresupuestoConexiones(@Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                                 @Value("${fitware.db.reserva-crud:2}") int reservaCrud,
+                                 @Value("${fitware.db.espera-permiso:20s}") Duration espera) {
+        this.total = Math.max(1, poolSize - reservaCrud);
+        this.permisos = new Semaphore(total, true);
+        this.espera = espera;
+    }
+
+    /** Permisos del presupuesto; los ejecutores dimensionan sus hilos con este valor. */
+    public int total() {
+        return total;
+    }
+
+    /**
+     * Para trabajo atado a una petición: espera como mucho {@code espera-permiso} y, si no
+     * se libera ninguno, responde 429 en lugar de encolar la petición sin límite.
+     */
+    public Permiso ocupar() {
+        try {
+            if (permisos.tryAcquire(espera.toMillis(), TimeUnit.MILLISECONDS)) {
+                return new Permiso();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+            "Hay demasiadas operaciones pesadas en curso; intente más tarde");
+    }
+
+    /** Para trabajo que ya pasa por un ejecutor acotado (purgas, agendas) y puede esperar su turno. */
+    public Permiso ocuparEsperando() {
+        permisos.acquireUninterruptibly();
+        return new Permiso();
+    }
+
+    public final class Permiso implements AutoCloseable {
+
+        private final AtomicBoolean liberado = new AtomicBoolean();
+
+        private Permiso() {
+        }
+
+        @Override
+        public void close() {
+            if (liberado.compareAndSet(false, true)) {
+                permisos.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package com.example.fitware.service;
+
+import com.example.fitware.domain.Progreso;
+import com.example.fitware.repository.ClienteRepository;
+import com.example.fitware.repository.ProgresoRepository;
+import com.example.fitware.service.ReportDataChangedEvent.Tabla;
+import com.example.fitware.web.dto.IngestaProgresoDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Carga masiva de registros de progreso (básculas) desde CSV o JSON Lines. El archivo se lee
+ * línea a línea y se guarda en lotes de {@code fitware.progreso.ingesta.lote} filas, cada uno en
+ * su propia transacción: las cédulas del lote se validan con una sola consulta, los INSERT van en
+ * lotes JDBC y agregados, resumen y eventos se actualizan una vez por lote. La memoria no depende
+ * del tamaño del archivo; si la carga se corta, los lotes ya confirmados quedan guardados.
+ */
+@Service
+public class ProgresoIngestaService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProgresoIngestaService.class);
+
+    public enum Formato { CSV, JSONL }
+
+    /** Errores que se detallan en la respuesta; el resto solo se cuenta. */
+    private static final int MAX_ERRORES = 1_000;
+
+    private final ClienteRepository cRepo;
+    private final ProgresoRepository pRepo;
+    private final ReportRollupService rollups;
+    private final ProgresoResumenService resumenes;
+    private final ApplicationEventPublisher events;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate tx;
+    private final int lote;
+
+    public ProgresoIngestaService(ClienteRepository cRepo,
+                                  ProgresoRepository pRepo,
+                                  ReportRollupService rollups,
+                                  ProgresoResumenService resumenes,
+                                  ApplicationEventPublisher events,
+                                  EntityManager entityManager,
+                                  ObjectMapper objectMapper,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${fitware.progreso.ingesta.lote:1000}") int lote) {
+        this.cRepo = cRepo;
+        this.pRepo = pRepo;
+        this.rollups = rollups;
+        this.resumenes = resumenes;
+        this.events = events;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.lote = lote;
+    }
+
+    /** JSON Lines si el tipo de contenido lo indica (ndjson / jsonl); CSV en cualquier otro caso. */
+    public static Formato formato(String contentType) {
+        String tipo = contentType == null ? "" : contentType.toLowerCase();
+        return tipo.contains("ndjson") || tipo.contains("jsonl") ? Formato.JSONL : Formato.CSV;
+    }
+
+    /**
+     * Columnas CSV (en este orden, encabezado opcional): cedula, fecha (AAAA-MM-DD), peso, imc,
+     * observaciones. En JSON Lines, un objeto por línea con esas mismas propiedades.
+     */
+    public IngestaProgresoDTO ingerir(InputStream entrada, Formato formato) {
+        Resultado resultado = new Resultado();
+        Set<String> existentes = new HashSet<>();
+        Set<String> inexistentes = new HashSet<>();
+        List<Fila> pendientes = new ArrayList<>(lote);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8))) {
+            String linea;
+            long numero = 0;
+            while ((linea = reader.readLine()) != null) {
+                numero++;
+                if (numero == 1 && linea.startsWith("\uFEFF")) {
+                    linea = linea.substring(1);
+                }
+                if (linea.isBlank() || (numero == 1 && formato == Formato.CSV && esEncabezado(linea))) {
+                    continue;
+                }
+                resultado.lineas++;
+                try {
+                    pendientes.add(formato == Formato.CSV ? deCsv(numero, linea) : deJson(numero, linea));
+                } catch (LineaInvalida ex) {
+                    resultado.rechazar(numero, ex.getMessage());
+                }
+                if (pendientes.size() >= lote) {
+                    guardar(pendientes, resultado, existentes, inexistentes);
+                    pendientes.clear();
+                }
+            }
+            guardar(pendientes, resultado, existentes, inexistentes);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("No se pudo leer el archivo de progreso", ex);
+        }
+        return resultado.aDto();
+    }
+
+    private void guardar(List<Fila> filas, Resultado resultado, Set<String> existentes, Set<String> inexistentes) {
+        if (filas.isEmpty()) {
+            return;
+        }
+        try {
+            Integer insertadas = tx.execute(status -> {
+                resolverClientes(filas, existentes, inexistentes);
+                List<Progreso> nuevos = new ArrayList<>(filas.size());
+                Set<String> cedulas = new LinkedHashSet<>();
+                Set<LocalDate> fechas = new HashSet<>();
+                for (Fila fila : filas) {
+                    if (inexistentes.contains(fila.cedula())) {
+                        continue;
+                    }
+                    Progreso p = new Progreso();
+                    p.setCliente(cRepo.getReferenceById(fila.cedula()));
+                    p.setFecha(fila.fecha());
+                    p.setPeso(fila.peso());
+                    p.setImc(fila.imc());
+                    p.setObservaciones(fila.observaciones());
+                    nuevos.add(p);
+                    cedulas.add(fila.cedula());
+                    fechas.add(fila.fecha());
+                }
+                if (nuevos.isEmpty()) {
+                    return 0;
+                }
+                pRepo.saveAll(nuevos);
+                rollups.registrarProgresos(nuevos);
+                resumenes.refrescar(cedulas);
+                events.publishEvent(ReportDataChangedEvent.de(Tabla.PROGRESO, fechas.toArray(LocalDate[]::new)));
+                return nuevos.size();
+            });
+            resultado.insertadas += insertadas == null ? 0 : insertadas;
+        } catch (RuntimeException ex) {
+            // Por ejemplo, un cliente borrado mientras tanto: el lote completo se revierte y sus
+            // cédulas se vuelven a consultar si aparecen en lotes posteriores
+            log.warn("No se guardó un lote de {} registros de progreso", filas.size(), ex);
+            for (Fila fila : filas) {
+                existentes.remove(fila.cedula());
+                if (!inexistentes.contains(fila.cedula())) {
+                    resultado.rechazar(fila.linea(), "Lote no guardado por un error al escribir en la base de datos");
+                }
+            }
+        }
+        for (Fila fila : filas) {
+            if (inexistentes.contains(fila.cedula())) {
+                resultado.rechazar(fila.linea(), "Cliente no encontrado: " + fila.cedula());
+            }
+        }
+    }
+
+    /** Una consulta por lote, solo para las cédulas que aún no se vieron en este archivo. */
+    private void resolverClientes(List<Fila> filas, Set<String> existentes, Set<String> inexistentes) {
+        Set<String> nuevas = new HashSet<>();
+        for (Fila fila : filas) {
+            if (!existentes.contains(fila.cedula()) && !inexistentes.contains(fila.cedula())) {
+                nuevas.add(fila.cedula());
+            }
+        }
+        if (nuevas.isEmpty()) {
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<String> encontradas = entityManager.createNativeQuery(
+                "SELECT c.usuario_cedula FROM cliente c WHERE c.usuario_cedula IN (:cedulas)")
+            .setParameter("cedulas", nuevas)
+            .getResultList();
+        existentes.addAll(encontradas);
+        nuevas.removeAll(encontradas);
+        inexistentes.addAll(nuevas);
+    }
+
+    private static boolean esEncabezado(String linea) {
+        return linea.trim().toLowerCase().startsWith("cedula");
+    }
+
+    private static Fila deCsv(long numero, String linea) {
+        List<String> campos = camposCsv(linea);
+        if (campos.size() < 2 || campos.size() > 5) {
+            throw new LineaInvalida("Se esperaban de 2 a 5 columnas (cedula, fecha, peso, imc, observaciones)");
+        }
+        return fila(numero,
+            campos.get(0),
+            campos.get(1),
+            campos.size() > 2 ? decimal(campos.get(2), "peso") : null,
+            campos.size() > 3 ? decimal(campos.get(3), "imc") : null,
+            campos.size() > 4 ? campos.get(4) : null);
+    }
+
+    private Fila deJson(long numero, String linea) {
+        LineaJson json;
+        try {
+            json = objectMapper.readValue(linea, LineaJson.class);
+        } catch (JsonProcessingException ex) {
+            throw new LineaInvalida("JSON inválido: " + ex.getOriginalMessage());
+        }
+        if (json == null) {
+            throw new LineaInvalida("Se esperaba un objeto JSON");
+        }
+        return fila(numero, json.cedula(), json.fecha(), json.peso(), json.imc(), json.observaciones());
+    }
+
+    private static Fila fila(long numero, String cedula, String fecha, Double peso, Double imc, String observaciones) {
+        String c = cedula == null ? "" : cedula.trim();
+        if (c.isEmpty()) {
+            throw new LineaInvalida("La cédula es obligatoria");
+        }
+        if (fecha == null || fecha.isBlank()) {
+            throw new LineaInvalida("La fecha es obligatoria");
+        }
+        LocalDate f;
+        try {
+            f = LocalDate.parse(fecha.trim());
+        } catch (DateTimeParseException ex) {
+            throw new LineaInvalida("Fecha inválida (use AAAA-MM-DD): " + fecha);
+        }
+        positivo(peso, "peso");
+        positivo(imc, "imc");
+        String obs = observaciones == null || observaciones.isBlank() ? null : observaciones.trim();
+        return new Fila(numero, c, f, peso, imc, obs);
+    }
+
+    private static Double decimal(String valor, String campo) {
+        if (valor == null || valor.isBlank()) {
+            return null;
+        }
+        try {
+            return Double.valueOf(valor.trim());
+        } catch (NumberFormatException ex) {
+            throw new LineaInvalida("Valor de " + campo + " inválido: " + valor);
+        }
+    }
+
+    private static void positivo(Double valor, String campo) {
+        if (valor != null && (!Double.isFinite(valor) || valor <= 0)) {
+            throw new LineaInvalida("El " + campo + " debe ser mayor a cero");
+        }
+    }
+
+    /** Separa una línea CSV por comas, respetando comillas dobles ("" dentro de comillas es una comilla). */
+    static List<String> camposCsv(String linea) {
+        List<String> campos = new ArrayList<>(5);
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char ch = linea.charAt(i);
+            if (entreComillas) {
+                if (ch != '"') {
+                    actual.append(ch);
+                } else if (i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                    actual.append('"');
+                    i++;
+                } else {
+                    entreComillas = false;
+                }
+            } else if (ch == '"') {
+                entreComillas = true;
+            } else if (ch == ',') {
+                campos.add(actual.toString());
+                actual.setLength(0);
+            } else {
+                actual.append(ch);
+            }
+        }
+        if (entreComillas) {
+            throw new LineaInvalida("Comillas sin cerrar");
+        }
+        campos.add(actual.toString());
+        return campos;
+    }
+
+    private record Fila(long linea, String cedula, LocalDate fecha, Double peso, Double imc, String observaciones) {}
+
+    private record LineaJson(String cedula, String fecha, Double peso, Double imc, String observaciones) {}
+
+    private static final class LineaInvalida extends RuntimeException {
+
+        LineaInvalida(String mensaje) {
+            super(mensaje);
+        }
+    }
+
+    private static final class Resultado {
+
+        private long lineas;
+        private long insertadas;
+        private long rechazadas;
+        private final List<IngestaProgresoDTO.Error> errores = new ArrayList<>();
+
+        void rechazar(long linea, String mensaje) {
+            rechazadas++;
+            if (errores.size() < MAX_ERRORES) {
+                errores.add(new IngestaProgresoDTO.Error(linea, mensaje));
+            }
+        }
+
+        IngestaProgresoDTO aDto() {
+            errores.sort((a, b) -> Long.compare(a.linea(), b.linea()));
+            return new IngestaProgresoDTO(lineas, insertadas, rechazadas, List.copyOf(errores), rechazadas > errores.size());
+        }
+    }
+}
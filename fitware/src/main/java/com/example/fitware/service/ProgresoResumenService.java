@@ -0,0 +1,95 @@
+package com.example.fitware.service;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+
+/**
+ * Mantiene cliente_progreso_resumen (última fecha, total de registros y último peso e IMC por
+ * cliente). Se recalcula desde progreso usando el índice (cliente_cedula, fecha), así que editar
+ * o borrar el último registro deja el resumen correcto sin lógica especial. {@code Cliente} lo
+ * expone como tabla secundaria de solo lectura.
+ */
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+public class ProgresoResumenService {
+
+    /** Peso e IMC del registro más reciente que tenga cada valor; %1$s es la cédula del cliente. */
+    private static final String ULTIMOS_VALORES = """
+               (SELECT x.peso FROM progreso x
+                WHERE x.cliente_cedula = %1$s AND x.peso IS NOT NULL
+                ORDER BY x.fecha DESC, x.id DESC LIMIT 1),
+               (SELECT x.imc FROM progreso x
+                WHERE x.cliente_cedula = %1$s AND x.imc IS NOT NULL
+                ORDER BY x.fecha DESC, x.id DESC LIMIT 1)
+        """;
+
+    private static final String AL_EXISTIR = """
+            ON CONFLICT (cliente_cedula) DO UPDATE
+            SET ultima_fecha = EXCLUDED.ultima_fecha,
+                registros = EXCLUDED.registros,
+                ultimo_peso = EXCLUDED.ultimo_peso,
+                ultimo_imc = EXCLUDED.ultimo_imc
+        """;
+
+    private final EntityManager entityManager;
+
+    public ProgresoResumenService(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    public void refrescar(String cedula) {
+        if (cedula == null || cedula.isBlank()) {
+            return;
+        }
+        entityManager.flush();
+        String sql = """
+            INSERT INTO cliente_progreso_resumen AS r
+                   (cliente_cedula, ultima_fecha, registros, ultimo_peso, ultimo_imc)
+            SELECT :cedula, MAX(p.fecha), COUNT(*),
+        """ + ULTIMOS_VALORES.formatted(":cedula") + """
+            FROM progreso p
+            WHERE p.cliente_cedula = :cedula
+        """ + AL_EXISTIR;
+        entityManager.createNativeQuery(sql)
+            .setParameter("cedula", cedula)
+            .executeUpdate();
+    }
+
+    /** Como {@link #refrescar(String)} para varios clientes con registros, en un solo INSERT ... SELECT. */
+    public void refrescar(Collection<String> cedulas) {
+        if (cedulas == null || cedulas.isEmpty()) {
+            return;
+        }
+        entityManager.flush();
+        String sql = """
+            INSERT INTO cliente_progreso_resumen AS r
+                   (cliente_cedula, ultima_fecha, registros, ultimo_peso, ultimo_imc)
+            SELECT p.cliente_cedula, MAX(p.fecha), COUNT(*),
+        """ + ULTIMOS_VALORES.formatted("p.cliente_cedula") + """
+            FROM progreso p
+            WHERE p.cliente_cedula IN (:cedulas)
+            GROUP BY p.cliente_cedula
+        """ + AL_EXISTIR;
+        entityManager.createNativeQuery(sql)
+            .setParameter("cedulas", cedulas)
+            .executeUpdate();
+    }
+
+    /** Fila vacía para clientes recién creados (aún sin progreso); no toca las que ya existen. */
+    public void inicializar(Collection<String> cedulas) {
+        if (cedulas == null || cedulas.isEmpty()) {
+            return;
+        }
+        entityManager.createNativeQuery("""
+            INSERT INTO cliente_progreso_resumen (cliente_cedula)
+            SELECT c.usuario_cedula FROM cliente c WHERE c.usuario_cedula IN (:cedulas)
+            ON CONFLICT (cliente_cedula) DO NOTHING
+        """)
+            .setParameter("cedulas", cedulas)
+            .executeUpdate();
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.fitware.service;
+
+import com.example.fitware.service.ReportDataChangedEvent.Tabla;
+import com.example.fitware.web.dto.ReportSummaryDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Caché LRU acotada de resúmenes de reportes, con expiración por tiempo.
+ * Las entradas se descartan cuando se confirma una escritura que toca sus tablas dentro
+ * del periodo cacheado (ver {@link ReportDataChangedEvent}).
+ */
+@Component
+public class ReportCache {
+
+    private final int maxEntradas;
+    private final Duration ttl;
+    private final String prefijoEtag = Long.toHexString(System.currentTimeMillis());
+    private final Map<Clave, Entrada> entradas;
+    private long secuencia;
+    private long generacion;
+
+    public ReportCache(@Value("${fitware.reportes.cache.max-entradas:64}") int maxEntradas,
+                       @Value("${fitware.reportes.cache.ttl:10m}") Duration ttl) {
+        this.maxEntradas = maxEntradas;
+        this.ttl = ttl;
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Clave, Entrada> eldest) {
+                return size() > ReportCache.this.maxEntradas;
+            }
+        };
+    }
+
+    public synchronized Entrada obtener(Clave clave) {
+        Entrada entrada = entradas.get(clave);
+        if (entrada != null && entrada.expiraEn().isBefore(Instant.now())) {
+            entradas.remove(clave);
+            return null;
+        }
+        return entrada;
+    }
+
+    /** Valor a capturar antes de consultar la BD y a entregar luego en {@link #guardar}. */
+    public synchronized long generacion() {
+        return generacion;
+    }
+
+    /**
+     * Guarda el resumen salvo que alguna invalidación haya ocurrido mientras se calculaba;
+     * en ese caso se devuelve igualmente pero no se cachea.
+     */
+    public synchronized Entrada guardar(Clave clave,
+                                        ReportSummaryDTO resumen,
+                                        Set<Dependencia> dependencias,
+                                        long generacionInicial) {
+        String etag = "\"" + prefijoEtag + "-" + Long.toHexString(++secuencia) + "\"";
+        Entrada entrada = new Entrada(clave, resumen, etag, dependencias, Instant.now().plus(ttl));
+        if (generacionInicial == generacion && maxEntradas > 0) {
+            entradas.put(clave, entrada);
+        }
+        return entrada;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void alCambiarDatos(ReportDataChangedEvent evento) {
+        generacion++;
+        Iterator<Entrada> it = entradas.values().iterator();
+        while (it.hasNext()) {
+            Entrada entrada = it.next();
+            if (entrada.afectadaPor(evento)) {
+                it.remove();
+            }
+        }
+    }
+
+    public synchronized void limpiar() {
+        generacion++;
+        entradas.clear();
+    }
+
+    /** Indica si un cambio toca alguna tabla de la que depende el resumen de {@code clave}. */
+    static boolean afecta(ReportDataChangedEvent evento, Clave clave, Set<Dependencia> dependencias) {
+        for (Dependencia dep : dependencias) {
+            if (dep.tabla() != evento.tabla()) {
+                continue;
+            }
+            if (!dep.porFecha() || evento.afecta(clave.desde(), clave.hasta())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** @param crudo forma tipada (format=raw) en lugar del texto localizado */
+    public record Clave(LocalDate desde, LocalDate hasta, List<String> secciones, boolean crudo) {}
+
+    /** Tabla de la que depende una sección y si la dependencia está acotada por el periodo. */
+    public record Dependencia(Tabla tabla, boolean porFecha) {}
+
+    public record Entrada(Clave clave,
+                          ReportSummaryDTO resumen,
+                          String etag,
+                          Set<Dependencia> dependencias,
+                          Instant expiraEn) {
+
+        boolean afectadaPor(ReportDataChangedEvent evento) {
+            return afecta(evento, clave, dependencias);
+        }
+    }
+}
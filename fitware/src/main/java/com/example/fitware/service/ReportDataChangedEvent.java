@@ -0,0 +1,43 @@
+package com.example.fitware.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Se publica cuando una escritura modifica datos que alimentan los reportes.
+ * {@code fechas} son las fechas de negocio tocadas; vacío significa "cualquier fecha"
+ * (p. ej. cambios de nombre de un cliente, que aparecen en todas las secciones).
+ */
+public record ReportDataChangedEvent(Tabla tabla, Set<LocalDate> fechas) {
+
+    public enum Tabla { CLIENTE, SESION, PROGRESO, RUTINA }
+
+    public static ReportDataChangedEvent de(Tabla tabla, LocalDate... fechas) {
+        return new ReportDataChangedEvent(tabla, Arrays.stream(fechas)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toUnmodifiableSet()));
+    }
+
+    public static ReportDataChangedEvent de(Tabla tabla, LocalDateTime... fechas) {
+        return new ReportDataChangedEvent(tabla, Arrays.stream(fechas)
+            .filter(Objects::nonNull)
+            .map(LocalDateTime::toLocalDate)
+            .collect(Collectors.toUnmodifiableSet()));
+    }
+
+    public static ReportDataChangedEvent todo(Tabla tabla) {
+        return new ReportDataChangedEvent(tabla, Set.of());
+    }
+
+    /** Indica si el cambio cae en [desde, hasta] o no está acotado por fecha. */
+    public boolean afecta(LocalDate desde, LocalDate hasta) {
+        if (fechas.isEmpty()) {
+            return true;
+        }
+        return fechas.stream().anyMatch(f -> !f.isBefore(desde) && !f.isAfter(hasta));
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.fitware.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Exportación CSV sin límite de filas de las secciones de detalle del reporte.
+ * Las filas se leen con un cursor de servidor ({@code fetchSize}) y se escriben en la
+ * respuesta a medida que llegan, así que la memoria no depende del tamaño del resultado.
+ */
+@Service
+public class ReportExportService {
+
+    private static final String FETCH_SIZE_HINT = "org.hibernate.fetchSize";
+    private static final int FILAS_POR_FLUSH = 1_000;
+
+    private static final Map<String, Exportacion> EXPORTACIONES = Map.of(
+        "sesiones-periodo", new Exportacion(
+            List.of("sesion_id", "cliente_cedula", "cliente_nombre", "cliente_apellidos", "estado", "fecha_inicio", "fecha_fin", "gasto_calorico"),
+            """
+                SELECT s.id,
+                       c.usuario_cedula,
+                       u.nombre,
+                       u.apellidos,
+                       s.estado,
+                       s.fecha_inicio,
+                       s.fecha_fin,
+                       s.gasto_calorico
+                FROM sesion s
+                JOIN cliente c ON c.usuario_cedula = s.cliente_cedula
+                JOIN usuario u ON u.cedula = c.usuario_cedula
+                WHERE s.fecha_inicio >= :desde AND s.fecha_inicio < :hasta
+                ORDER BY s.fecha_inicio DESC, s.id DESC
+            """,
+            true
+        ),
+        "progresos-periodo", new Exportacion(
+            List.of("registro_id", "cliente_cedula", "cliente_nombre", "cliente_apellidos", "fecha", "peso", "imc"),
+            """
+                SELECT p.id,
+                       c.usuario_cedula,
+                       u.nombre,
+                       u.apellidos,
+                       p.fecha,
+                       p.peso,
+                       p.imc
+                FROM progreso p
+                JOIN cliente c ON c.usuario_cedula = p.cliente_cedula
+                JOIN usuario u ON u.cedula = c.usuario_cedula
+                WHERE p.fecha >= :desde AND p.fecha < :hasta
+                ORDER BY p.fecha DESC, p.id DESC
+            """,
+            false
+        )
+    );
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTx;
+    private final int fetchSize;
+    private final PresupuestoConexiones presupuesto;
+
+    public ReportExportService(EntityManager entityManager,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${fitware.reportes.export.fetch-size:500}") int fetchSize,
+                               PresupuestoConexiones presupuesto) {
+        this.entityManager = entityManager;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.fetchSize = fetchSize;
+        this.presupuesto = presupuesto;
+    }
+
+    /**
+     * Valida la sección y el periodo y devuelve la escritura diferida del CSV, pensada para
+     * ejecutarse dentro de un {@code StreamingResponseBody}.
+     */
+    public CsvExport preparar(String section, LocalDate desde, LocalDate hasta) {
+        Exportacion exportacion = section == null ? null : EXPORTACIONES.get(section);
+        if (exportacion == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+                "La sección no admite exportación CSV. Use: " + String.join(", ", EXPORTACIONES.keySet()));
+        }
+        ReportService.Periodo periodo = ReportService.Periodo.de(desde, hasta);
+        return new CsvExport(periodo.desde(), periodo.hasta(), out -> escribir(exportacion, periodo, out));
+    }
+
+    private void escribir(Exportacion exportacion, ReportService.Periodo periodo, OutputStream out) {
+        // El permiso se pide antes de escribir nada: si no hay, el cliente recibe un 429 limpio.
+        // La transacción mantiene abierto el cursor del servidor mientras se recorre el resultado
+        try (PresupuestoConexiones.Permiso permiso = presupuesto.ocupar()) {
+            readOnlyTx.executeWithoutResult(status -> {
+                Query query = entityManager.createNativeQuery(exportacion.sql());
+                LocalDate hastaExclusiva = periodo.hasta().plusDays(1);
+                query.setParameter("desde", exportacion.conHora() ? periodo.desde().atStartOfDay() : periodo.desde());
+                query.setParameter("hasta", exportacion.conHora() ? hastaExclusiva.atStartOfDay() : hastaExclusiva);
+                query.setHint(FETCH_SIZE_HINT, fetchSize);
+
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                try (@SuppressWarnings("unchecked") Stream<Object[]> filas = query.getResultStream()) {
+                    escribirFila(writer, exportacion.columnas().toArray());
+                    int escritas = 0;
+                    Iterator<Object[]> it = filas.iterator();
+                    while (it.hasNext()) {
+                        escribirFila(writer, it.next());
+                        if (++escritas % FILAS_POR_FLUSH == 0) {
+                            writer.flush();
+                        }
+                    }
+                    writer.flush();
+                } catch (IOException ex) {
+                    throw new UncheckedIOException("No se pudo escribir la exportación CSV", ex);
+                }
+            });
+        }
+    }
+
+    private static void escribirFila(Writer writer, Object[] valores) throws IOException {
+        for (int i = 0; i < valores.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            escribirCampo(writer, valores[i]);
+        }
+        writer.write("\r\n");
+    }
+
+    /** Campo CSV (RFC 4180): fechas en ISO-8601 y números con punto decimal. */
+    private static void escribirCampo(Writer writer, Object valor) throws IOException {
+        if (valor == null) {
+            return;
+        }
+        String texto = valor instanceof java.sql.Timestamp ts
+            ? ts.toLocalDateTime().toString()
+            : valor instanceof java.sql.Date d ? d.toLocalDate().toString()
+            : valor instanceof Double n ? BigDecimal.valueOf(n).toPlainString()
+            : valor.toString();
+        boolean comillas = texto.indexOf(',') >= 0 || texto.indexOf('"') >= 0
+            || texto.indexOf('\n') >= 0 || texto.indexOf('\r') >= 0;
+        if (!comillas) {
+            writer.write(texto);
+            return;
+        }
+        writer.write('"');
+        writer.write(texto.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    /** Escritura del CSV para un periodo ya normalizado. */
+    public record CsvExport(LocalDate desde, LocalDate hasta, Escritura escritura) {}
+
+    @FunctionalInterface
+    public interface Escritura {
+        void escribir(OutputStream out);
+    }
+
+    private record Exportacion(List<String> columnas, String sql, boolean conHora) {}
+}
@@ -0,0 +1,242 @@
+package com.example.fitware.service;
+
+import com.example.fitware.web.dto.ReportJobDTO;
+import com.example.fitware.web.dto.ReportSummaryDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Trabajos de reportes en segundo plano para rangos grandes. Cada trabajo corre en el pool
+ * acotado {@code reportJobExecutor}; el resultado (JSON o PDF) queda en disco hasta que expira.
+ */
+@Service
+public class ReportJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportJobService.class);
+
+    public enum Estado { EN_COLA, EN_PROCESO, COMPLETADO, FALLIDO }
+
+    private final ReportService reportService;
+    private final ThreadPoolExecutor executor;
+    private final ObjectMapper objectMapper;
+    private final Path directorio;
+    private final Duration retencion;
+    private final Map<String, Trabajo> trabajos = new ConcurrentHashMap<>();
+    private final AtomicLong rechazados = new AtomicLong();
+    private final AtomicLong completados = new AtomicLong();
+    private final AtomicLong fallidos = new AtomicLong();
+
+    public ReportJobService(ReportService reportService,
+                            @Qualifier("reportJobExecutor") ThreadPoolExecutor executor,
+                            ObjectMapper objectMapper,
+                            @Value("${fitware.reportes.jobs.directorio:${java.io.tmpdir}/fitware-reportes}") Path directorio,
+                            @Value("${fitware.reportes.jobs.retencion:1h}") Duration retencion) {
+        this.reportService = reportService;
+        this.executor = executor;
+        this.objectMapper = objectMapper;
+        this.directorio = directorio;
+        this.retencion = retencion;
+    }
+
+    /** Los trabajos viven en memoria: los archivos de una ejecución anterior ya no tienen dueño. */
+    @PostConstruct
+    void inicializar() throws IOException {
+        Files.createDirectories(directorio);
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio, "*.{json,pdf}")) {
+            for (Path archivo : archivos) {
+                Files.deleteIfExists(archivo);
+            }
+        }
+    }
+
+    public ReportJobDTO crear(LocalDate desde, LocalDate hasta, List<String> sections, String formato) {
+        String formatoNormalizado = normalizarFormato(formato);
+        Trabajo trabajo = new Trabajo(
+            UUID.randomUUID().toString(), formatoNormalizado, desde, hasta,
+            sections == null ? List.of() : List.copyOf(sections)
+        );
+        trabajos.put(trabajo.id, trabajo);
+        try {
+            executor.execute(() -> ejecutar(trabajo));
+        } catch (RejectedExecutionException ex) {
+            trabajos.remove(trabajo.id);
+            rechazados.incrementAndGet();
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                "Hay demasiados reportes en cola; intente más tarde");
+        }
+        return trabajo.aDto();
+    }
+
+    public ReportJobDTO consultar(String id) {
+        return obtener(id).aDto();
+    }
+
+    /** Artefacto terminado; falla si el trabajo aún no concluye. */
+    public Resultado resultado(String id) {
+        Trabajo trabajo = obtener(id);
+        if (trabajo.estado == Estado.FALLIDO) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "El reporte falló: " + trabajo.error);
+        }
+        if (trabajo.estado != Estado.COMPLETADO || trabajo.archivo == null) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "El reporte todavía no está listo");
+        }
+        return new Resultado(trabajo.archivo, trabajo.formato, trabajo.nombreArchivo());
+    }
+
+    public Map<String, Object> metricas() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("hilos", executor.getMaximumPoolSize());
+        m.put("activos", executor.getActiveCount());
+        m.put("enCola", executor.getQueue().size());
+        m.put("capacidadLibreCola", executor.getQueue().remainingCapacity());
+        m.put("completados", completados.get());
+        m.put("fallidos", fallidos.get());
+        m.put("rechazados", rechazados.get());
+        m.put("trabajosRetenidos", trabajos.size());
+        return m;
+    }
+
+    @Scheduled(fixedDelayString = "${fitware.reportes.jobs.limpieza-ms:60000}")
+    public void purgarExpirados() {
+        Instant ahora = Instant.now();
+        trabajos.values().removeIf(trabajo -> {
+            if (trabajo.expiraEn == null || trabajo.expiraEn.isAfter(ahora)) {
+                return false;
+            }
+            borrar(trabajo.archivo);
+            return true;
+        });
+    }
+
+    private void ejecutar(Trabajo trabajo) {
+        trabajo.estado = Estado.EN_PROCESO;
+        Path archivo = null;
+        try {
+            ReportSummaryDTO resumen = reportService.generarResumen(
+                trabajo.desde, trabajo.hasta, trabajo.sections, null,
+                (hechas, total) -> {
+                    trabajo.seccionesCompletadas = hechas;
+                    trabajo.seccionesTotales = total;
+                }
+            );
+            Files.createDirectories(directorio);
+            archivo = directorio.resolve(trabajo.id + "." + trabajo.formato);
+            try (OutputStream out = Files.newOutputStream(archivo)) {
+                if ("pdf".equals(trabajo.formato)) {
+                    reportService.escribirPdf(resumen, out);
+                } else {
+                    objectMapper.writeValue(out, resumen);
+                }
+            }
+            trabajo.desde = resumen.from();
+            trabajo.hasta = resumen.to();
+            trabajo.archivo = archivo;
+            finalizar(trabajo, Estado.COMPLETADO);
+            completados.incrementAndGet();
+        } catch (Exception ex) {
+            log.error("Falló el trabajo de reporte {}", trabajo.id, ex);
+            borrar(archivo);
+            trabajo.error = "Error interno al generar el reporte";
+            finalizar(trabajo, Estado.FALLIDO);
+            fallidos.incrementAndGet();
+        }
+    }
+
+    /** El estado se publica al final: quien lo lea ya ve finalizado, expiraEn y el archivo o error. */
+    private void finalizar(Trabajo trabajo, Estado estado) {
+        trabajo.finalizado = Instant.now();
+        trabajo.expiraEn = trabajo.finalizado.plus(retencion);
+        trabajo.estado = estado;
+    }
+
+    private Trabajo obtener(String id) {
+        Trabajo trabajo = id == null ? null : trabajos.get(id);
+        if (trabajo == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Trabajo de reporte no encontrado o expirado");
+        }
+        return trabajo;
+    }
+
+    private static String normalizarFormato(String formato) {
+        String f = formato == null || formato.isBlank() ? "json" : formato.trim().toLowerCase(Locale.ROOT);
+        if (!f.equals("json") && !f.equals("pdf")) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Formato inválido. Use json o pdf");
+        }
+        return f;
+    }
+
+    private static void borrar(Path archivo) {
+        if (archivo == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(archivo);
+        } catch (IOException ignored) {
+            // se reintentará en la próxima limpieza del directorio temporal del sistema
+        }
+    }
+
+    public record Resultado(Path archivo, String formato, String nombreArchivo) {}
+
+    private static final class Trabajo {
+
+        private final String id;
+        private final String formato;
+        private final List<String> sections;
+        private final Instant creado = Instant.now();
+        private volatile LocalDate desde;
+        private volatile LocalDate hasta;
+        private volatile Estado estado = Estado.EN_COLA;
+        private volatile int seccionesCompletadas;
+        private volatile int seccionesTotales;
+        private volatile Instant finalizado;
+        private volatile Instant expiraEn;
+        private volatile Path archivo;
+        private volatile String error;
+
+        Trabajo(String id, String formato, LocalDate desde, LocalDate hasta, List<String> sections) {
+            this.id = id;
+            this.formato = formato;
+            this.desde = desde;
+            this.hasta = hasta;
+            this.sections = sections;
+        }
+
+        String nombreArchivo() {
+            return String.format("reportes-fitware-%s-a-%s.%s", desde, hasta, formato);
+        }
+
+        ReportJobDTO aDto() {
+            return new ReportJobDTO(
+                id, estado.name(), formato, desde, hasta, sections,
+                seccionesCompletadas, seccionesTotales, creado, finalizado, expiraEn, error
+            );
+        }
+    }
+}
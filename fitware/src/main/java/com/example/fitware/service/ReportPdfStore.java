@@ -0,0 +1,186 @@
+package com.example.fitware.service;
+
+import com.example.fitware.service.ReportCache.Clave;
+import com.example.fitware.service.ReportCache.Dependencia;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Almacén en disco de PDFs ya renderizados para periodos cerrados (que terminan antes de hoy).
+ * Cada archivo se nombra por el hash de periodo, secciones y versión de datos, y no se reescribe:
+ * cuando una escritura confirmada toca una fecha del periodo (o una tabla no acotada por fecha de
+ * la que depende), la entrada se descarta y la siguiente descarga genera un archivo nuevo.
+ */
+@Component
+public class ReportPdfStore {
+
+    /** Cambiar al modificar el diseño del PDF para no servir archivos con el formato anterior. */
+    private static final int VERSION_FORMATO = 1;
+    private static final String EXTENSION = ".pdf";
+
+    private final ReportService reportService;
+    private final Path directorio;
+    private final int maxArchivos;
+    private final Map<Clave, Snapshot> indice;
+    private final List<Pendiente> porBorrar = new ArrayList<>();
+    private long generacion;
+
+    public ReportPdfStore(ReportService reportService,
+                          @Value("${fitware.reportes.pdf.directorio:${java.io.tmpdir}/fitware-pdf}") Path directorio,
+                          @Value("${fitware.reportes.pdf.max-archivos:256}") int maxArchivos) {
+        this.reportService = reportService;
+        this.directorio = directorio;
+        this.maxArchivos = maxArchivos;
+        this.indice = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Clave, Snapshot> eldest) {
+                if (size() <= ReportPdfStore.this.maxArchivos) {
+                    return false;
+                }
+                retirar(eldest.getValue().archivo());
+                return true;
+            }
+        };
+    }
+
+    /** El índice vive en memoria: lo que quedó de una ejecución anterior no es confiable. */
+    @PostConstruct
+    void inicializar() throws IOException {
+        Files.createDirectories(directorio);
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio, "*{" + EXTENSION + ",.tmp}")) {
+            for (Path archivo : archivos) {
+                Files.deleteIfExists(archivo);
+            }
+        }
+    }
+
+    public boolean admite(Clave clave) {
+        return maxArchivos > 0
+            && !clave.crudo()
+            && !clave.secciones().isEmpty()
+            && clave.hasta().isBefore(LocalDate.now());
+    }
+
+    /**
+     * Devuelve el PDF del periodo, renderizándolo la primera vez. Si llega una invalidación
+     * mientras se genera, el archivo se entrega igualmente pero no queda registrado.
+     */
+    public Snapshot obtener(Clave clave) {
+        long generacionInicial;
+        synchronized (this) {
+            Snapshot existente = indice.get(clave);
+            if (existente != null && Files.exists(existente.archivo())) {
+                return existente;
+            }
+            generacionInicial = generacion;
+        }
+
+        ReportCache.Entrada entrada = reportService.obtenerResumen(clave.desde(), clave.hasta(), clave.secciones(), null);
+        Path destino = directorio.resolve(nombre(clave, generacionInicial));
+        Path temporal = directorio.resolve(destino.getFileName() + "." + Thread.currentThread().threadId() + ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temporal)) {
+                reportService.escribirPdf(entrada.resumen(), out);
+            }
+            Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Snapshot snapshot = new Snapshot(clave, destino, Files.size(destino), entrada.dependencias());
+            synchronized (this) {
+                Snapshot vigente = indice.get(clave);
+                if (generacionInicial == generacion) {
+                    indice.put(clave, snapshot);
+                } else if (vigente == null || !vigente.archivo().equals(destino)) {
+                    retirar(destino);
+                }
+            }
+            return snapshot;
+        } catch (IOException ex) {
+            try {
+                Files.deleteIfExists(temporal);
+            } catch (IOException ignored) {
+                // lo elimina la limpieza al reiniciar
+            }
+            throw new UncheckedIOException("No se pudo guardar el PDF del periodo", ex);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void alCambiarDatos(ReportDataChangedEvent evento) {
+        generacion++;
+        Iterator<Snapshot> it = indice.values().iterator();
+        while (it.hasNext()) {
+            Snapshot snapshot = it.next();
+            if (ReportCache.afecta(evento, snapshot.clave(), snapshot.dependencias())) {
+                it.remove();
+                retirar(snapshot.archivo());
+            }
+        }
+    }
+
+    /**
+     * Borra los archivos retirados con un margen, para no cortar una descarga que ya
+     * tenía la ruta (el envío por sendfile abre el archivo después de devolver el controlador).
+     */
+    @Scheduled(fixedDelayString = "${fitware.reportes.pdf.limpieza-ms:60000}")
+    public void borrarRetirados() {
+        Instant limite = Instant.now().minusSeconds(60);
+        List<Path> borrar = new ArrayList<>();
+        synchronized (this) {
+            porBorrar.removeIf(p -> {
+                if (p.desde().isAfter(limite)) {
+                    return false;
+                }
+                borrar.add(p.archivo());
+                return true;
+            });
+        }
+        for (Path archivo : borrar) {
+            try {
+                Files.deleteIfExists(archivo);
+            } catch (IOException ignored) {
+                // se reintenta al reiniciar
+            }
+        }
+    }
+
+    private void retirar(Path archivo) {
+        porBorrar.add(new Pendiente(archivo, Instant.now()));
+    }
+
+    private static String nombre(Clave clave, long generacion) {
+        String base = clave.desde() + "|" + clave.hasta() + "|" + String.join(",", clave.secciones())
+            + "|" + generacion + "|" + VERSION_FORMATO;
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(base.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash) + EXTENSION;
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 no disponible", ex);
+        }
+    }
+
+    public record Snapshot(Clave clave, Path archivo, long bytes, Set<Dependencia> dependencias) {}
+
+    private record Pendiente(Path archivo, Instant desde) {}
+}
@@ -0,0 +1,249 @@
+package com.example.fitware.service;
+
+import com.example.fitware.domain.Progreso;
+import com.example.fitware.domain.Sesion;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Mantiene los agregados mensuales que consume {@link ReportService}
+ * (tablas reporte_sesion_mensual y reporte_progreso_mensual).
+ * Siempre corre dentro de la transacción de la escritura que lo invoca.
+ */
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+public class ReportRollupService {
+
+    private final EntityManager entityManager;
+
+    public ReportRollupService(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    // ----------------- sesiones -----------------
+
+    public HuellaSesion huella(Sesion s) {
+        if (s == null || s.getFechaInicio() == null || s.getCliente() == null) {
+            return null;
+        }
+        return new HuellaSesion(
+            s.getCliente().getUsuarioCedula(),
+            s.getFechaInicio().toLocalDate().withDayOfMonth(1),
+            s.getEstado() == null ? "SIN_ESTADO" : s.getEstado().name(),
+            s.getGastoCalorico()
+        );
+    }
+
+    public void registrarSesion(Sesion s) {
+        aplicar(huella(s), 1);
+    }
+
+    public void retirarSesion(Sesion s) {
+        aplicar(huella(s), -1);
+    }
+
+    /** Mueve una sesión editada de su antigua celda del agregado a la nueva. */
+    public void moverSesion(HuellaSesion antes, HuellaSesion despues) {
+        if (Objects.equals(antes, despues)) {
+            return;
+        }
+        aplicar(antes, -1);
+        aplicar(despues, 1);
+    }
+
+    /** Alta de muchas sesiones: un upsert por celda del agregado en lugar de uno por sesión. */
+    public void registrarSesiones(Collection<Sesion> sesiones) {
+        aplicarSesiones(sesiones.stream().map(this::huella).toList(), 1);
+    }
+
+    /** Baja de muchas sesiones ya borradas con SQL nativo, a partir de sus huellas. */
+    public void retirarSesiones(Collection<HuellaSesion> huellas) {
+        aplicarSesiones(huellas, -1);
+    }
+
+    private void aplicarSesiones(Collection<HuellaSesion> huellas, int signo) {
+        Map<CeldaSesion, Acumulado> celdas = new LinkedHashMap<>();
+        for (HuellaSesion h : huellas) {
+            if (h == null) {
+                continue;
+            }
+            celdas.computeIfAbsent(new CeldaSesion(h.clienteCedula(), h.mes(), h.estado()), k -> new Acumulado())
+                .sumar(h.gastoCalorico());
+        }
+        celdas.forEach((celda, acumulado) -> aplicarSesion(
+            celda.clienteCedula(), celda.mes(), celda.estado(),
+            signo * acumulado.registros, signo * acumulado.suma, signo * acumulado.conValor
+        ));
+    }
+
+    private void aplicar(HuellaSesion h, int signo) {
+        if (h == null) {
+            return;
+        }
+        aplicarSesion(
+            h.clienteCedula(), h.mes(), h.estado(),
+            signo,
+            h.gastoCalorico() != null ? signo * h.gastoCalorico() : 0d,
+            h.gastoCalorico() != null ? signo : 0L
+        );
+    }
+
+    private void aplicarSesion(String cedula, LocalDate mes, String estado, long total, double calorias, long conCalorias) {
+        String sql = """
+            INSERT INTO reporte_sesion_mensual AS r
+                   (mes, cliente_cedula, estado, total_sesiones, suma_calorias, sesiones_con_calorias)
+            VALUES (:mes, :cedula, :estado, :total, :calorias, :conCalorias)
+            ON CONFLICT (mes, cliente_cedula, estado) DO UPDATE
+            SET total_sesiones = r.total_sesiones + EXCLUDED.total_sesiones,
+                suma_calorias = r.suma_calorias + EXCLUDED.suma_calorias,
+                sesiones_con_calorias = r.sesiones_con_calorias + EXCLUDED.sesiones_con_calorias
+        """;
+        entityManager.createNativeQuery(sql)
+            .setParameter("mes", mes)
+            .setParameter("cedula", cedula)
+            .setParameter("estado", estado)
+            .setParameter("total", total)
+            .setParameter("calorias", calorias)
+            .setParameter("conCalorias", conCalorias)
+            .executeUpdate();
+
+        if (total < 0) {
+            entityManager.createNativeQuery("""
+                DELETE FROM reporte_sesion_mensual
+                WHERE mes = :mes AND cliente_cedula = :cedula AND estado = :estado AND total_sesiones <= 0
+            """)
+                .setParameter("mes", mes)
+                .setParameter("cedula", cedula)
+                .setParameter("estado", estado)
+                .executeUpdate();
+        }
+    }
+
+    // ----------------- progreso -----------------
+
+    public HuellaProgreso huella(Progreso p) {
+        if (p == null || p.getFecha() == null || p.getCliente() == null) {
+            return null;
+        }
+        return new HuellaProgreso(
+            p.getCliente().getUsuarioCedula(),
+            p.getFecha().withDayOfMonth(1),
+            p.getPeso()
+        );
+    }
+
+    public void registrarProgreso(Progreso p) {
+        aplicar(huella(p), 1);
+    }
+
+    public void retirarProgreso(Progreso p) {
+        aplicar(huella(p), -1);
+    }
+
+    public void moverProgreso(HuellaProgreso antes, HuellaProgreso despues) {
+        if (Objects.equals(antes, despues)) {
+            return;
+        }
+        aplicar(antes, -1);
+        aplicar(despues, 1);
+    }
+
+    /** Alta de muchos registros: un upsert por celda (cliente, mes) en lugar de uno por registro. */
+    public void registrarProgresos(Collection<Progreso> progresos) {
+        aplicarProgresos(progresos.stream().map(this::huella).toList(), 1);
+    }
+
+    /** Baja de muchos registros ya borrados con SQL nativo, a partir de sus huellas. */
+    public void retirarProgresos(Collection<HuellaProgreso> huellas) {
+        aplicarProgresos(huellas, -1);
+    }
+
+    private void aplicarProgresos(Collection<HuellaProgreso> huellas, int signo) {
+        Map<CeldaProgreso, Acumulado> celdas = new LinkedHashMap<>();
+        for (HuellaProgreso h : huellas) {
+            if (h == null) {
+                continue;
+            }
+            celdas.computeIfAbsent(new CeldaProgreso(h.clienteCedula(), h.mes()), k -> new Acumulado())
+                .sumar(h.peso());
+        }
+        celdas.forEach((celda, acumulado) -> aplicarProgreso(
+            celda.clienteCedula(), celda.mes(),
+            signo * acumulado.registros, signo * acumulado.suma, signo * acumulado.conValor
+        ));
+    }
+
+    private void aplicar(HuellaProgreso h, int signo) {
+        if (h == null) {
+            return;
+        }
+        aplicarProgreso(
+            h.clienteCedula(), h.mes(),
+            signo,
+            h.peso() != null ? signo * h.peso() : 0d,
+            h.peso() != null ? signo : 0L
+        );
+    }
+
+    private void aplicarProgreso(String cedula, LocalDate mes, long registros, double peso, long conPeso) {
+        String sql = """
+            INSERT INTO reporte_progreso_mensual AS r
+                   (mes, cliente_cedula, registros, suma_peso, registros_con_peso)
+            VALUES (:mes, :cedula, :registros, :peso, :conPeso)
+            ON CONFLICT (mes, cliente_cedula) DO UPDATE
+            SET registros = r.registros + EXCLUDED.registros,
+                suma_peso = r.suma_peso + EXCLUDED.suma_peso,
+                registros_con_peso = r.registros_con_peso + EXCLUDED.registros_con_peso
+        """;
+        entityManager.createNativeQuery(sql)
+            .setParameter("mes", mes)
+            .setParameter("cedula", cedula)
+            .setParameter("registros", registros)
+            .setParameter("peso", peso)
+            .setParameter("conPeso", conPeso)
+            .executeUpdate();
+
+        if (registros < 0) {
+            entityManager.createNativeQuery("""
+                DELETE FROM reporte_progreso_mensual
+                WHERE mes = :mes AND cliente_cedula = :cedula AND registros <= 0
+            """)
+                .setParameter("mes", mes)
+                .setParameter("cedula", cedula)
+                .executeUpdate();
+        }
+    }
+
+    private record CeldaSesion(String clienteCedula, LocalDate mes, String estado) {}
+
+    private record CeldaProgreso(String clienteCedula, LocalDate mes) {}
+
+    /** Suma de registros y de un valor opcional (calorías o peso) para una celda. */
+    private static final class Acumulado {
+        private long registros;
+        private double suma;
+        private long conValor;
+
+        void sumar(Double valor) {
+            registros++;
+            if (valor != null) {
+                suma += valor;
+                conValor++;
+            }
+        }
+    }
+
+    /** Celda del agregado de sesiones a la que contribuye una sesión. */
+    public record HuellaSesion(String clienteCedula, LocalDate mes, String estado, Double gastoCalorico) {}
+
+    /** Celda del agregado de progreso a la que contribuye un registro. */
+    public record HuellaProgreso(String clienteCedula, LocalDate mes, Double peso) {}
+}
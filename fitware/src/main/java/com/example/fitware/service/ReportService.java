@@ -1,5 +1,8 @@
 package com.example.fitware.service;
 
+import com.example.fitware.domain.EstadoSesion;
+import com.example.fitware.service.ReportCache.Dependencia;
+import com.example.fitware.service.ReportDataChangedEvent.Tabla;
 import com.example.fitware.web.dto.ReportSectionDTO;
 import com.example.fitware.web.dto.ReportSummaryDTO;
 import com.lowagie.text.Document;
@@ -14,44 +17,167 @@ import com.lowagie.text.pdf.PdfPTable;
 import com.lowagie.text.pdf.PdfWriter;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.Query;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
 
-import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 
 @Service
-@Transactional(readOnly = true)
 public class ReportService {
 
-    private static final Locale LOCALE_ES = new Locale("es", "ES");
-    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd MMM yyyy", LOCALE_ES);
-    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("dd MMM yyyy HH:mm", LOCALE_ES);
-    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("MMMM yyyy", LOCALE_ES);
+    private static final int PDF_FILAS_POR_BLOQUE = 200;
+    private static final int SIN_PROGRESO_POR_PAGINA = 10;
+
+    /** Secciones disponibles (en orden de presentación) y las tablas de las que dependen. */
+    private static final Map<String, Set<Dependencia>> SECCIONES = new LinkedHashMap<>();
+
+    static {
+        Dependencia clientes = new Dependencia(Tabla.CLIENTE, false);
+        SECCIONES.put("clientes-registrados", Set.of(new Dependencia(Tabla.CLIENTE, true)));
+        SECCIONES.put("sesiones-periodo", Set.of(new Dependencia(Tabla.SESION, true), clientes));
+        SECCIONES.put("progresos-periodo", Set.of(new Dependencia(Tabla.PROGRESO, true), clientes));
+        SECCIONES.put("sesiones-estado", Set.of(new Dependencia(Tabla.SESION, true)));
+        SECCIONES.put("top-clientes-sesiones", Set.of(new Dependencia(Tabla.SESION, true), clientes));
+        SECCIONES.put("rutinas-entrenador", Set.of(new Dependencia(Tabla.RUTINA, false)));
+        SECCIONES.put("peso-promedio-mensual", Set.of(new Dependencia(Tabla.PROGRESO, true)));
+        SECCIONES.put("mes-activo-calorias", Set.of(new Dependencia(Tabla.SESION, true)));
+        SECCIONES.put("clientes-sin-progreso", Set.of(new Dependencia(Tabla.PROGRESO, false), clientes));
+        SECCIONES.put("variacion-peso", Set.of(new Dependencia(Tabla.PROGRESO, true), clientes));
+    }
+
+    private static final List<String> ORDEN_SECCIONES = List.copyOf(SECCIONES.keySet());
+
+    private static final Set<String> SECCIONES_SESION_FUSIONABLES =
+        Set.of("sesiones-estado", "top-clientes-sesiones", "mes-activo-calorias");
 
     private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTx;
+    private final ExecutorService reportExecutor;
+    private final boolean concurrentePorDefecto;
+    private final ReportCache cache;
+    private final PresupuestoConexiones presupuesto;
 
-    public ReportService(EntityManager entityManager) {
+    public ReportService(EntityManager entityManager,
+                         PlatformTransactionManager transactionManager,
+                         @Qualifier("reportExecutor") ExecutorService reportExecutor,
+                         @Value("${fitware.reportes.concurrente:true}") boolean concurrentePorDefecto,
+                         ReportCache cache,
+                         PresupuestoConexiones presupuesto) {
         this.entityManager = entityManager;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.reportExecutor = reportExecutor;
+        this.concurrentePorDefecto = concurrentePorDefecto;
+        this.cache = cache;
+        this.presupuesto = presupuesto;
     }
 
-    public ReportSummaryDTO generarResumen(LocalDate desde, LocalDate hasta, List<String> requestedSections) {
-        LocalDate start = desde != null ? desde : LocalDate.now().minusMonths(1);
-        LocalDate end = hasta != null ? hasta : LocalDate.now();
-        if (start.isAfter(end)) {
-            LocalDate swap = start;
-            start = end;
-            end = swap;
+    /**
+     * Devuelve el resumen desde la caché si existe una entrada vigente para el mismo
+     * periodo y secciones; si no, lo genera y lo cachea junto con su ETag.
+     */
+    public ReportCache.Entrada obtenerResumen(LocalDate desde,
+                                              LocalDate hasta,
+                                              List<String> requestedSections,
+                                              Boolean concurrente) {
+        return obtenerResumen(desde, hasta, requestedSections, concurrente, false);
+    }
+
+    /**
+     * Con {@code crudo} las secciones sólo llevan sus columnas tipadas y se omite el texto
+     * localizado; se cachea aparte de la forma legible.
+     */
+    public ReportCache.Entrada obtenerResumen(LocalDate desde,
+                                              LocalDate hasta,
+                                              List<String> requestedSections,
+                                              Boolean concurrente,
+                                              boolean crudo) {
+        ReportCache.Clave clave = claveResumen(desde, hasta, requestedSections, crudo);
+
+        ReportCache.Entrada cacheada = cache.obtener(clave);
+        if (cacheada != null) {
+            return cacheada;
         }
+        long generacion = cache.generacion();
+        // Se pasa el filtro original: una lista vacía de secciones válidas no equivale a "todas"
+        ReportSummaryDTO resumen = generarResumen(
+            clave.desde(), clave.hasta(), normalizeSections(requestedSections), concurrente, (h, t) -> { }, crudo
+        );
+        return cache.guardar(clave, resumen, dependencias(clave.secciones()), generacion);
+    }
+
+    /** Periodo normalizado y secciones efectivas de una petición, tal como se usan para cachear. */
+    public ReportCache.Clave claveResumen(LocalDate desde,
+                                          LocalDate hasta,
+                                          List<String> requestedSections,
+                                          boolean crudo) {
+        Periodo periodo = Periodo.de(desde, hasta);
+        List<String> incluidas = seccionesIncluidas(normalizeSections(requestedSections));
+        return new ReportCache.Clave(periodo.desde(), periodo.hasta(), incluidas, crudo);
+    }
+
+    public ReportSummaryDTO generarResumen(LocalDate desde, LocalDate hasta, List<String> requestedSections) {
+        return generarResumen(desde, hasta, requestedSections, null);
+    }
+
+    /**
+     * Genera el resumen. En modo concurrente cada sección se envía al ejecutor de reportes
+     * y corre en su propia transacción de solo lectura; en modo secuencial todas comparten una.
+     */
+    public ReportSummaryDTO generarResumen(LocalDate desde,
+                                           LocalDate hasta,
+                                           List<String> requestedSections,
+                                           Boolean concurrente) {
+        return generarResumen(desde, hasta, requestedSections, concurrente, (hechas, total) -> { });
+    }
+
+    /**
+     * Igual que {@link #generarResumen(LocalDate, LocalDate, List, Boolean)}, notificando
+     * {@code avance(seccionesTerminadas, seccionesTotales)} a medida que terminan las secciones.
+     */
+    public ReportSummaryDTO generarResumen(LocalDate desde,
+                                           LocalDate hasta,
+                                           List<String> requestedSections,
+                                           Boolean concurrente,
+                                           BiConsumer<Integer, Integer> avance) {
+        return generarResumen(desde, hasta, requestedSections, concurrente, avance, false);
+    }
+
+    private ReportSummaryDTO generarResumen(LocalDate desde,
+                                            LocalDate hasta,
+                                            List<String> requestedSections,
+                                            Boolean concurrente,
+                                            BiConsumer<Integer, Integer> avance,
+                                            boolean crudo) {
+        Periodo periodo = Periodo.de(desde, hasta);
+        LocalDate start = periodo.desde();
+        LocalDate end = periodo.hasta();
 
         LocalDateTime startDateTime = start.atStartOfDay();
         LocalDateTime endExclusive = end.plusDays(1).atStartOfDay();
@@ -60,30 +186,53 @@ public class ReportService {
         final LocalDate finalEnd = end;
         final LocalDateTime finalStartDateTime = startDateTime;
         final LocalDateTime finalEndExclusive = endExclusive;
+        final VentanaMensual ventana = VentanaMensual.de(start, end);
 
         List<String> normalizedFilter = normalizeSections(requestedSections);
-        List<ReportSectionDTO> sections = new ArrayList<>();
+        List<SectionTask> sections = new ArrayList<>();
         addSection(sections, normalizedFilter, "clientes-registrados", () -> clientesRegistrados(finalStart, finalEnd));
         addSection(sections, normalizedFilter, "sesiones-periodo", () -> sesionesRegistradas(finalStartDateTime, finalEndExclusive));
         addSection(sections, normalizedFilter, "progresos-periodo", () -> progresosRegistrados(finalStart, finalEnd));
 
-        addSection(sections, normalizedFilter, "sesiones-estado", () -> sesionesPorEstado(finalStartDateTime, finalEndExclusive));
-        addSection(sections, normalizedFilter, "top-clientes-sesiones", () -> topClientesPorSesiones(finalStartDateTime, finalEndExclusive));
+        // Si se piden dos o más agregados de sesiones, se resuelven en una sola pasada
+        List<String> fusionadas = seccionesIncluidas(normalizedFilter).stream()
+            .filter(SECCIONES_SESION_FUSIONABLES::contains)
+            .toList();
+        if (fusionadas.size() > 1) {
+            sections.add(new SectionTask(fusionadas, () -> seccionesSesionesFusionadas(ventana, fusionadas)));
+        } else {
+            addSection(sections, normalizedFilter, "sesiones-estado", () -> sesionesPorEstado(ventana));
+            addSection(sections, normalizedFilter, "top-clientes-sesiones", () -> topClientesPorSesiones(ventana));
+            addSection(sections, normalizedFilter, "mes-activo-calorias", () -> mesMasActivoEnCalorias(ventana));
+        }
         addSection(sections, normalizedFilter, "rutinas-entrenador", this::rutinasPorEntrenador);
-        addSection(sections, normalizedFilter, "peso-promedio-mensual", () -> promedioPesoMensual(finalStart, finalEnd));
+        addSection(sections, normalizedFilter, "peso-promedio-mensual", () -> promedioPesoMensual(ventana));
 
-        addSection(sections, normalizedFilter, "mes-activo-calorias", () -> mesMasActivoEnCalorias(finalStartDateTime, finalEndExclusive));
-        addSection(sections, normalizedFilter, "clientes-sin-progreso", () -> clientesSinProgresoReciente(finalEnd));
+        addSection(sections, normalizedFilter, "clientes-sin-progreso", () -> clientesSinProgresoReciente(finalEnd, 0, SIN_PROGRESO_POR_PAGINA));
         addSection(sections, normalizedFilter, "variacion-peso", () -> variacionPesoClientes(finalStart, finalEnd));
 
-        return new ReportSummaryDTO(start, end, Instant.now(), List.copyOf(sections));
+        boolean enParalelo = concurrente != null ? concurrente : concurrentePorDefecto;
+        Avance contador = new Avance(sections.stream().mapToInt(t -> t.ids().size()).sum(), avance);
+        List<ReportSectionDTO> resultado = enParalelo && sections.size() > 1
+            ? ejecutarConcurrente(sections, contador)
+            : ejecutarSecuencial(sections, contador);
+        resultado.sort(Comparator.comparingInt(dto -> ORDEN_SECCIONES.indexOf(dto.id())));
+        if (!crudo) {
+            resultado.replaceAll(ReportService::conTexto);
+        }
+        return new ReportSummaryDTO(start, end, Instant.now(), List.copyOf(resultado));
     }
 
-    public byte[] generarPdf(ReportSummaryDTO resumen) {
+    /**
+     * Escribe el PDF directamente sobre {@code out}. Las tablas se marcan incompletas y se
+     * vacían cada {@link #PDF_FILAS_POR_BLOQUE} filas, de modo que iText no retiene en memoria
+     * más que el bloque actual. El flujo no se cierra: le pertenece al llamador.
+     */
+    public void escribirPdf(ReportSummaryDTO resumen, OutputStream out) throws IOException {
+        Document document = new Document(PageSize.A4.rotate());
         try {
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            Document document = new Document(PageSize.A4.rotate());
-            PdfWriter.getInstance(document, baos);
+            PdfWriter writer = PdfWriter.getInstance(document, out);
+            writer.setCloseStream(false);
             document.open();
 
             Font titleFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18);
@@ -97,7 +246,7 @@ public class ReportService {
                 bodyFont
             ));
             document.add(new Paragraph(
-                "Generado: " + DATE_TIME_FORMAT.format(resumen.generatedAt().atZone(ZoneId.systemDefault())),
+                "Generado: " + TablaReporte.DATE_TIME_FORMAT.format(resumen.generatedAt().atZone(ZoneId.systemDefault())),
                 smallFont
             ));
             document.add(new Paragraph(" "));
@@ -112,22 +261,30 @@ public class ReportService {
                 } else {
                     PdfPTable table = new PdfPTable(section.headers().size());
                     table.setWidthPercentage(100);
+                    table.setHeaderRows(1);
+                    table.setComplete(false);
                     for (String header : section.headers()) {
                         PdfPCell cell = new PdfPCell(new Phrase(header, headerFont));
                         table.addCell(cell);
                     }
+                    int filas = 0;
                     for (List<String> row : section.rows()) {
                         for (String value : row) {
                             table.addCell(new Phrase(value, bodyFont));
                         }
+                        if (++filas % PDF_FILAS_POR_BLOQUE == 0) {
+                            document.add(table);
+                        }
                     }
+                    table.setComplete(true);
                     document.add(table);
                 }
                 document.add(new Paragraph(" "));
+                out.flush();
             }
 
             document.close();
-            return baos.toByteArray();
+            out.flush();
         } catch (DocumentException e) {
             throw new IllegalStateException("No se pudo generar el PDF de reportes", e);
         }
@@ -149,22 +306,19 @@ public class ReportService {
         query.setParameter("hasta", hasta);
         @SuppressWarnings("unchecked")
         List<Object[]> rows = query.getResultList();
-        List<List<String>> tabla = new ArrayList<>();
+        TablaReporte tabla = new TablaReporte()
+            .texto("cedula", "Cédula")
+            .texto("cliente", "Cliente")
+            .fecha("fechaRegistro", "Fecha de registro");
         for (Object[] row : rows) {
             String cedula = text(row[0]);
-            String nombre = nombreCompleto(row[1], row[2], cedula);
-            tabla.add(List.of(
-                cedula,
-                nombre,
-                formatDate(toLocalDate(row[3]))
-            ));
+            tabla.fila(cedula, nombreCompleto(row[1], row[2], cedula), row[3]);
         }
         return section(
             "clientes-registrados",
             "SIMPLE",
             "Clientes inscritos en el periodo",
             "Altas registradas por fecha de inscripción.",
-            List.of("Cédula", "Cliente", "Fecha de registro"),
             tabla
         );
     }
@@ -190,24 +344,21 @@ public class ReportService {
         query.setParameter("hasta", hasta);
         @SuppressWarnings("unchecked")
         List<Object[]> rows = query.getResultList();
-        List<List<String>> tabla = new ArrayList<>();
+        TablaReporte tabla = new TablaReporte()
+            .id("sesion", "Sesión")
+            .texto("cliente", "Cliente")
+            .texto("estado", "Estado")
+            .fechaHora("inicio", "Inicio")
+            .decimal("calorias", "Calorías", 0, "kcal");
         for (Object[] row : rows) {
             String cedula = text(row[4]);
-            String cliente = nombreCompleto(row[5], row[6], cedula);
-            tabla.add(List.of(
-                text(row[0]),
-                cliente,
-                text(row[1]),
-                formatDateTime(toLocalDateTime(row[2])),
-                formatNumber(row[3], 0) + " kcal"
-            ));
+            tabla.fila(row[0], nombreCompleto(row[5], row[6], cedula), row[1], row[2], row[3]);
         }
         return section(
             "sesiones-periodo",
             "SIMPLE",
             "Sesiones programadas en el rango",
-            "Sesiones registradas (máximo 25 más recientes) para los filtros seleccionados.",
-            List.of("Sesión", "Cliente", "Estado", "Inicio", "Calorías"),
+            "Sesiones registradas (máximo 25 más recientes); el listado completo está en la exportación CSV.",
             tabla
         );
     }
@@ -233,98 +384,127 @@ public class ReportService {
         query.setParameter("hasta", hasta);
         @SuppressWarnings("unchecked")
         List<Object[]> rows = query.getResultList();
-        List<List<String>> tabla = new ArrayList<>();
+        TablaReporte tabla = new TablaReporte()
+            .id("registro", "Registro")
+            .texto("cliente", "Cliente")
+            .fecha("fecha", "Fecha")
+            .decimal("peso", "Peso", 1, "kg")
+            .decimal("imc", "IMC", 1, null);
         for (Object[] row : rows) {
             String cedula = text(row[1]);
-            String cliente = nombreCompleto(row[2], row[3], cedula);
-            tabla.add(List.of(
-                text(row[0]),
-                cliente,
-                formatDate(toLocalDate(row[4])),
-                formatNumber(row[5], 1) + " kg",
-                formatNumber(row[6], 1)
-            ));
+            tabla.fila(row[0], nombreCompleto(row[2], row[3], cedula), row[4], row[5], row[6]);
         }
         return section(
             "progresos-periodo",
             "SIMPLE",
             "Registros de progreso",
-            "Listado de métricas corporales capturadas (últimos 25 registros en el rango).",
-            List.of("Registro", "Cliente", "Fecha", "Peso", "IMC"),
+            "Listado de métricas corporales capturadas (últimos 25 registros; el resto en la exportación CSV).",
             tabla
         );
     }
 
-    private ReportSectionDTO sesionesPorEstado(LocalDateTime desde, LocalDateTime hasta) {
+    private ReportSectionDTO sesionesPorEstado(VentanaMensual ventana) {
         String sql = """
-            SELECT COALESCE(UPPER(s.estado), 'SIN_ESTADO') AS estado,
-                   COUNT(*) AS total
-            FROM sesion s
-            WHERE s.fecha_inicio >= :desde AND s.fecha_inicio < :hasta
-            GROUP BY estado
+            SELECT datos.estado,
+                   SUM(datos.total) AS total
+            FROM (
+                SELECT r.estado, r.total_sesiones AS total
+                FROM reporte_sesion_mensual r
+                WHERE r.mes >= :mesDesde AND r.mes < :mesHasta
+                UNION ALL
+                SELECT COALESCE(UPPER(s.estado), 'SIN_ESTADO'), 1
+                FROM sesion s
+                WHERE (s.fecha_inicio >= :desde AND s.fecha_inicio < :bordeInicial)
+                   OR (s.fecha_inicio >= :bordeFinal AND s.fecha_inicio < :hasta)
+            ) datos
+            GROUP BY datos.estado
             ORDER BY total DESC
         """;
         Query query = entityManager.createNativeQuery(sql);
-        query.setParameter("desde", desde);
-        query.setParameter("hasta", hasta);
+        ventana.aplicar(query, true);
         @SuppressWarnings("unchecked")
         List<Object[]> rows = query.getResultList();
-        List<List<String>> tabla = new ArrayList<>();
+        return seccionSesionesPorEstado(rows);
+    }
+
+    /** Filas: estado, total. */
+    private ReportSectionDTO seccionSesionesPorEstado(List<Object[]> rows) {
+        TablaReporte tabla = new TablaReporte()
+            .texto("estado", "Estado")
+            .entero("total", "Total");
         for (Object[] row : rows) {
-            tabla.add(List.of(
-                estadoLegible(row[0]),
-                formatNumber(row[1], 0)
-            ));
+            tabla.fila(estadoLegible(row[0]), row[1]);
         }
         return section(
             "sesiones-estado",
             "INTERMEDIO",
             "Volumen de sesiones por estado",
             "Distribución agrupada por estado operativo para las sesiones del periodo.",
-            List.of("Estado", "Total"),
             tabla
         );
     }
 
-    private ReportSectionDTO topClientesPorSesiones(LocalDateTime desde, LocalDateTime hasta) {
+    private ReportSectionDTO topClientesPorSesiones(VentanaMensual ventana) {
         String sql = """
-            SELECT c.usuario_cedula,
+            WITH datos AS (
+                SELECT r.cliente_cedula,
+                       r.total_sesiones AS total,
+                       r.suma_calorias,
+                       r.sesiones_con_calorias
+                FROM reporte_sesion_mensual r
+                WHERE r.mes >= :mesDesde AND r.mes < :mesHasta
+                  AND r.estado = 'COMPLETADA'
+                UNION ALL
+                SELECT s.cliente_cedula,
+                       1,
+                       COALESCE(s.gasto_calorico, 0),
+                       CASE WHEN s.gasto_calorico IS NULL THEN 0 ELSE 1 END
+                FROM sesion s
+                WHERE ((s.fecha_inicio >= :desde AND s.fecha_inicio < :bordeInicial)
+                    OR (s.fecha_inicio >= :bordeFinal AND s.fecha_inicio < :hasta))
+                  AND s.estado = :completada
+            ),
+            ranking AS (
+                SELECT cliente_cedula,
+                       SUM(total) AS total,
+                       COALESCE(SUM(suma_calorias) / NULLIF(SUM(sesiones_con_calorias), 0), 0) AS promedio_calorias
+                FROM datos
+                GROUP BY cliente_cedula
+                ORDER BY total DESC
+                LIMIT 5
+            )
+            SELECT ranking.cliente_cedula,
                    COALESCE(u.nombre, '') AS cliente_nombre,
                    COALESCE(u.apellidos, '') AS cliente_apellidos,
-                   COUNT(*) AS total,
-                   COALESCE(AVG(s.gasto_calorico), 0) AS promedio_calorias
-            FROM sesion s
-            JOIN cliente c ON c.usuario_cedula = s.cliente_cedula
-            JOIN usuario u ON u.cedula = c.usuario_cedula
-            WHERE s.fecha_inicio >= :desde AND s.fecha_inicio < :hasta
-              AND UPPER(COALESCE(s.estado, '')) = 'COMPLETADA'
-            GROUP BY c.usuario_cedula,
-                     COALESCE(u.nombre, ''),
-                     COALESCE(u.apellidos, '')
-            ORDER BY total DESC
-            LIMIT 5
+                   ranking.total,
+                   ranking.promedio_calorias
+            FROM ranking
+            JOIN usuario u ON u.cedula = ranking.cliente_cedula
+            ORDER BY ranking.total DESC
         """;
         Query query = entityManager.createNativeQuery(sql);
-        query.setParameter("desde", desde);
-        query.setParameter("hasta", hasta);
+        ventana.aplicar(query, true);
+        query.setParameter("completada", EstadoSesion.COMPLETADA.literal());
         @SuppressWarnings("unchecked")
         List<Object[]> rows = query.getResultList();
-        List<List<String>> tabla = new ArrayList<>();
+        return seccionTopClientes(rows);
+    }
+
+    /** Filas: cédula, nombre, apellidos, sesiones completadas, calorías promedio. */
+    private ReportSectionDTO seccionTopClientes(List<Object[]> rows) {
+        TablaReporte tabla = new TablaReporte()
+            .texto("cliente", "Cliente")
+            .entero("completadas", "Sesiones completadas")
+            .decimal("caloriasPromedio", "Calorías promedio", 0, "kcal");
         for (Object[] row : rows) {
             String cedula = text(row[0]);
-            String cliente = nombreCompleto(row[1], row[2], cedula);
-            tabla.add(List.of(
-                cliente,
-                formatNumber(row[3], 0),
-                formatNumber(row[4], 0) + " kcal"
-            ));
+            tabla.fila(nombreCompleto(row[1], row[2], cedula), row[3], row[4]);
         }
         return section(
             "top-clientes-sesiones",
             "INTERMEDIO",
             "Top clientes por sesiones completadas",
             "Ranking (hasta 5 registros) considerando calorías promedio quemadas.",
-            List.of("Cliente", "Sesiones completadas", "Calorías promedio"),
             tabla
         );
     }
@@ -344,143 +524,251 @@ public class ReportService {
         Query query = entityManager.createNativeQuery(sql);
         @SuppressWarnings("unchecked")
         List<Object[]> rows = query.getResultList();
-        List<List<String>> tabla = new ArrayList<>();
+        TablaReporte tabla = new TablaReporte()
+            .texto("entrenador", "Entrenador")
+            .entero("rutinas", "Rutinas creadas")
+            .decimal("duracionPromedio", "Duración promedio", 0, "semanas");
         for (Object[] row : rows) {
             String cedula = text(row[0]);
-            String entrenador = nombreCompleto(row[1], row[2], cedula);
-            tabla.add(List.of(
-                entrenador,
-                formatNumber(row[3], 0),
-                formatNumber(row[4], 0) + " semanas"
-            ));
+            tabla.fila(nombreCompleto(row[1], row[2], cedula), row[3], row[4]);
         }
         return section(
             "rutinas-entrenador",
             "INTERMEDIO",
             "Producción de rutinas por entrenador",
             "Cantidad de rutinas diseñadas y duración media planificada.",
-            List.of("Entrenador", "Rutinas creadas", "Duración promedio"),
             tabla
         );
     }
 
-    private ReportSectionDTO promedioPesoMensual(LocalDate desde, LocalDate hasta) {
+    private ReportSectionDTO promedioPesoMensual(VentanaMensual ventana) {
         String sql = """
-            SELECT DATE_TRUNC('month', p.fecha) AS mes,
-                   COUNT(*) AS registros,
-                   AVG(p.peso) AS promedio_peso
-            FROM progreso p
-            WHERE p.fecha BETWEEN :desde AND :hasta
+            WITH datos AS (
+                SELECT r.mes, r.registros, r.suma_peso, r.registros_con_peso
+                FROM reporte_progreso_mensual r
+                WHERE r.mes >= :mesDesde AND r.mes < :mesHasta
+                UNION ALL
+                SELECT CAST(DATE_TRUNC('month', p.fecha) AS DATE),
+                       1,
+                       COALESCE(p.peso, 0),
+                       CASE WHEN p.peso IS NULL THEN 0 ELSE 1 END
+                FROM progreso p
+                WHERE (p.fecha >= :desde AND p.fecha < :bordeInicial)
+                   OR (p.fecha >= :bordeFinal AND p.fecha < :hasta)
+            )
+            SELECT mes,
+                   SUM(registros) AS registros,
+                   SUM(suma_peso) / NULLIF(SUM(registros_con_peso), 0) AS promedio_peso
+            FROM datos
             GROUP BY mes
             ORDER BY mes
         """;
         Query query = entityManager.createNativeQuery(sql);
-        query.setParameter("desde", desde);
-        query.setParameter("hasta", hasta);
+        ventana.aplicar(query, false);
         @SuppressWarnings("unchecked")
         List<Object[]> rows = query.getResultList();
-        List<List<String>> tabla = new ArrayList<>();
+        TablaReporte tabla = new TablaReporte()
+            .mes("mes", "Mes")
+            .entero("registros", "Registros")
+            .decimal("pesoPromedio", "Peso promedio", 1, "kg");
         for (Object[] row : rows) {
-            tabla.add(List.of(
-                formatMonth(row[0]),
-                formatNumber(row[1], 0),
-                formatNumber(row[2], 1) + " kg"
-            ));
+            tabla.fila(row[0], row[1], row[2]);
         }
         return section(
             "peso-promedio-mensual",
             "INTERMEDIO",
             "Evolución de peso promedio mensual",
             "Agrupado por mes para analizar tendencias en los registros de progreso.",
-            List.of("Mes", "Registros", "Peso promedio"),
             tabla
         );
     }
 
-    private ReportSectionDTO mesMasActivoEnCalorias(LocalDateTime desde, LocalDateTime hasta) {
+    private ReportSectionDTO mesMasActivoEnCalorias(VentanaMensual ventana) {
         String sql = """
-            WITH sesiones_filtradas AS (
-                SELECT DATE_TRUNC('month', s.fecha_inicio) AS mes,
-                       COUNT(*) AS total_sesiones,
-                       AVG(COALESCE(s.gasto_calorico, 0)) AS promedio_calorias
+            WITH datos AS (
+                SELECT r.mes, r.total_sesiones AS total, r.suma_calorias
+                FROM reporte_sesion_mensual r
+                WHERE r.mes >= :mesDesde AND r.mes < :mesHasta
+                  AND r.estado = 'COMPLETADA'
+                UNION ALL
+                SELECT CAST(DATE_TRUNC('month', s.fecha_inicio) AS DATE), 1, COALESCE(s.gasto_calorico, 0)
                 FROM sesion s
-                WHERE s.fecha_inicio >= :desde AND s.fecha_inicio < :hasta
-                  AND UPPER(COALESCE(s.estado, '')) = 'COMPLETADA'
-                GROUP BY mes
-            ),
-            maximo AS (
-                SELECT mes, total_sesiones
-                FROM sesiones_filtradas
-                ORDER BY total_sesiones DESC
-                LIMIT 1
+                WHERE ((s.fecha_inicio >= :desde AND s.fecha_inicio < :bordeInicial)
+                    OR (s.fecha_inicio >= :bordeFinal AND s.fecha_inicio < :hasta))
+                  AND s.estado = :completada
             )
-            SELECT sesiones_filtradas.mes,
-                   sesiones_filtradas.total_sesiones,
-                   sesiones_filtradas.promedio_calorias
-            FROM sesiones_filtradas
-            JOIN maximo ON maximo.mes = sesiones_filtradas.mes
+            SELECT mes,
+                   SUM(total) AS total_sesiones,
+                   SUM(suma_calorias) / SUM(total) AS promedio_calorias
+            FROM datos
+            GROUP BY mes
+            ORDER BY total_sesiones DESC
+            LIMIT 1
         """;
         Query query = entityManager.createNativeQuery(sql);
-        query.setParameter("desde", desde);
-        query.setParameter("hasta", hasta);
+        ventana.aplicar(query, true);
+        query.setParameter("completada", EstadoSesion.COMPLETADA.literal());
         @SuppressWarnings("unchecked")
         List<Object[]> rows = query.getResultList();
-        List<List<String>> tabla = new ArrayList<>();
+        return seccionMesActivo(rows);
+    }
+
+    /** Filas: mes, sesiones completadas, calorías promedio. */
+    private ReportSectionDTO seccionMesActivo(List<Object[]> rows) {
+        TablaReporte tabla = new TablaReporte()
+            .mes("mes", "Mes")
+            .entero("completadas", "Sesiones completadas")
+            .decimal("caloriasPromedio", "Calorías promedio", 0, "kcal");
         for (Object[] row : rows) {
-            tabla.add(List.of(
-                formatMonth(row[0]),
-                formatNumber(row[1], 0),
-                formatNumber(row[2], 0) + " kcal"
-            ));
+            tabla.fila(row[0], row[1], row[2]);
         }
         return section(
             "mes-activo-calorias",
             "AVANZADO",
             "Mes con más sesiones completadas",
             "Calcula el mes más activo y el promedio de calorías quemadas en ese periodo.",
-            List.of("Mes", "Sesiones completadas", "Calorías promedio"),
             tabla
         );
     }
 
-    private ReportSectionDTO clientesSinProgresoReciente(LocalDate hasta) {
+    /**
+     * Ruta fusionada para las secciones agregadas de sesiones: una sola pasada sobre la ventana
+     * (agregados mensuales + tramos sueltos de los extremos) con GROUPING SETS por estado,
+     * por cliente y por mes. Devuelve sólo las secciones pedidas.
+     */
+    private List<ReportSectionDTO> seccionesSesionesFusionadas(VentanaMensual ventana, List<String> ids) {
+        String sql = """
+            WITH datos AS (
+                SELECT r.mes,
+                       r.cliente_cedula,
+                       r.estado,
+                       r.total_sesiones AS total,
+                       r.suma_calorias,
+                       r.sesiones_con_calorias
+                FROM reporte_sesion_mensual r
+                WHERE r.mes >= :mesDesde AND r.mes < :mesHasta
+                UNION ALL
+                SELECT CAST(DATE_TRUNC('month', s.fecha_inicio) AS DATE),
+                       s.cliente_cedula,
+                       COALESCE(UPPER(s.estado), 'SIN_ESTADO'),
+                       1,
+                       COALESCE(s.gasto_calorico, 0),
+                       CASE WHEN s.gasto_calorico IS NULL THEN 0 ELSE 1 END
+                FROM sesion s
+                WHERE (s.fecha_inicio >= :desde AND s.fecha_inicio < :bordeInicial)
+                   OR (s.fecha_inicio >= :bordeFinal AND s.fecha_inicio < :hasta)
+            ),
+            agrupado AS (
+                SELECT GROUPING(estado, cliente_cedula, mes) AS conjunto,
+                       estado,
+                       cliente_cedula,
+                       mes,
+                       SUM(total) AS total,
+                       SUM(total) FILTER (WHERE estado = 'COMPLETADA') AS completadas,
+                       SUM(suma_calorias) FILTER (WHERE estado = 'COMPLETADA') AS calorias,
+                       SUM(sesiones_con_calorias) FILTER (WHERE estado = 'COMPLETADA') AS con_calorias
+                FROM datos
+                GROUP BY GROUPING SETS ((estado), (cliente_cedula), (mes))
+            ),
+            ranking AS (
+                SELECT agrupado.*,
+                       ROW_NUMBER() OVER (
+                           PARTITION BY conjunto
+                           ORDER BY CASE WHEN conjunto = 3 THEN total ELSE completadas END DESC NULLS LAST
+                       ) AS posicion
+                FROM agrupado
+            )
+            SELECT ranking.conjunto,
+                   ranking.estado,
+                   ranking.cliente_cedula,
+                   COALESCE(u.nombre, '') AS cliente_nombre,
+                   COALESCE(u.apellidos, '') AS cliente_apellidos,
+                   ranking.mes,
+                   ranking.total,
+                   ranking.completadas,
+                   COALESCE(ranking.calorias / NULLIF(ranking.con_calorias, 0), 0) AS promedio_con_dato,
+                   ranking.calorias / ranking.completadas AS promedio_por_sesion
+            FROM ranking
+            LEFT JOIN usuario u ON u.cedula = ranking.cliente_cedula
+            WHERE ranking.conjunto = 3
+               OR (ranking.conjunto = 5 AND ranking.completadas > 0 AND ranking.posicion <= 5)
+               OR (ranking.conjunto = 6 AND ranking.completadas > 0 AND ranking.posicion = 1)
+            ORDER BY ranking.conjunto, ranking.posicion
+        """;
+        Query query = entityManager.createNativeQuery(sql);
+        ventana.aplicar(query, true);
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = query.getResultList();
+
+        // GROUPING(estado, cliente_cedula, mes): 3 = por estado, 5 = por cliente, 6 = por mes
+        List<Object[]> porEstado = new ArrayList<>();
+        List<Object[]> porCliente = new ArrayList<>();
+        List<Object[]> porMes = new ArrayList<>();
+        for (Object[] row : rows) {
+            int conjunto = ((Number) row[0]).intValue();
+            switch (conjunto) {
+                case 3 -> porEstado.add(new Object[] {row[1], row[6]});
+                case 5 -> porCliente.add(new Object[] {row[2], row[3], row[4], row[7], row[8]});
+                case 6 -> porMes.add(new Object[] {row[5], row[7], row[9]});
+                default -> { }
+            }
+        }
+
+        List<ReportSectionDTO> resultado = new ArrayList<>();
+        if (ids.contains("sesiones-estado")) {
+            resultado.add(seccionSesionesPorEstado(porEstado));
+        }
+        if (ids.contains("top-clientes-sesiones")) {
+            resultado.add(seccionTopClientes(porCliente));
+        }
+        if (ids.contains("mes-activo-calorias")) {
+            resultado.add(seccionMesActivo(porMes));
+        }
+        return resultado;
+    }
+
+    /**
+     * Página de clientes sin progreso reciente, fuera del resumen general.
+     * Lee del resumen por cliente, así que el costo crece con la página pedida y no con el historial.
+     */
+    public ReportSectionDTO clientesSinProgreso(LocalDate hasta, int pagina, int tamano) {
+        LocalDate corte = hasta != null ? hasta : LocalDate.now();
+        return conTexto(readOnlyTx.execute(status -> clientesSinProgresoReciente(corte, pagina, tamano)));
+    }
+
+    private ReportSectionDTO clientesSinProgresoReciente(LocalDate hasta, int pagina, int tamano) {
         LocalDate umbral = hasta.minusDays(45);
         String sql = """
-            SELECT c.usuario_cedula,
+            SELECT r.cliente_cedula,
                    COALESCE(u.nombre, '') AS cliente_nombre,
                    COALESCE(u.apellidos, '') AS cliente_apellidos,
-                   MAX(p.fecha) AS ultima_fecha,
-                   COUNT(p.id) AS registros
-            FROM cliente c
-            JOIN usuario u ON u.cedula = c.usuario_cedula
-            LEFT JOIN progreso p ON p.cliente_cedula = c.usuario_cedula
-            GROUP BY c.usuario_cedula,
-                     COALESCE(u.nombre, ''),
-                     COALESCE(u.apellidos, '')
-            HAVING MAX(p.fecha) IS NULL OR MAX(p.fecha) < :umbral
-            ORDER BY ultima_fecha NULLS FIRST
-            LIMIT 10
+                   r.ultima_fecha,
+                   r.registros
+            FROM cliente_progreso_resumen r
+            JOIN usuario u ON u.cedula = r.cliente_cedula
+            WHERE r.ultima_fecha IS NULL OR r.ultima_fecha < :umbral
+            ORDER BY r.ultima_fecha NULLS FIRST, r.cliente_cedula
+            LIMIT :limite OFFSET :desplazamiento
         """;
         Query query = entityManager.createNativeQuery(sql);
         query.setParameter("umbral", umbral);
+        query.setParameter("limite", tamano);
+        query.setParameter("desplazamiento", (long) pagina * tamano);
         @SuppressWarnings("unchecked")
         List<Object[]> rows = query.getResultList();
-        List<List<String>> tabla = new ArrayList<>();
+        TablaReporte tabla = new TablaReporte()
+            .texto("cliente", "Cliente")
+            .fecha("ultimoRegistro", "Último registro")
+            .entero("totalHistorico", "Total histórico");
         for (Object[] row : rows) {
             String cedula = text(row[0]);
-            String cliente = nombreCompleto(row[1], row[2], cedula);
-            tabla.add(List.of(
-                cliente,
-                formatDate(toLocalDate(row[3])),
-                formatNumber(row[4], 0)
-            ));
+            tabla.fila(nombreCompleto(row[1], row[2], cedula), row[3], row[4]);
         }
         return section(
             "clientes-sin-progreso",
             "AVANZADO",
             "Clientes sin seguimiento en 45 días",
             "Detecta clientes que no registran progreso desde hace 45 días o nunca lo hicieron.",
-            List.of("Cliente", "Último registro", "Total histórico"),
             tabla
         );
     }
@@ -510,43 +798,47 @@ public class ReportService {
         query.setParameter("hasta", hasta);
         @SuppressWarnings("unchecked")
         List<Object[]> rows = query.getResultList();
-        List<List<String>> tabla = new ArrayList<>();
+        TablaReporte tabla = new TablaReporte()
+            .texto("cliente", "Cliente")
+            .decimal("pesoMinimo", "Peso mínimo", 1, "kg")
+            .decimal("pesoMaximo", "Peso máximo", 1, "kg")
+            .decimal("variacion", "Variación", 1, "kg");
         for (Object[] row : rows) {
             String cedula = text(row[0]);
-            String cliente = nombreCompleto(row[1], row[2], cedula);
-            tabla.add(List.of(
-                cliente,
-                formatNumber(row[3], 1) + " kg",
-                formatNumber(row[4], 1) + " kg",
-                formatNumber(row[5], 1) + " kg"
-            ));
+            tabla.fila(nombreCompleto(row[1], row[2], cedula), row[3], row[4], row[5]);
         }
         return section(
             "variacion-peso",
             "AVANZADO",
             "Clientes con mayor variación de peso",
             "Analiza la diferencia entre el peso mínimo y máximo dentro del rango.",
-            List.of("Cliente", "Peso mínimo", "Peso máximo", "Variación"),
             tabla
         );
     }
 
+    /** Sección sólo con columnas tipadas; las filas de texto se agregan con {@link #conTexto}. */
     private ReportSectionDTO section(String id,
                                      String category,
                                      String title,
                                      String description,
-                                     List<String> headers,
-                                     List<List<String>> rows) {
+                                     TablaReporte tabla) {
         return new ReportSectionDTO(
             id,
             category,
             title,
             description,
-            List.copyOf(headers),
-            List.copyOf(rows)
+            tabla.encabezados(),
+            List.of(),
+            0L,
+            tabla.columnasDto(),
+            tabla.filas()
         );
     }
 
+    private static ReportSectionDTO conTexto(ReportSectionDTO section) {
+        return section.withRows(TablaReporte.filasTexto(section.columns(), section.rowCount()));
+    }
+
     private List<String> normalizeSections(List<String> requestedSections) {
         if (requestedSections == null || requestedSections.isEmpty()) {
             return List.of();
@@ -564,12 +856,147 @@ public class ReportService {
         return normalized;
     }
 
-    private void addSection(List<ReportSectionDTO> collector,
+    private List<String> seccionesIncluidas(List<String> filtro) {
+        List<String> incluidas = new ArrayList<>();
+        for (String id : SECCIONES.keySet()) {
+            if (filtro.isEmpty() || filtro.contains(id)) {
+                incluidas.add(id);
+            }
+        }
+        return List.copyOf(incluidas);
+    }
+
+    private Set<Dependencia> dependencias(List<String> secciones) {
+        Set<Dependencia> deps = new LinkedHashSet<>();
+        for (String id : secciones) {
+            deps.addAll(SECCIONES.getOrDefault(id, Set.of()));
+        }
+        return Set.copyOf(deps);
+    }
+
+    private void addSection(List<SectionTask> collector,
                             List<String> requested,
                             String id,
-                            java.util.function.Supplier<ReportSectionDTO> supplier) {
+                            Supplier<ReportSectionDTO> supplier) {
         if (requested.isEmpty() || requested.contains(id)) {
-            collector.add(supplier.get());
+            collector.add(new SectionTask(List.of(id), () -> List.of(supplier.get())));
+        }
+    }
+
+    private List<ReportSectionDTO> ejecutarSecuencial(List<SectionTask> tareas, Avance avance) {
+        try (PresupuestoConexiones.Permiso permiso = presupuesto.ocupar()) {
+            return readOnlyTx.execute(status -> {
+                List<ReportSectionDTO> resultado = new ArrayList<>();
+                for (SectionTask tarea : tareas) {
+                    resultado.addAll(tarea.medir());
+                    avance.sumar(tarea.ids().size());
+                }
+                return resultado;
+            });
+        }
+    }
+
+    private List<ReportSectionDTO> ejecutarConcurrente(List<SectionTask> tareas, Avance avance) {
+        List<CompletableFuture<List<ReportSectionDTO>>> futuros = new ArrayList<>();
+        try {
+            for (SectionTask tarea : tareas) {
+                futuros.add(CompletableFuture.supplyAsync(() -> {
+                    List<ReportSectionDTO> dtos;
+                    try (PresupuestoConexiones.Permiso permiso = presupuesto.ocupar()) {
+                        dtos = readOnlyTx.execute(status -> tarea.medir());
+                    }
+                    avance.sumar(tarea.ids().size());
+                    return dtos;
+                }, reportExecutor));
+            }
+        } catch (RejectedExecutionException ex) {
+            // Las secciones ya encoladas que aún no empiezan no llegan a correr
+            futuros.forEach(f -> f.cancel(false));
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                "Hay demasiados reportes en curso; intente más tarde");
+        }
+        List<ReportSectionDTO> resultado = new ArrayList<>();
+        try {
+            for (CompletableFuture<List<ReportSectionDTO>> futuro : futuros) {
+                resultado.addAll(futuro.join());
+            }
+        } catch (CompletionException ex) {
+            futuros.forEach(f -> f.cancel(true));
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("No se pudo generar el reporte", ex.getCause());
+        }
+        return resultado;
+    }
+
+    /** Periodo normalizado: por defecto el último mes, con los extremos ordenados. */
+    record Periodo(LocalDate desde, LocalDate hasta) {
+
+        static Periodo de(LocalDate desde, LocalDate hasta) {
+            LocalDate start = desde != null ? desde : LocalDate.now().minusMonths(1);
+            LocalDate end = hasta != null ? hasta : LocalDate.now();
+            return start.isAfter(end) ? new Periodo(end, start) : new Periodo(start, end);
+        }
+    }
+
+    /**
+     * Divide un rango de fechas en meses completos (leídos de los agregados mensuales)
+     * y los tramos sueltos de los extremos (leídos de las tablas base).
+     */
+    private record VentanaMensual(LocalDate desde,
+                                  LocalDate hastaExclusiva,
+                                  LocalDate mesDesde,
+                                  LocalDate mesHasta) {
+
+        static VentanaMensual de(LocalDate desde, LocalDate hastaInclusive) {
+            LocalDate hastaExclusiva = hastaInclusive.plusDays(1);
+            LocalDate mesDesde = desde.getDayOfMonth() == 1 ? desde : desde.withDayOfMonth(1).plusMonths(1);
+            LocalDate mesHasta = hastaExclusiva.withDayOfMonth(1);
+            return new VentanaMensual(desde, hastaExclusiva, mesDesde, mesHasta);
+        }
+
+        boolean tieneMesesCompletos() {
+            return mesDesde.isBefore(mesHasta);
+        }
+
+        void aplicar(Query query, boolean conHora) {
+            LocalDate bordeInicial = tieneMesesCompletos() ? mesDesde : hastaExclusiva;
+            LocalDate bordeFinal = tieneMesesCompletos() ? mesHasta : hastaExclusiva;
+            query.setParameter("mesDesde", mesDesde);
+            query.setParameter("mesHasta", mesHasta);
+            query.setParameter("desde", conHora ? desde.atStartOfDay() : desde);
+            query.setParameter("bordeInicial", conHora ? bordeInicial.atStartOfDay() : bordeInicial);
+            query.setParameter("bordeFinal", conHora ? bordeFinal.atStartOfDay() : bordeFinal);
+            query.setParameter("hasta", conHora ? hastaExclusiva.atStartOfDay() : hastaExclusiva);
+        }
+    }
+
+    /** Cuenta secciones terminadas; puede llamarse desde varios hilos. */
+    private static final class Avance {
+
+        private final int total;
+        private final BiConsumer<Integer, Integer> listener;
+        private final AtomicInteger hechas = new AtomicInteger();
+
+        Avance(int total, BiConsumer<Integer, Integer> listener) {
+            this.total = total;
+            this.listener = listener;
+        }
+
+        void sumar(int secciones) {
+            listener.accept(hechas.addAndGet(secciones), total);
+        }
+    }
+
+    /** Unidad de trabajo: normalmente una sección, o varias si comparten consulta. */
+    private record SectionTask(List<String> ids, Supplier<List<ReportSectionDTO>> supplier) {
+
+        List<ReportSectionDTO> medir() {
+            long inicio = System.nanoTime();
+            List<ReportSectionDTO> dtos = supplier.get();
+            long millis = (System.nanoTime() - inicio) / 1_000_000;
+            return dtos.stream().map(dto -> dto.withDurationMs(millis)).toList();
         }
     }
 
@@ -599,107 +1026,13 @@ public class ReportService {
 
     private String estadoLegible(Object estado) {
         String raw = text(estado);
-        return raw.replace('_', ' ').toUpperCase(LOCALE_ES);
+        return raw.replace('_', ' ').toUpperCase(TablaReporte.LOCALE_ES);
     }
 
     private String formatDate(LocalDate date) {
         if (date == null) {
             return "-";
         }
-        return DATE_FORMAT.format(date);
-    }
-
-    private String formatDateTime(LocalDateTime dateTime) {
-        if (dateTime == null) {
-            return "-";
-        }
-        return DATE_TIME_FORMAT.format(dateTime);
-    }
-
-    private String formatMonth(Object value) {
-        LocalDateTime dateTime = toLocalDateTime(value);
-        if (dateTime == null) {
-            return "-";
-        }
-        return MONTH_FORMAT.format(dateTime);
-    }
-
-    private LocalDate toLocalDate(Object value) {
-        if (value == null) {
-            return null;
-        }
-        if (value instanceof LocalDate ld) {
-            return ld;
-        }
-        if (value instanceof LocalDateTime ldt) {
-            return ldt.toLocalDate();
-        }
-        if (value instanceof java.sql.Date sqlDate) {
-            return sqlDate.toLocalDate();
-        }
-        if (value instanceof java.sql.Timestamp timestamp) {
-            return timestamp.toLocalDateTime().toLocalDate();
-        }
-        try {
-            return LocalDate.parse(value.toString());
-        } catch (DateTimeParseException ex) {
-            return null;
-        }
-    }
-
-    private LocalDateTime toLocalDateTime(Object value) {
-        if (value == null) {
-            return null;
-        }
-        if (value instanceof LocalDateTime ldt) {
-            return ldt;
-        }
-        if (value instanceof java.sql.Timestamp timestamp) {
-            return timestamp.toLocalDateTime();
-        }
-        if (value instanceof LocalDate ld) {
-            return ld.atStartOfDay();
-        }
-        if (value instanceof java.sql.Date sqlDate) {
-            return sqlDate.toLocalDate().atStartOfDay();
-        }
-        if (value instanceof String strValue) {
-            String trimmed = strValue.trim();
-            if (trimmed.isEmpty()) {
-                return null;
-            }
-            try {
-                return LocalDateTime.parse(trimmed);
-            } catch (DateTimeParseException ignored) {
-                String normalized = trimmed.replace(' ', 'T');
-                try {
-                    return LocalDateTime.parse(normalized);
-                } catch (DateTimeParseException ignored2) {
-                    try {
-                        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss[.SSSSSS]");
-                        return LocalDateTime.parse(trimmed, formatter);
-                    } catch (DateTimeParseException ignored3) {
-                        try {
-                            return LocalDate.parse(trimmed).atStartOfDay();
-                        } catch (DateTimeParseException ignored4) {
-                            return null;
-                        }
-                    }
-                }
-            }
-        }
-        try {
-            return LocalDateTime.parse(value.toString());
-        } catch (DateTimeParseException ex) {
-            return null;
-        }
-    }
-
-    private String formatNumber(Object number, int decimals) {
-        if (!(number instanceof Number num)) {
-            return text(number);
-        }
-        String pattern = "%,." + decimals + "f";
-        return String.format(LOCALE_ES, pattern, num.doubleValue());
+        return TablaReporte.DATE_FORMAT.format(date);
     }
 }
@@ -0,0 +1,228 @@
+package com.example.fitware.service;
+
+import com.example.fitware.domain.EstadoEjercicio;
+import com.example.fitware.domain.EstadoSesion;
+import com.example.fitware.domain.Rutina;
+import com.example.fitware.domain.Sesion;
+import com.example.fitware.repository.EjercicioRepository;
+import com.example.fitware.repository.RutinaRepository;
+import com.example.fitware.service.SesionService.PlantillaEjercicio;
+import com.example.fitware.web.dto.AsignacionEjercicioDTO;
+import com.example.fitware.web.dto.DiaAgendaDTO;
+import com.example.fitware.web.dto.GeneracionAgendaDTO;
+import com.example.fitware.web.dto.GeneracionAgendaResultadoDTO;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Genera todas las sesiones de una rutina (duracionSemanas × patrón semanal) para uno o varios
+ * clientes. Cada cliente se crea en su propia transacción con inserciones en lote; los clientes
+ * de un grupo se reparten en el pool acotado {@code agendaExecutor}.
+ */
+@Service
+public class RutinaAgendaService {
+
+    private static final int MAX_CLIENTES = 200;
+
+    private final RutinaRepository rRepo;
+    private final EjercicioRepository eRepo;
+    private final SesionService sesionService;
+    private final ThreadPoolExecutor executor;
+    private final PresupuestoConexiones presupuesto;
+
+    public RutinaAgendaService(RutinaRepository rRepo,
+                               EjercicioRepository eRepo,
+                               SesionService sesionService,
+                               @Qualifier("agendaExecutor") ThreadPoolExecutor executor,
+                               PresupuestoConexiones presupuesto) {
+        this.rRepo = rRepo;
+        this.eRepo = eRepo;
+        this.sesionService = sesionService;
+        this.executor = executor;
+        this.presupuesto = presupuesto;
+    }
+
+    /**
+     * Valida todo antes de escribir nada; después, los errores de un cliente (no existe,
+     * solapes, etc.) quedan en su resultado y no afectan a los demás. Si el pool no admite
+     * a todos los clientes del grupo, la petición entera responde 429 sin generar ninguno.
+     */
+    public GeneracionAgendaResultadoDTO generar(Integer rutinaId, GeneracionAgendaDTO pedido) {
+        if (pedido == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Los datos de la generación son obligatorios");
+        }
+        Rutina rutina = rRepo.findById(rutinaId)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Rutina no encontrada"));
+        Integer semanas = rutina.getDuracionSemanas();
+        if (semanas == null || semanas <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "La rutina no tiene una duración en semanas válida");
+        }
+        if (pedido.fechaInicio() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "La fecha de inicio es obligatoria");
+        }
+
+        Set<String> clientes = clientes(pedido.clientes());
+        Map<DayOfWeek, DiaAgendaDTO> semana = semana(pedido.semana());
+        List<PlantillaEjercicio> ejercicios = ejercicios(pedido.ejercicios());
+        boolean permitirSolape = Boolean.TRUE.equals(pedido.permitirSolape());
+
+        LocalDate desde = pedido.fechaInicio();
+        LocalDate hasta = desde.plusWeeks(semanas); // exclusivo
+        List<Sesion> plantilla = sesiones(desde, hasta, semana);
+
+        List<CompletableFuture<GeneracionAgendaResultadoDTO.Cliente>> tareas = new ArrayList<>(clientes.size());
+        // Solo este servicio encola en agendaExecutor: con el monitor, la cola no puede llenarse
+        // entre la comprobación y los envíos, así que el grupo entra completo o no entra
+        synchronized (executor) {
+            if (executor.getQueue().remainingCapacity() < clientes.size()) {
+                throw demasiadasGeneraciones();
+            }
+            try {
+                for (String cedula : clientes) {
+                    tareas.add(CompletableFuture.supplyAsync(
+                        () -> generarCliente(cedula, plantilla, ejercicios, permitirSolape), executor));
+                }
+            } catch (RejectedExecutionException ex) {
+                // Solo si el pool se está apagando: las tareas canceladas antes de empezar no corren
+                tareas.forEach(t -> t.cancel(false));
+                throw demasiadasGeneraciones();
+            }
+        }
+        List<GeneracionAgendaResultadoDTO.Cliente> resultados = tareas.stream()
+            .map(CompletableFuture::join)
+            .toList();
+        return new GeneracionAgendaResultadoDTO(rutinaId, desde, hasta.minusDays(1), plantilla.size(), resultados);
+    }
+
+    private static ResponseStatusException demasiadasGeneraciones() {
+        return new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+            "Hay demasiadas generaciones en curso; intente más tarde");
+    }
+
+    private GeneracionAgendaResultadoDTO.Cliente generarCliente(String cedula,
+                                                               List<Sesion> plantilla,
+                                                               List<PlantillaEjercicio> ejercicios,
+                                                               boolean permitirSolape) {
+        // El hilo ya está acotado por agendaExecutor: espera su permiso en lugar de fallar
+        try (PresupuestoConexiones.Permiso permiso = presupuesto.ocuparEsperando()) {
+            // crearSesiones solo lee la plantilla: cada transacción persiste entidades propias
+            List<Sesion> creadas = sesionService.crearSesionesConEjercicios(cedula, plantilla, ejercicios, permitirSolape);
+            return new GeneracionAgendaResultadoDTO.Cliente(
+                cedula, creadas.size(), creadas.size() * ejercicios.size(), null);
+        } catch (ResponseStatusException ex) {
+            return new GeneracionAgendaResultadoDTO.Cliente(cedula, 0, 0, ex.getReason());
+        } catch (RuntimeException ex) {
+            return new GeneracionAgendaResultadoDTO.Cliente(cedula, 0, 0, ex.getMessage());
+        }
+    }
+
+    private static Set<String> clientes(List<String> cedulas) {
+        if (cedulas == null || cedulas.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Debe indicar al menos un cliente");
+        }
+        Set<String> resultado = new LinkedHashSet<>();
+        for (String cedula : cedulas) {
+            if (cedula == null || cedula.isBlank()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "La cédula es obligatoria");
+            }
+            resultado.add(cedula.trim());
+        }
+        if (resultado.size() > MAX_CLIENTES) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Máximo " + MAX_CLIENTES + " clientes por generación");
+        }
+        return resultado;
+    }
+
+    private static Map<DayOfWeek, DiaAgendaDTO> semana(List<DiaAgendaDTO> dias) {
+        if (dias == null || dias.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Debe indicar al menos un día de la semana");
+        }
+        Map<DayOfWeek, DiaAgendaDTO> resultado = new EnumMap<>(DayOfWeek.class);
+        for (DiaAgendaDTO dia : dias) {
+            if (dia == null || dia.dia() == null || dia.hora() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cada día del patrón necesita día y hora");
+            }
+            if (dia.duracionMinutos() != null && dia.duracionMinutos() <= 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "La duración debe ser mayor a cero");
+            }
+            if (resultado.put(dia.dia(), dia) != null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El día " + dia.dia() + " está repetido en el patrón");
+            }
+        }
+        return resultado;
+    }
+
+    private List<PlantillaEjercicio> ejercicios(List<AsignacionEjercicioDTO> items) {
+        if (items == null || items.isEmpty()) {
+            return List.of();
+        }
+        Set<Integer> ids = new HashSet<>();
+        List<PlantillaEjercicio> resultado = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            AsignacionEjercicioDTO item = items.get(i);
+            String prefijo = "Ejercicio #" + (i + 1) + ": ";
+            if (item == null || item.ejercicioId() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, prefijo + "el ejercicio es obligatorio");
+            }
+            if (!ids.add(item.ejercicioId())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, prefijo + "está repetido");
+            }
+            if (item.repeticiones() == null || item.repeticiones() <= 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, prefijo + "las repeticiones deben ser mayores a cero");
+            }
+            if (item.series() == null || item.series() <= 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, prefijo + "las series deben ser mayores a cero");
+            }
+            EstadoEjercicio estado = item.estado() == null || item.estado().isBlank()
+                ? EstadoEjercicio.PENDIENTE
+                : SesionService.estadoEjercicio(item.estado());
+            resultado.add(new PlantillaEjercicio(item.ejercicioId(), item.repeticiones(), item.series(), estado));
+        }
+        Set<Integer> existentes = new HashSet<>();
+        eRepo.findAllById(ids).forEach(e -> existentes.add(e.getId()));
+        for (Integer id : ids) {
+            if (!existentes.contains(id)) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Ejercicio no encontrado: " + id);
+            }
+        }
+        return resultado;
+    }
+
+    /** Una sesión pendiente por cada día del patrón en [desde, hasta). */
+    private static List<Sesion> sesiones(LocalDate desde, LocalDate hasta, Map<DayOfWeek, DiaAgendaDTO> semana) {
+        List<Sesion> resultado = new ArrayList<>();
+        for (LocalDate fecha = desde; fecha.isBefore(hasta); fecha = fecha.plusDays(1)) {
+            DiaAgendaDTO dia = semana.get(fecha.getDayOfWeek());
+            if (dia == null) {
+                continue;
+            }
+            Duration duracion = dia.duracionMinutos() != null
+                ? Duration.ofMinutes(dia.duracionMinutos())
+                : AgendaSesiones.DURACION_POR_DEFECTO;
+            LocalDateTime inicio = fecha.atTime(dia.hora());
+            Sesion sesion = new Sesion();
+            sesion.setEstado(EstadoSesion.PENDIENTE);
+            sesion.setFechaInicio(inicio);
+            sesion.setFechaFin(inicio.plus(duracion));
+            resultado.add(sesion);
+        }
+        return resultado;
+    }
+}
@@ -8,6 +8,8 @@ import com.example.fitware.repository.EntrenadorRepository;
 import com.example.fitware.repository.PlanAlimentacionRepository;
 import com.example.fitware.repository.PlanAlimentosRepository;
 import com.example.fitware.repository.RutinaRepository;
+import com.example.fitware.service.ReportDataChangedEvent.Tabla;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -25,24 +27,29 @@ public class RutinaPlanService {
     private final PlanAlimentosRepository paRepo;
     private final EntrenadorRepository eRepo;
     private final AlimentoRepository aRepo;
+    private final ApplicationEventPublisher events;
 
     public RutinaPlanService(RutinaRepository r,
                              PlanAlimentacionRepository p,
                              PlanAlimentosRepository pa,
                              EntrenadorRepository e,
-                             AlimentoRepository a) {
+                             AlimentoRepository a,
+                             ApplicationEventPublisher events) {
         this.rRepo = r;
         this.pRepo = p;
         this.paRepo = pa;
         this.eRepo = e;
         this.aRepo = a;
+        this.events = events;
     }
 
     public Rutina crearRutina(String entrenadorCedula, Rutina r) {
         Rutina rutina = r != null ? r : new Rutina();
         rutina.setId(null);
         rutina.setEntrenador(obtenerEntrenador(entrenadorCedula));
-        return rRepo.save(rutina);
+        Rutina guardada = rRepo.save(rutina);
+        events.publishEvent(ReportDataChangedEvent.todo(Tabla.RUTINA));
+        return guardada;
     }
 
     @Transactional(readOnly = true)
@@ -77,12 +84,15 @@ public class RutinaPlanService {
                 db.setDuracionSemanas(data.getDuracionSemanas());
             }
         }
-        return rRepo.save(db);
+        Rutina guardada = rRepo.save(db);
+        events.publishEvent(ReportDataChangedEvent.todo(Tabla.RUTINA));
+        return guardada;
     }
 
     public void eliminarRutina(Integer id) {
         Rutina db = obtenerRutina(id);
         rRepo.delete(db);
+        events.publishEvent(ReportDataChangedEvent.todo(Tabla.RUTINA));
     }
 
     public PlanAlimentacion crearPlan(Integer rutinaId, PlanAlimentacion p) {
@@ -2,48 +2,106 @@ package com.example.fitware.service;
 
 import com.example.fitware.domain.Cliente;
 import com.example.fitware.domain.Ejercicio;
+import com.example.fitware.domain.EstadoEjercicio;
+import com.example.fitware.domain.EstadoSesion;
 import com.example.fitware.domain.Sesion;
 import com.example.fitware.domain.SesionEjercicios;
 import com.example.fitware.repository.ClienteRepository;
 import com.example.fitware.repository.EjercicioRepository;
 import com.example.fitware.repository.SesionEjerciciosRepository;
 import com.example.fitware.repository.SesionRepository;
+import com.example.fitware.service.ArbolIntervalos.Intervalo;
+import com.example.fitware.service.ReportDataChangedEvent.Tabla;
+import com.example.fitware.service.ReportRollupService.HuellaSesion;
+import com.example.fitware.web.dto.AsignacionEjercicioDTO;
+import com.example.fitware.web.dto.AsignacionResultadoDTO;
+import com.example.fitware.web.dto.ConflictoSesionDTO;
+import com.example.fitware.web.dto.SesionDetalleDTO;
+import com.example.fitware.web.dto.SesionEjercicioDetalleDTO;
+import com.example.fitware.web.dto.SesionListadoDTO;
+import com.example.fitware.web.dto.SesionPaginaDTO;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
 public class SesionService {
 
-    // Estados EXACTOS que tu BD acepta hoy (no tocamos la BD)
-    // Si tu CHECK permite más, añádelos aquí.
-    private static final Set<String> ESTADOS_BD = Set.of(
-        "Completada", "Pendiente"
-    );
+    private static final int MAX_SESIONES_POR_LOTE = 1_000;
+    private static final int MAX_EJERCICIOS_POR_LOTE = 200;
+    private static final int MAX_POR_PAGINA = 200;
+    private static final int FILAS_POR_LECTURA = 500;
+    private static final int DIAS_VENTANA_CONFLICTOS = 30;
+    private static final int MAX_DIAS_VENTANA_CONFLICTOS = 366;
+
+    private static final String SELECT_LISTADO = """
+        SELECT s.id, s.cliente_cedula, s.estado, s.fecha_inicio, s.fecha_fin, s.gasto_calorico,
+               s.total_ejercicios, s.total_series, s.total_repeticiones, s.ejercicios_completados
+        FROM sesion s""";
 
     private final SesionRepository sRepo;
     private final SesionEjerciciosRepository seRepo;
     private final ClienteRepository cRepo;
     private final EjercicioRepository eRepo;
+    private final ReportRollupService rollups;
+    private final ApplicationEventPublisher events;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final AgendaSesiones agenda;
+    private final SesionTotalesService totales;
 
     public SesionService(SesionRepository s,
                          SesionEjerciciosRepository se,
                          ClienteRepository c,
-                         EjercicioRepository e) {
+                         EjercicioRepository e,
+                         ReportRollupService rollups,
+                         ApplicationEventPublisher events,
+                         EntityManager entityManager,
+                         ObjectMapper objectMapper,
+                         AgendaSesiones agenda,
+                         SesionTotalesService totales) {
         this.sRepo = s;
         this.seRepo = se;
         this.cRepo = c;
         this.eRepo = e;
+        this.rollups = rollups;
+        this.events = events;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.agenda = agenda;
+        this.totales = totales;
     }
 
-    public Sesion crearSesion(String clienteCedula, Sesion s) {
+    /**
+     * Crea la sesión; si se solapa con otra sesión próxima del cliente responde 409,
+     * salvo que {@code permitirSolape} sea true.
+     */
+    public Sesion crearSesion(String clienteCedula, Sesion s, boolean permitirSolape) {
         if (s == null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Los datos de la sesión son obligatorios");
         }
@@ -51,7 +109,66 @@ public class SesionService {
         Sesion nueva = new Sesion();
         nueva.setCliente(cliente);
         copiarDatosSesion(nueva, s); // normaliza y valida
-        return sRepo.save(nueva);
+        if (!permitirSolape) {
+            agenda.bloquearCliente(cliente.getUsuarioCedula());
+            verificarSolapes(cliente.getUsuarioCedula(), nueva, null);
+        }
+        Sesion guardada = sRepo.save(nueva);
+        rollups.registrarSesion(guardada);
+        agenda.registrar(guardada, null);
+        events.publishEvent(ReportDataChangedEvent.de(Tabla.SESION, guardada.getFechaInicio()));
+        return guardada;
+    }
+
+    /**
+     * Alta masiva para un cliente en una sola transacción. Los ids salen de la secuencia en
+     * bloques, así que los INSERT viajan en lotes JDBC al confirmar.
+     */
+    public List<Sesion> crearSesiones(String clienteCedula, List<Sesion> sesiones, boolean permitirSolape) {
+        if (sesiones == null || sesiones.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Debe enviar al menos una sesión");
+        }
+        if (sesiones.size() > MAX_SESIONES_POR_LOTE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "Máximo " + MAX_SESIONES_POR_LOTE + " sesiones por lote");
+        }
+        Cliente cliente = obtenerCliente(clienteCedula);
+        if (!permitirSolape) {
+            agenda.bloquearCliente(cliente.getUsuarioCedula());
+        }
+        List<Sesion> nuevas = new ArrayList<>(sesiones.size());
+        // Solapes dentro del mismo lote: los ids negativos identifican la posición en la lista
+        ArbolIntervalos delLote = new ArbolIntervalos();
+        for (int i = 0; i < sesiones.size(); i++) {
+            Sesion s = sesiones.get(i);
+            if (s == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Sesión #" + (i + 1) + ": los datos son obligatorios");
+            }
+            Sesion nueva = new Sesion();
+            nueva.setCliente(cliente);
+            try {
+                copiarDatosSesion(nueva, s);
+                if (!permitirSolape) {
+                    verificarSolapes(cliente.getUsuarioCedula(), nueva, null);
+                    LocalDateTime fin = AgendaSesiones.fin(nueva.getFechaInicio(), nueva.getFechaFin());
+                    List<Intervalo> enLote = delLote.solapes(nueva.getFechaInicio(), fin);
+                    if (!enLote.isEmpty()) {
+                        throw new ResponseStatusException(HttpStatus.CONFLICT,
+                            "se solapa con la sesión #" + (-enLote.get(0).id()) + " del lote");
+                    }
+                    delLote.insertar(new Intervalo(-(i + 1), nueva.getFechaInicio(), fin));
+                }
+            } catch (ResponseStatusException ex) {
+                throw new ResponseStatusException(ex.getStatusCode(), "Sesión #" + (i + 1) + ": " + ex.getReason());
+            }
+            nuevas.add(nueva);
+        }
+        List<Sesion> guardadas = sRepo.saveAll(nuevas);
+        rollups.registrarSesiones(guardadas);
+        guardadas.forEach(g -> agenda.registrar(g, null));
+        events.publishEvent(ReportDataChangedEvent.de(Tabla.SESION,
+            guardadas.stream().map(Sesion::getFechaInicio).toArray(LocalDateTime[]::new)));
+        return guardadas;
     }
 
     @Transactional(readOnly = true)
@@ -64,17 +181,266 @@ public class SesionService {
         return sRepo.findByCliente_Usuario_CedulaOrderByFechaInicioDesc(clienteCedula);
     }
 
+    /**
+     * Alta masiva de sesiones con la misma lista de ejercicios en cada una, en una sola
+     * transacción: sesiones y asignaciones viajan en lotes JDBC y los totales se recalculan
+     * con un único UPDATE.
+     */
+    public List<Sesion> crearSesionesConEjercicios(String clienteCedula,
+                                                   List<Sesion> sesiones,
+                                                   List<PlantillaEjercicio> ejercicios,
+                                                   boolean permitirSolape) {
+        List<Sesion> creadas = crearSesiones(clienteCedula, sesiones, permitirSolape);
+        if (ejercicios == null || ejercicios.isEmpty()) {
+            return creadas;
+        }
+        List<SesionEjercicios> asignaciones = new ArrayList<>(creadas.size() * ejercicios.size());
+        for (Sesion sesion : creadas) {
+            for (PlantillaEjercicio plantilla : ejercicios) {
+                SesionEjercicios se = new SesionEjercicios();
+                se.setSesion(sesion);
+                se.setEjercicio(eRepo.getReferenceById(plantilla.ejercicioId()));
+                se.setRepeticiones(plantilla.repeticiones());
+                se.setSeries(plantilla.series());
+                se.setEstado(plantilla.estado());
+                asignaciones.add(se);
+            }
+        }
+        seRepo.saveAll(asignaciones);
+        totales.refrescar(creadas.stream().map(Sesion::getId).toList());
+        return creadas;
+    }
+
+    /** Normaliza y valida los filtros del listado antes de empezar a responder. */
+    @Transactional(readOnly = true)
+    public FiltroSesiones filtro(String clienteCedula, LocalDate desde, LocalDate hasta, String estado) {
+        String cedula = safe(clienteCedula);
+        if (!cedula.isBlank()) {
+            verificarCliente(cedula);
+        }
+        if (desde != null && hasta != null && hasta.isBefore(desde)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El rango de fechas es inválido");
+        }
+        EstadoSesion estadoSesion = estadoSesion(estado);
+        return new FiltroSesiones(cedula.isBlank() ? null : cedula, desde, hasta,
+            estadoSesion == null ? null : estadoSesion.literal());
+    }
+
+    /**
+     * Página por cursor (keyset) ordenada por (fecha_inicio DESC, id DESC): cada página es un
+     * rango del índice a partir de la última fila vista, sin OFFSET. Las sesiones sin fecha de
+     * inicio no tienen posición en ese orden y no se listan aquí.
+     */
+    @Transactional(readOnly = true)
+    public SesionPaginaDTO paginaSesiones(FiltroSesiones filtro, String cursor, int limite) {
+        if (limite < 1 || limite > MAX_POR_PAGINA) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El límite debe estar entre 1 y " + MAX_POR_PAGINA);
+        }
+        Cursor desdeCursor = Cursor.decodificar(cursor);
+        StringBuilder sql = new StringBuilder(SELECT_LISTADO).append(" WHERE s.fecha_inicio IS NOT NULL");
+        Map<String, Object> parametros = aplicarFiltro(filtro, sql);
+        if (desdeCursor != null) {
+            sql.append(" AND (s.fecha_inicio, s.id) < (:cursorFecha, :cursorId)");
+            parametros.put("cursorFecha", desdeCursor.fechaInicio());
+            parametros.put("cursorId", desdeCursor.id());
+        }
+        sql.append(" ORDER BY s.fecha_inicio DESC, s.id DESC LIMIT :limite");
+        parametros.put("limite", limite + 1);
+
+        Query query = entityManager.createNativeQuery(sql.toString());
+        parametros.forEach(query::setParameter);
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = query.getResultList();
+
+        List<SesionListadoDTO> items = new ArrayList<>(Math.min(rows.size(), limite));
+        for (int i = 0; i < rows.size() && i < limite; i++) {
+            items.add(filaListado(rows.get(i)));
+        }
+        String siguiente = null;
+        if (rows.size() > limite) {
+            SesionListadoDTO ultima = items.get(items.size() - 1);
+            siguiente = new Cursor(ultima.fechaInicio(), ultima.id()).codificar();
+        }
+        return new SesionPaginaDTO(items, siguiente);
+    }
+
+    /**
+     * Escribe el listado completo como arreglo JSON leyendo de un cursor del servidor;
+     * cada fila se serializa y se suelta, así que la memoria no crece con la tabla.
+     */
+    @Transactional(readOnly = true)
+    public void escribirSesiones(FiltroSesiones filtro, OutputStream out) throws IOException {
+        StringBuilder sql = new StringBuilder(SELECT_LISTADO).append(" WHERE 1 = 1");
+        Map<String, Object> parametros = aplicarFiltro(filtro, sql);
+        sql.append(" ORDER BY s.fecha_inicio DESC, s.id DESC");
+
+        Query query = entityManager.createNativeQuery(sql.toString());
+        parametros.forEach(query::setParameter);
+        query.setHint("org.hibernate.fetchSize", FILAS_POR_LECTURA);
+
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out);
+             @SuppressWarnings("unchecked") Stream<Object[]> filas = query.getResultStream()) {
+            json.writeStartArray();
+            int escritas = 0;
+            Iterator<Object[]> it = filas.iterator();
+            while (it.hasNext()) {
+                json.writeObject(filaListado(it.next()));
+                if (++escritas % FILAS_POR_LECTURA == 0) {
+                    json.flush();
+                }
+            }
+            json.writeEndArray();
+        }
+    }
+
+    /**
+     * Solapes entre sesiones del mismo cliente que caen en [desde, hasta], en una sola
+     * pasada: las filas llegan ordenadas por cliente e inicio y se mantiene el conjunto de
+     * sesiones aún abiertas (ordenado por fin), así que cada fila sólo se compara con ésas.
+     * Entran también las sesiones que empezaron antes y siguen abiertas al inicio de la ventana.
+     */
+    @Transactional(readOnly = true)
+    public List<ConflictoSesionDTO> conflictos(LocalDate desde, LocalDate hasta, String clienteCedula) {
+        LocalDate inicioVentana = desde != null ? desde : LocalDate.now();
+        LocalDate finVentana = hasta != null ? hasta : inicioVentana.plusDays(DIAS_VENTANA_CONFLICTOS);
+        if (finVentana.isBefore(inicioVentana)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El rango de fechas es inválido");
+        }
+        if (finVentana.isAfter(inicioVentana.plusDays(MAX_DIAS_VENTANA_CONFLICTOS))) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "La ventana no puede superar " + MAX_DIAS_VENTANA_CONFLICTOS + " días");
+        }
+        String cedula = safe(clienteCedula);
+        StringBuilder sql = new StringBuilder("""
+            SELECT s.cliente_cedula, s.id, s.fecha_inicio, s.fecha_fin
+            FROM sesion s
+            WHERE s.fecha_inicio < :hasta
+              AND (s.fecha_fin > :desde OR s.fecha_inicio > :desdeMenosDuracion)""");
+        if (!cedula.isBlank()) {
+            verificarCliente(cedula);
+            sql.append(" AND s.cliente_cedula = :cedula");
+        }
+        sql.append(" ORDER BY s.cliente_cedula, s.fecha_inicio, s.id");
+
+        LocalDateTime desdeVentana = inicioVentana.atStartOfDay();
+        Query query = entityManager.createNativeQuery(sql.toString())
+            .setParameter("desde", desdeVentana)
+            .setParameter("desdeMenosDuracion", desdeVentana.minus(AgendaSesiones.DURACION_POR_DEFECTO))
+            .setParameter("hasta", finVentana.plusDays(1).atStartOfDay());
+        if (!cedula.isBlank()) {
+            query.setParameter("cedula", cedula);
+        }
+        query.setHint("org.hibernate.fetchSize", FILAS_POR_LECTURA);
+
+        List<ConflictoSesionDTO> conflictos = new ArrayList<>();
+        PriorityQueue<Intervalo> abiertas = new PriorityQueue<>(Comparator.comparing(Intervalo::fin));
+        String clienteActual = null;
+        try (@SuppressWarnings("unchecked") Stream<Object[]> filas = query.getResultStream()) {
+            Iterator<Object[]> it = filas.iterator();
+            while (it.hasNext()) {
+                Object[] row = it.next();
+                String cliente = (String) row[0];
+                LocalDateTime inicio = fechaHora(row[2]);
+                Intervalo actual = new Intervalo(((Number) row[1]).intValue(), inicio,
+                    AgendaSesiones.fin(inicio, fechaHora(row[3])));
+                if (!cliente.equals(clienteActual)) {
+                    abiertas.clear();
+                    clienteActual = cliente;
+                }
+                while (!abiertas.isEmpty() && !abiertas.peek().fin().isAfter(inicio)) {
+                    abiertas.poll();
+                }
+                // El SQL admite algunas que ya terminaron: sin ellas en abiertas, todo par
+                // reportado se solapa dentro de la ventana
+                if (!actual.fin().isAfter(desdeVentana)) {
+                    continue;
+                }
+                for (Intervalo otra : abiertas) {
+                    conflictos.add(new ConflictoSesionDTO(cliente,
+                        otra.id(), otra.inicio(), otra.fin(),
+                        actual.id(), actual.inicio(), actual.fin()));
+                }
+                abiertas.add(actual);
+            }
+        }
+        return conflictos;
+    }
+
     @Transactional(readOnly = true)
     public Sesion obtenerSesion(Integer id) {
         return sRepo.findById(id)
             .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Sesión no encontrada"));
     }
 
-    public Sesion actualizarSesion(Integer id, String clienteCedula, Sesion data) {
+    /**
+     * Detalle de la sesión en una sola consulta: sesión, usuario del cliente y asignaciones
+     * con su ejercicio (LEFT JOIN, así que una sesión sin ejercicios devuelve una fila).
+     */
+    @Transactional(readOnly = true)
+    public SesionDetalleDTO detalleSesion(Integer id) {
+        String sql = """
+            SELECT s.id, s.cliente_cedula, u.nombre, u.apellidos, s.estado,
+                   s.fecha_inicio, s.fecha_fin, s.gasto_calorico,
+                   s.total_ejercicios, s.total_series, s.total_repeticiones, s.ejercicios_completados,
+                   se.id, e.id, e.nombre, e.tipo, e.equipamiento, se.repeticiones, se.series, se.estado
+            FROM sesion s
+            JOIN usuario u ON u.cedula = s.cliente_cedula
+            LEFT JOIN sesion_ejercicios se ON se.sesion_id = s.id
+            LEFT JOIN ejercicio e ON e.id = se.ejercicio_id
+            WHERE s.id = :id
+            ORDER BY se.id
+        """;
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager.createNativeQuery(sql)
+            .setParameter("id", id)
+            .getResultList();
+        if (rows.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Sesión no encontrada");
+        }
+
+        List<SesionEjercicioDetalleDTO> ejercicios = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            if (row[12] == null) {
+                continue;
+            }
+            ejercicios.add(new SesionEjercicioDetalleDTO(
+                ((Number) row[12]).intValue(),
+                id,
+                row[13] == null ? null : ((Number) row[13]).intValue(),
+                (String) row[14],
+                (String) row[15],
+                (String) row[16],
+                row[17] == null ? null : ((Number) row[17]).intValue(),
+                row[18] == null ? null : ((Number) row[18]).intValue(),
+                (String) row[19]
+            ));
+        }
+        Object[] s = rows.get(0);
+        String nombre = ((s[2] == null ? "" : s[2]) + " " + (s[3] == null ? "" : s[3])).trim();
+        return new SesionDetalleDTO(
+            ((Number) s[0]).intValue(),
+            (String) s[1],
+            nombre,
+            (String) s[4],
+            fechaHora(s[5]),
+            fechaHora(s[6]),
+            s[7] == null ? null : ((Number) s[7]).doubleValue(),
+            entero(s[8]),
+            entero(s[9]),
+            entero(s[10]),
+            entero(s[11]),
+            ejercicios
+        );
+    }
+
+    public Sesion actualizarSesion(Integer id, String clienteCedula, Sesion data, boolean permitirSolape) {
         if (data == null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Los datos de la sesión son obligatorios");
         }
         Sesion db = obtenerSesion(id);
+        HuellaSesion antes = rollups.huella(db);
+        LocalDateTime inicioAnterior = db.getFechaInicio();
+        String cedulaAnterior = db.getClienteCedula();
 
         if (clienteCedula != null && !clienteCedula.isBlank()
             && !Objects.equals(db.getCliente().getUsuarioCedula(), clienteCedula)) {
@@ -82,7 +448,15 @@ public class SesionService {
         }
 
         copiarDatosSesion(db, data); // normaliza y valida
-        return sRepo.save(db);
+        if (!permitirSolape) {
+            agenda.bloquearCliente(db.getClienteCedula());
+            verificarSolapes(db.getClienteCedula(), db, db.getId());
+        }
+        Sesion guardada = sRepo.save(db);
+        rollups.moverSesion(antes, rollups.huella(guardada));
+        agenda.registrar(guardada, cedulaAnterior);
+        events.publishEvent(ReportDataChangedEvent.de(Tabla.SESION, inicioAnterior, guardada.getFechaInicio()));
+        return guardada;
     }
 
     public void eliminarSesion(Integer id) {
@@ -90,7 +464,10 @@ public class SesionService {
         if (db.getId() != null) {
             seRepo.deleteBySesion_Id(db.getId()); // borra asignaciones de ejercicios
         }
+        rollups.retirarSesion(db);
         sRepo.delete(db);
+        agenda.retirar(db.getClienteCedula(), db.getId());
+        events.publishEvent(ReportDataChangedEvent.de(Tabla.SESION, db.getFechaInicio()));
     }
 
     public SesionEjercicios asignarEjercicio(Integer sesionId,
@@ -109,7 +486,7 @@ public class SesionService {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Las series deben ser mayores a cero");
         }
 
-        String estadoNormalizado = normalizarEstadoSesionEjercicio(estado); // 'Completado' | 'Pendiente'
+        EstadoEjercicio estadoNormalizado = estadoEjercicio(estado);
 
         SesionEjercicios se = new SesionEjercicios();
         se.setSesion(s);
@@ -117,7 +494,98 @@ public class SesionService {
         se.setRepeticiones(reps);
         se.setSeries(series);
         se.setEstado(estadoNormalizado);
-        return seRepo.save(se);
+        SesionEjercicios guardada = seRepo.save(se);
+        totales.refrescar(s.getId());
+        return guardada;
+    }
+
+    /**
+     * Asigna varios ejercicios a una sesión. Los ejercicios y las asignaciones existentes se
+     * validan con una consulta IN cada uno y las altas se insertan en lote; los duplicados
+     * y los ítems inválidos se informan por ítem sin abortar el resto.
+     */
+    public List<AsignacionResultadoDTO> asignarEjercicios(Integer sesionId, List<AsignacionEjercicioDTO> items) {
+        if (items == null || items.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Debe enviar al menos un ejercicio");
+        }
+        if (items.size() > MAX_EJERCICIOS_POR_LOTE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "Máximo " + MAX_EJERCICIOS_POR_LOTE + " ejercicios por solicitud");
+        }
+        Sesion sesion = obtenerSesion(sesionId);
+
+        Set<Integer> ids = new HashSet<>();
+        for (AsignacionEjercicioDTO item : items) {
+            if (item != null && item.ejercicioId() != null) {
+                ids.add(item.ejercicioId());
+            }
+        }
+        Map<Integer, Ejercicio> ejercicios = new HashMap<>();
+        Set<Integer> asignados = new HashSet<>();
+        if (!ids.isEmpty()) {
+            eRepo.findAllById(ids).forEach(e -> ejercicios.put(e.getId(), e));
+            asignados.addAll(seRepo.findEjercicioIdsAsignados(sesionId, ids));
+        }
+
+        List<AsignacionResultadoDTO> resultados = new ArrayList<>(items.size());
+        List<SesionEjercicios> nuevas = new ArrayList<>();
+        List<Integer> indicesNuevas = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            AsignacionEjercicioDTO item = items.get(i);
+            Integer ejercicioId = item == null ? null : item.ejercicioId();
+            if (ejercicioId == null) {
+                resultados.add(new AsignacionResultadoDTO(i, null, "INVALIDO", null, "El ejercicio es obligatorio"));
+                continue;
+            }
+            Ejercicio ejercicio = ejercicios.get(ejercicioId);
+            if (ejercicio == null) {
+                resultados.add(new AsignacionResultadoDTO(i, ejercicioId, "EJERCICIO_NO_ENCONTRADO", null, "Ejercicio no encontrado"));
+                continue;
+            }
+            String error = null;
+            EstadoEjercicio estado = null;
+            if (item.repeticiones() == null || item.repeticiones() <= 0) {
+                error = "Las repeticiones deben ser mayores a cero";
+            } else if (item.series() == null || item.series() <= 0) {
+                error = "Las series deben ser mayores a cero";
+            } else {
+                try {
+                    estado = estadoEjercicio(item.estado());
+                } catch (ResponseStatusException ex) {
+                    error = ex.getReason();
+                }
+            }
+            if (error != null) {
+                resultados.add(new AsignacionResultadoDTO(i, ejercicioId, "INVALIDO", null, error));
+                continue;
+            }
+            // add() también descarta el mismo ejercicio repetido dentro de la solicitud
+            if (!asignados.add(ejercicioId)) {
+                resultados.add(new AsignacionResultadoDTO(i, ejercicioId, "DUPLICADO", null,
+                    "El ejercicio ya está asignado a la sesión"));
+                continue;
+            }
+            SesionEjercicios se = new SesionEjercicios();
+            se.setSesion(sesion);
+            se.setEjercicio(ejercicio);
+            se.setRepeticiones(item.repeticiones());
+            se.setSeries(item.series());
+            se.setEstado(estado);
+            nuevas.add(se);
+            indicesNuevas.add(i);
+            resultados.add(null); // se completa con el id tras guardar
+        }
+
+        List<SesionEjercicios> guardadas = seRepo.saveAll(nuevas);
+        if (!guardadas.isEmpty()) {
+            totales.refrescar(sesion.getId());
+        }
+        for (int k = 0; k < guardadas.size(); k++) {
+            int indice = indicesNuevas.get(k);
+            SesionEjercicios se = guardadas.get(k);
+            resultados.set(indice, new AsignacionResultadoDTO(indice, se.getEjercicioId(), "CREADO", se.getId(), null));
+        }
+        return resultados;
     }
 
     @Transactional(readOnly = true)
@@ -163,29 +631,43 @@ public class SesionService {
         }
 
         if (estado != null && !estado.isBlank()) {
-            db.setEstado(normalizarEstadoSesionEjercicio(estado));
+            db.setEstado(estadoEjercicio(estado));
         }
 
-        return seRepo.save(db);
+        SesionEjercicios guardada = seRepo.save(db);
+        totales.refrescar(db.getSesionId());
+        return guardada;
     }
 
     public void eliminarSesionEjercicio(Integer id) {
         SesionEjercicios db = obtenerSesionEjercicio(id);
         seRepo.delete(db);
+        totales.refrescar(db.getSesionId());
     }
 
     // ----------------- helpers -----------------
 
     private void copiarDatosSesion(Sesion destino, Sesion origen) {
         validarSesion(origen);
-        destino.setEstado(normalizarEstadoSesion(origen.getEstado())); // literal EXACTO que acepta la BD
+        destino.setEstado(origen.getEstado());
         destino.setFechaInicio(origen.getFechaInicio());
         destino.setFechaFin(origen.getFechaFin());
         destino.setGastoCalorico(origen.getGastoCalorico());
     }
 
+    /** Requiere el cliente bloqueado con {@link AgendaSesiones#bloquearCliente} en esta transacción. */
+    private void verificarSolapes(String cedula, Sesion sesion, Integer excluirId) {
+        List<Intervalo> solapes = agenda.solapes(cedula, sesion.getFechaInicio(), sesion.getFechaFin(), excluirId);
+        if (!solapes.isEmpty()) {
+            Intervalo otra = solapes.get(0);
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                "La sesión se solapa con la sesión #" + otra.id() + " ("
+                    + otra.inicio() + " a " + otra.fin() + ")");
+        }
+    }
+
     private void validarSesion(Sesion sesion) {
-        if (sesion.getEstado() == null || sesion.getEstado().isBlank()) {
+        if (sesion.getEstado() == null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El estado de la sesión es obligatorio");
         }
         LocalDateTime inicio = sesion.getFechaInicio();
@@ -199,12 +681,6 @@ public class SesionService {
         if (sesion.getGastoCalorico() != null && sesion.getGastoCalorico() < 0) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El gasto calórico no puede ser negativo");
         }
-
-        String literalBD = normalizarEstadoSesion(sesion.getEstado());
-        if (!ESTADOS_BD.contains(literalBD)) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
-                "Estado inválido. Use uno de: " + String.join(", ", ESTADOS_BD));
-        }
     }
 
     private Cliente obtenerCliente(String cedula) {
@@ -220,58 +696,108 @@ public class SesionService {
         obtenerCliente(cedula);
     }
 
-    /**
-     * Normaliza cualquier entrada a los literales EXACTOS que tu BD acepta hoy.
-     * Aquí mapeamos variantes comunes:
-     *   - cualquier “completa*” -> "Completada"
-     *   - Programada / En progreso / En curso -> "Pendiente" (si tu BD no acepta esas)
-     */
-    private String normalizarEstadoSesion(String estado) {
-        String s = estado == null ? "" : estado.trim();
-        if (s.isEmpty()) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El estado es obligatorio");
+    /** Estado de sesión desde un parámetro de la petición (400 si no es válido). */
+    private static EstadoSesion estadoSesion(String estado) {
+        try {
+            return EstadoSesion.de(estado);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
         }
-        String up = s.toUpperCase().replace(' ', '_');
-
-        // sinónimos -> mapea al literal permitido por la BD
-        switch (up) {
-            case "COMPLETADA":
-            case "COMPLETADO":
-            case "COMPLETO":
-            case "FINALIZADA":
-            case "FINALIZADO":
-                return "Completada";
-            case "PENDIENTE":
-            case "PROGRAMADA":
-            case "EN_PROGRESO":
-            case "EN-CURSO":
-            case "EN_CURSO":
-                return "Pendiente";
-            default:
-                // si ya viene exacto y está permitido, déjalo
-                if (ESTADOS_BD.contains(s)) return s;
-                // De lo contrario, rechaza
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
-                    "Estado inválido. Use uno de: " + String.join(", ", ESTADOS_BD));
-        }
-    }
-
-    /** Normaliza estado de SesionEjercicios a 'Completado' | 'Pendiente' (como en BD) */
-    private String normalizarEstadoSesionEjercicio(String estado) {
-        if (estado == null || estado.isBlank()) {
+    }
+
+    /** Estado obligatorio de SesionEjercicios: 'Completado' | 'Pendiente' (400 si falta o no es válido). */
+    static EstadoEjercicio estadoEjercicio(String estado) {
+        EstadoEjercicio resultado;
+        try {
+            resultado = EstadoEjercicio.de(estado);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+        }
+        if (resultado == null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El estado es obligatorio");
         }
-        String normalized = estado.trim().toUpperCase();
-        if (normalized.equals("COMPLETADO") || normalized.equals("COMPLETA") || normalized.equals("COMPLETO")) {
-            return "Completado";
+        return resultado;
+    }
+
+    private static Map<String, Object> aplicarFiltro(FiltroSesiones filtro, StringBuilder sql) {
+        Map<String, Object> parametros = new HashMap<>();
+        if (filtro.clienteCedula() != null) {
+            sql.append(" AND s.cliente_cedula = :cedula");
+            parametros.put("cedula", filtro.clienteCedula());
+        }
+        if (filtro.desde() != null) {
+            sql.append(" AND s.fecha_inicio >= :desde");
+            parametros.put("desde", filtro.desde().atStartOfDay());
         }
-        if (normalized.equals("PENDIENTE")) {
-            return "Pendiente";
+        if (filtro.hasta() != null) {
+            sql.append(" AND s.fecha_inicio < :hasta");
+            parametros.put("hasta", filtro.hasta().plusDays(1).atStartOfDay());
+        }
+        if (filtro.estado() != null) {
+            sql.append(" AND s.estado = :estado");
+            parametros.put("estado", filtro.estado());
+        }
+        return parametros;
+    }
+
+    private static SesionListadoDTO filaListado(Object[] row) {
+        return new SesionListadoDTO(
+            ((Number) row[0]).intValue(),
+            (String) row[1],
+            (String) row[2],
+            fechaHora(row[3]),
+            fechaHora(row[4]),
+            row[5] == null ? null : ((Number) row[5]).doubleValue(),
+            entero(row[6]),
+            entero(row[7]),
+            entero(row[8]),
+            entero(row[9])
+        );
+    }
+
+    private static int entero(Object value) {
+        return value == null ? 0 : ((Number) value).intValue();
+    }
+
+    private static LocalDateTime fechaHora(Object value) {
+        if (value instanceof java.sql.Timestamp ts) {
+            return ts.toLocalDateTime();
         }
-        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Estado inválido. Use 'Completado' o 'Pendiente'");
+        return (LocalDateTime) value;
     }
 
     private static String safe(String s) {
         return s == null ? "" : s.trim();
     }
+
+    /** Ejercicio ya validado que se asigna a cada sesión generada. */
+    public record PlantillaEjercicio(Integer ejercicioId, int repeticiones, int series, EstadoEjercicio estado) {}
+
+    /** Filtros ya validados del listado; null significa "sin filtro". */
+    public record FiltroSesiones(String clienteCedula, LocalDate desde, LocalDate hasta, String estado) {}
+
+    /** Posición (fecha_inicio, id) de la última fila entregada, opaca para el cliente. */
+    private record Cursor(LocalDateTime fechaInicio, Integer id) {
+
+        String codificar() {
+            String valor = fechaInicio + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decodificar(String cursor) {
+            if (cursor == null || cursor.isBlank()) {
+                return null;
+            }
+            try {
+                String valor = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+                int separador = valor.lastIndexOf('|');
+                return new Cursor(
+                    LocalDateTime.parse(valor.substring(0, separador)),
+                    Integer.valueOf(valor.substring(separador + 1))
+                );
+            } catch (RuntimeException ex) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor inválido");
+            }
+        }
+    }
 }
@@ -0,0 +1,81 @@
+package com.example.fitware.service;
+
+import com.example.fitware.domain.EstadoEjercicio;
+import com.example.fitware.domain.Sesion;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Hibernate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Mantiene los totales de carga de cada sesión (ejercicios, series, repeticiones y completados)
+ * en columnas de sesion. Se recalculan desde sesion_ejercicios en la misma transacción que la
+ * escritura, así que el listado de sesiones nunca necesita unir esa tabla. Las sesiones ya
+ * cargadas en la transacción reciben los valores nuevos, para que la respuesta no los muestre en cero.
+ */
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+public class SesionTotalesService {
+
+    private final EntityManager entityManager;
+
+    public SesionTotalesService(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    public void refrescar(Integer sesionId) {
+        if (sesionId != null) {
+            refrescar(List.of(sesionId));
+        }
+    }
+
+    public void refrescar(Collection<Integer> sesionIds) {
+        if (sesionIds == null || sesionIds.isEmpty()) {
+            return;
+        }
+        // Los cambios pendientes de sesion_ejercicios deben verse en el recálculo
+        entityManager.flush();
+        // LEFT JOIN: una sesión que se queda sin ejercicios vuelve a cero
+        String sql = """
+            UPDATE sesion s
+            SET total_ejercicios = COALESCE(t.ejercicios, 0),
+                total_series = COALESCE(t.series, 0),
+                total_repeticiones = COALESCE(t.repeticiones, 0),
+                ejercicios_completados = COALESCE(t.completados, 0)
+            FROM sesion x
+            LEFT JOIN (
+                SELECT se.sesion_id,
+                       COUNT(*) AS ejercicios,
+                       SUM(se.series) AS series,
+                       SUM(se.repeticiones) AS repeticiones,
+                       COUNT(*) FILTER (WHERE se.estado = :completado) AS completados
+                FROM sesion_ejercicios se
+                WHERE se.sesion_id IN (:ids)
+                GROUP BY se.sesion_id
+            ) t ON t.sesion_id = x.id
+            WHERE x.id = s.id
+              AND s.id IN (:ids)
+            RETURNING s.id, s.total_ejercicios, s.total_series, s.total_repeticiones, s.ejercicios_completados
+        """;
+        @SuppressWarnings("unchecked")
+        List<Object[]> filas = entityManager.createNativeQuery(sql)
+            .setParameter("ids", sesionIds)
+            .setParameter("completado", EstadoEjercicio.COMPLETADO.literal())
+            .getResultList();
+        for (Object[] fila : filas) {
+            // Sin consulta extra: getReference devuelve la entidad gestionada o un proxy sin cargar
+            Sesion sesion = entityManager.getReference(Sesion.class, ((Number) fila[0]).intValue());
+            if (Hibernate.isInitialized(sesion)) {
+                sesion.aplicarTotales(entero(fila[1]), entero(fila[2]), entero(fila[3]), entero(fila[4]));
+            }
+        }
+    }
+
+    private static int entero(Object valor) {
+        return ((Number) valor).intValue();
+    }
+}
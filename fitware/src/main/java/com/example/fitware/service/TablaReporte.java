@@ -0,0 +1,290 @@
+package com.example.fitware.service;
+
+import com.example.fitware.web.dto.ReportColumnDTO;
+
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Tabla tipada de una sección de reporte. Los valores se guardan tal como llegan de la
+ * consulta (enteros y decimales en arreglos primitivos, fechas como java.time); el texto
+ * localizado se genera aparte con {@link #filasTexto(List, int)} sólo cuando se pide esa forma.
+ */
+final class TablaReporte {
+
+    static final Locale LOCALE_ES = Locale.of("es", "ES");
+    static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd MMM yyyy", LOCALE_ES);
+    static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("dd MMM yyyy HH:mm", LOCALE_ES);
+    static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("MMMM yyyy", LOCALE_ES);
+    private static final DateTimeFormatter SQL_DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss[.SSSSSS]");
+
+    enum Tipo {
+        ID("id"), TEXTO("string"), ENTERO("long"), DECIMAL("double"),
+        FECHA("date"), FECHA_HORA("datetime"), MES("month");
+
+        private final String nombre;
+
+        Tipo(String nombre) {
+            this.nombre = nombre;
+        }
+    }
+
+    private final List<Columna> columnas = new ArrayList<>();
+    private int filas;
+
+    TablaReporte id(String clave, String titulo) {
+        return columna(clave, titulo, Tipo.ID, null, null);
+    }
+
+    TablaReporte texto(String clave, String titulo) {
+        return columna(clave, titulo, Tipo.TEXTO, null, null);
+    }
+
+    TablaReporte entero(String clave, String titulo) {
+        return columna(clave, titulo, Tipo.ENTERO, null, 0);
+    }
+
+    TablaReporte decimal(String clave, String titulo, int decimales, String unidad) {
+        return columna(clave, titulo, Tipo.DECIMAL, unidad, decimales);
+    }
+
+    TablaReporte fecha(String clave, String titulo) {
+        return columna(clave, titulo, Tipo.FECHA, null, null);
+    }
+
+    TablaReporte fechaHora(String clave, String titulo) {
+        return columna(clave, titulo, Tipo.FECHA_HORA, null, null);
+    }
+
+    TablaReporte mes(String clave, String titulo) {
+        return columna(clave, titulo, Tipo.MES, null, null);
+    }
+
+    private TablaReporte columna(String clave, String titulo, Tipo tipo, String unidad, Integer decimales) {
+        columnas.add(new Columna(clave, titulo, tipo, unidad, decimales));
+        return this;
+    }
+
+    /** Agrega una fila; los valores van en el orden en que se declararon las columnas. */
+    void fila(Object... valores) {
+        if (valores.length != columnas.size()) {
+            throw new IllegalArgumentException("Se esperaban " + columnas.size() + " valores y llegaron " + valores.length);
+        }
+        for (int i = 0; i < valores.length; i++) {
+            columnas.get(i).agregar(valores[i]);
+        }
+        filas++;
+    }
+
+    int filas() {
+        return filas;
+    }
+
+    List<String> encabezados() {
+        return columnas.stream().map(c -> c.titulo).toList();
+    }
+
+    List<ReportColumnDTO> columnasDto() {
+        return columnas.stream().map(Columna::aDto).toList();
+    }
+
+    /** Forma legible (localizada) de las columnas, fila por fila. */
+    static List<List<String>> filasTexto(List<ReportColumnDTO> columnas, int filas) {
+        List<Celdas> render = columnas.stream().map(TablaReporte::render).toList();
+        List<List<String>> resultado = new ArrayList<>(filas);
+        for (int fila = 0; fila < filas; fila++) {
+            String[] celdas = new String[render.size()];
+            for (int c = 0; c < celdas.length; c++) {
+                celdas[c] = render.get(c).celda(fila);
+            }
+            resultado.add(List.of(celdas));
+        }
+        return resultado;
+    }
+
+    private static Celdas render(ReportColumnDTO columna) {
+        BitSet nulos = new BitSet();
+        if (columna.nulls() != null) {
+            Arrays.stream(columna.nulls()).forEach(nulos::set);
+        }
+        return switch (columna.type()) {
+            case "id" -> {
+                long[] v = (long[]) columna.values();
+                yield fila -> nulos.get(fila) ? "-" : Long.toString(v[fila]);
+            }
+            case "long" -> {
+                long[] v = (long[]) columna.values();
+                DecimalFormat formato = formatoNumerico(0);
+                yield fila -> nulos.get(fila) ? "-" : formato.format(v[fila]);
+            }
+            case "double" -> {
+                double[] v = (double[]) columna.values();
+                DecimalFormat formato = formatoNumerico(columna.decimals() == null ? 0 : columna.decimals());
+                String sufijo = columna.unit() == null ? "" : " " + columna.unit();
+                yield fila -> nulos.get(fila) ? "-" : formato.format(v[fila]) + sufijo;
+            }
+            case "date" -> {
+                LocalDate[] v = (LocalDate[]) columna.values();
+                yield fila -> v[fila] == null ? "-" : DATE_FORMAT.format(v[fila]);
+            }
+            case "datetime" -> {
+                LocalDateTime[] v = (LocalDateTime[]) columna.values();
+                yield fila -> v[fila] == null ? "-" : DATE_TIME_FORMAT.format(v[fila]);
+            }
+            case "month" -> {
+                YearMonth[] v = (YearMonth[]) columna.values();
+                yield fila -> v[fila] == null ? "-" : MONTH_FORMAT.format(v[fila]);
+            }
+            default -> {
+                String[] v = (String[]) columna.values();
+                yield fila -> v[fila] == null || v[fila].isBlank() ? "-" : v[fila];
+            }
+        };
+    }
+
+    /** Equivale a {@code String.format(LOCALE_ES, "%,.Nf")}, pero se arma una vez por columna. */
+    private static DecimalFormat formatoNumerico(int decimales) {
+        DecimalFormat formato = new DecimalFormat(
+            decimales > 0 ? "#,##0." + "0".repeat(decimales) : "#,##0",
+            DecimalFormatSymbols.getInstance(LOCALE_ES)
+        );
+        formato.setRoundingMode(RoundingMode.HALF_UP);
+        return formato;
+    }
+
+    static LocalDate aFecha(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof LocalDate ld) {
+            return ld;
+        }
+        if (value instanceof java.sql.Date sqlDate) {
+            return sqlDate.toLocalDate();
+        }
+        LocalDateTime dateTime = aFechaHora(value);
+        return dateTime == null ? null : dateTime.toLocalDate();
+    }
+
+    static LocalDateTime aFechaHora(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof LocalDateTime ldt) {
+            return ldt;
+        }
+        if (value instanceof java.sql.Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        if (value instanceof LocalDate ld) {
+            return ld.atStartOfDay();
+        }
+        if (value instanceof java.sql.Date sqlDate) {
+            return sqlDate.toLocalDate().atStartOfDay();
+        }
+        // Los drivers devuelven tipos java.time o java.sql; el texto sólo llega de columnas mal tipadas
+        String texto = value.toString().trim();
+        if (texto.isEmpty()) {
+            return null;
+        }
+        try {
+            if (texto.length() == 10) {
+                return LocalDate.parse(texto).atStartOfDay();
+            }
+            return texto.indexOf('T') > 0 ? LocalDateTime.parse(texto) : LocalDateTime.parse(texto, SQL_DATE_TIME);
+        } catch (DateTimeParseException ex) {
+            return null;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Celdas {
+        String celda(int fila);
+    }
+
+    private static final class Columna {
+
+        private final String clave;
+        private final String titulo;
+        private final Tipo tipo;
+        private final String unidad;
+        private final Integer decimales;
+        private final BitSet nulos = new BitSet();
+        private long[] enteros = new long[0];
+        private double[] reales = new double[0];
+        private Object[] objetos = new Object[0];
+        private int tamano;
+
+        Columna(String clave, String titulo, Tipo tipo, String unidad, Integer decimales) {
+            this.clave = clave;
+            this.titulo = titulo;
+            this.tipo = tipo;
+            this.unidad = unidad;
+            this.decimales = decimales;
+        }
+
+        void agregar(Object valor) {
+            switch (tipo) {
+                case ID, ENTERO -> {
+                    if (enteros.length == tamano) {
+                        enteros = Arrays.copyOf(enteros, Math.max(8, tamano * 2));
+                    }
+                    if (valor instanceof Number n) {
+                        enteros[tamano] = n.longValue();
+                    } else {
+                        nulos.set(tamano);
+                    }
+                }
+                case DECIMAL -> {
+                    if (reales.length == tamano) {
+                        reales = Arrays.copyOf(reales, Math.max(8, tamano * 2));
+                    }
+                    if (valor instanceof Number n) {
+                        reales[tamano] = n.doubleValue();
+                    } else {
+                        nulos.set(tamano);
+                    }
+                }
+                default -> {
+                    if (objetos.length == tamano) {
+                        objetos = Arrays.copyOf(objetos, Math.max(8, tamano * 2));
+                    }
+                    objetos[tamano] = switch (tipo) {
+                        case FECHA -> aFecha(valor);
+                        case FECHA_HORA -> aFechaHora(valor);
+                        case MES -> {
+                            LocalDate fecha = aFecha(valor);
+                            yield fecha == null ? null : YearMonth.from(fecha);
+                        }
+                        default -> valor == null ? null : valor.toString().trim();
+                    };
+                }
+            }
+            tamano++;
+        }
+
+        ReportColumnDTO aDto() {
+            Object valores = switch (tipo) {
+                case ID, ENTERO -> Arrays.copyOf(enteros, tamano);
+                case DECIMAL -> Arrays.copyOf(reales, tamano);
+                case FECHA -> Arrays.copyOf(objetos, tamano, LocalDate[].class);
+                case FECHA_HORA -> Arrays.copyOf(objetos, tamano, LocalDateTime[].class);
+                case MES -> Arrays.copyOf(objetos, tamano, YearMonth[].class);
+                case TEXTO -> Arrays.copyOf(objetos, tamano, String[].class);
+            };
+            int[] indicesNulos = nulos.isEmpty() ? null : nulos.stream().toArray();
+            return new ReportColumnDTO(clave, titulo, tipo.nombre, unidad, decimales, valores, indicesNulos);
+        }
+    }
+}
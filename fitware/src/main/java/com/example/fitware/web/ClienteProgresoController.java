@@ -3,12 +3,24 @@ package com.example.fitware.web;
 
 import com.example.fitware.domain.Cliente;
 import com.example.fitware.domain.Progreso;
+import com.example.fitware.service.ClientePurgaService;
+import com.example.fitware.service.ClienteRegistroMasivoService;
 import com.example.fitware.service.ClienteService;
+import com.example.fitware.service.ProgresoIngestaService;
+import com.example.fitware.web.dto.BusquedaClientesDTO;
+import com.example.fitware.web.dto.IngestaProgresoDTO;
+import com.example.fitware.web.dto.PurgaClienteDTO;
 import com.example.fitware.web.dto.RegistroClienteDTO;
+import com.example.fitware.web.dto.RegistroMasivoClientesDTO;
+import com.example.fitware.web.dto.SerieProgresoDTO;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
 import java.net.URI;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -16,9 +28,18 @@ import java.util.List;
 public class ClienteProgresoController {
 
     private final ClienteService service;
+    private final ClientePurgaService purgaService;
+    private final ProgresoIngestaService ingestaService;
+    private final ClienteRegistroMasivoService registroMasivoService;
 
-    public ClienteProgresoController(ClienteService service) {
+    public ClienteProgresoController(ClienteService service,
+                                     ClientePurgaService purgaService,
+                                     ProgresoIngestaService ingestaService,
+                                     ClienteRegistroMasivoService registroMasivoService) {
         this.service = service;
+        this.purgaService = purgaService;
+        this.ingestaService = ingestaService;
+        this.registroMasivoService = registroMasivoService;
     }
 
     @PostMapping
@@ -27,11 +48,25 @@ public class ClienteProgresoController {
         return ResponseEntity.created(URI.create("/api/clientes/" + created.getUsuarioCedula())).body(created);
     }
 
+    /** Registro masivo: crea o actualiza cada cliente; el detalle viene por lote. */
+    @PostMapping("/batch")
+    public ResponseEntity<RegistroMasivoClientesDTO> registrarLote(@RequestBody List<RegistroClienteDTO> registros) {
+        return ResponseEntity.ok(registroMasivoService.registrar(registros));
+    }
+
     @GetMapping
     public ResponseEntity<List<Cliente>> listarClientes() {
         return ResponseEntity.ok(service.listarClientes());
     }
 
+    /** Búsqueda paginada por nombre, apellidos o cédula (sin tildes ni mayúsculas). */
+    @GetMapping("/buscar")
+    public ResponseEntity<BusquedaClientesDTO> buscar(@RequestParam("q") String consulta,
+                                                      @RequestParam(required = false) Integer pagina,
+                                                      @RequestParam(required = false) Integer tamano) {
+        return ResponseEntity.ok(service.buscarClientes(consulta, pagina, tamano));
+    }
+
     @GetMapping("/{cedula}")
     public ResponseEntity<Cliente> obtenerCliente(@PathVariable String cedula) {
         return ResponseEntity.ok(service.obtenerCliente(cedula));
@@ -43,23 +78,58 @@ public class ClienteProgresoController {
         return ResponseEntity.ok(actualizado);
     }
 
+    /**
+     * Con {@code asincrono=true} el historial se borra en segundo plano por lotes (202);
+     * el avance se consulta en {@code /api/clientes/{cedula}/purga}.
+     */
     @DeleteMapping("/{cedula}")
-    public ResponseEntity<Void> eliminarCliente(@PathVariable String cedula) {
+    public ResponseEntity<?> eliminarCliente(@PathVariable String cedula,
+                                             @RequestParam(defaultValue = "false") boolean asincrono) {
+        if (asincrono) {
+            PurgaClienteDTO purga = purgaService.iniciar(cedula);
+            return ResponseEntity.accepted()
+                .location(URI.create("/api/clientes/" + purga.cedula() + "/purga"))
+                .body(purga);
+        }
         service.eliminarCliente(cedula);
         return ResponseEntity.noContent().build();
     }
 
+    @GetMapping("/{cedula}/purga")
+    public ResponseEntity<PurgaClienteDTO> consultarPurga(@PathVariable String cedula) {
+        return ResponseEntity.ok(purgaService.consultar(cedula));
+    }
+
     @GetMapping("/{cedula}/progreso")
     public ResponseEntity<List<Progreso>> listar(@PathVariable String cedula) {
         return ResponseEntity.ok(service.listarProgreso(cedula));
     }
 
+    /** Serie reducida de peso/IMC para gráficas: a lo sumo {@code maxPuntos} tramos con mínimo, máximo y promedio. */
+    @GetMapping("/{cedula}/progreso/serie")
+    public ResponseEntity<SerieProgresoDTO> serie(@PathVariable String cedula,
+                                                  @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+                                                  @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+                                                  @RequestParam(required = false) Integer maxPuntos) {
+        return ResponseEntity.ok(service.serieProgreso(cedula, desde, hasta, maxPuntos));
+    }
+
     @PostMapping("/{cedula}/progreso")
     public ResponseEntity<Progreso> agregar(@PathVariable String cedula, @RequestBody Progreso p) {
         Progreso created = service.agregarProgreso(cedula, p);
         return ResponseEntity.created(URI.create("/api/clientes/" + cedula + "/progreso/" + created.getId())).body(created);
     }
 
+    /**
+     * Carga masiva de progreso desde CSV ({@code text/csv}) o JSON Lines ({@code application/x-ndjson}).
+     * Responde con el conteo de líneas insertadas y los errores por línea.
+     */
+    @PostMapping(value = "/progreso/ingesta", consumes = {"text/csv", "application/x-ndjson", "application/jsonl", "text/plain"})
+    public ResponseEntity<IngestaProgresoDTO> ingerirProgreso(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                              InputStream cuerpo) {
+        return ResponseEntity.ok(ingestaService.ingerir(cuerpo, ProgresoIngestaService.formato(contentType)));
+    }
+
     @PutMapping("/progreso/{id}")
     public ResponseEntity<Progreso> editar(@PathVariable Integer id, @RequestBody Progreso p) {
         return ResponseEntity.ok(service.editarProgreso(id, p));
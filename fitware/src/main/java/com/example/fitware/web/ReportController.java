@@ -1,49 +1,126 @@
 package com.example.fitware.web;
 
+import com.example.fitware.service.ReportCache;
+import com.example.fitware.service.ReportExportService;
+import com.example.fitware.service.ReportJobService;
+import com.example.fitware.service.ReportPdfStore;
 import com.example.fitware.service.ReportService;
+import com.example.fitware.web.dto.ReportJobDTO;
+import com.example.fitware.web.dto.ReportRawSummaryDTO;
+import com.example.fitware.web.dto.ReportSectionDTO;
 import com.example.fitware.web.dto.ReportSummaryDTO;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/reportes")
 public class ReportController {
 
     private static final DateTimeFormatter FILE_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
 
     private final ReportService reportService;
+    private final ReportJobService reportJobService;
+    private final ReportExportService reportExportService;
+    private final ReportPdfStore reportPdfStore;
 
-    public ReportController(ReportService reportService) {
+    public ReportController(ReportService reportService,
+                            ReportJobService reportJobService,
+                            ReportExportService reportExportService,
+                            ReportPdfStore reportPdfStore) {
         this.reportService = reportService;
+        this.reportJobService = reportJobService;
+        this.reportExportService = reportExportService;
+        this.reportPdfStore = reportPdfStore;
     }
 
+    /**
+     * Resumen de reportes. Por defecto cada sección trae filas de texto localizado;
+     * con {@code format=raw} trae columnas tipadas (números, fechas ISO) sin formatear.
+     */
     @GetMapping
-    public ReportSummaryDTO obtenerResumen(
+    public ResponseEntity<Object> obtenerResumen(
         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
-        @RequestParam(required = false) List<String> sections
+        @RequestParam(required = false) List<String> sections,
+        @RequestParam(required = false) Boolean concurrente,
+        @RequestParam(required = false) String format,
+        WebRequest request
     ) {
-        return reportService.generarResumen(desde, hasta, sections);
+        boolean crudo = formatoCrudo(format);
+        ReportCache.Entrada entrada = reportService.obtenerResumen(desde, hasta, sections, concurrente, crudo);
+        if (request.checkNotModified(entrada.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(entrada.etag()).build();
+        }
+        Object cuerpo = crudo ? ReportRawSummaryDTO.de(entrada.resumen()) : entrada.resumen();
+        return ResponseEntity.ok()
+            .eTag(entrada.etag())
+            .cacheControl(CacheControl.noCache())
+            .body(cuerpo);
+    }
+
+    @GetMapping("/clientes-sin-progreso")
+    public ResponseEntity<ReportSectionDTO> clientesSinProgreso(
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+        @RequestParam(defaultValue = "0") int pagina,
+        @RequestParam(defaultValue = "20") int tamano
+    ) {
+        if (pagina < 0 || tamano < 1 || tamano > 200) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Paginación inválida (tamano entre 1 y 200)");
+        }
+        return ResponseEntity.ok(reportService.clientesSinProgreso(hasta, pagina, tamano));
     }
 
     @GetMapping(value = "/pdf", produces = MediaType.APPLICATION_PDF_VALUE)
-    public ResponseEntity<byte[]> descargarPdf(
+    public ResponseEntity<StreamingResponseBody> descargarPdf(
         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
-        @RequestParam(required = false) List<String> sections
+        @RequestParam(required = false) List<String> sections,
+        HttpServletRequest request
     ) {
-        ReportSummaryDTO resumen = reportService.generarResumen(desde, hasta, sections);
-        byte[] pdf = reportService.generarPdf(resumen);
+        ReportCache.Clave clave = reportService.claveResumen(desde, hasta, sections, false);
+        if (reportPdfStore.admite(clave)) {
+            // Periodo cerrado: se sirve el PDF ya renderizado desde disco
+            String fileName = String.format(
+                "reportes-fitware-%s-a-%s.pdf",
+                FILE_FORMAT.format(clave.desde()),
+                FILE_FORMAT.format(clave.hasta())
+            );
+            return enviarSnapshot(reportPdfStore.obtener(clave), fileName, request);
+        }
+
+        ReportSummaryDTO resumen = reportService.obtenerResumen(desde, hasta, sections, null).resumen();
+        // Las consultas ya corrieron; el cuerpo sólo renderiza y escribe en la respuesta
+        StreamingResponseBody pdf = out -> reportService.escribirPdf(resumen, out);
         String fileName = String.format(
             "reportes-fitware-%s-a-%s.pdf",
             FILE_FORMAT.format(resumen.from()),
@@ -54,4 +131,97 @@ public class ReportController {
             .contentType(MediaType.APPLICATION_PDF)
             .body(pdf);
     }
+
+    /**
+     * Con Tomcat (NIO) el archivo sale por sendfile, sin pasar por el heap; en otro contenedor
+     * se copia con {@link FileChannel#transferTo}.
+     */
+    private ResponseEntity<StreamingResponseBody> enviarSnapshot(ReportPdfStore.Snapshot snapshot,
+                                                                 String fileName,
+                                                                 HttpServletRequest request) {
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + fileName)
+            .contentType(MediaType.APPLICATION_PDF)
+            .contentLength(snapshot.bytes());
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, snapshot.archivo().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, snapshot.bytes());
+            return respuesta.build();
+        }
+        StreamingResponseBody cuerpo = out -> {
+            try (FileChannel canal = FileChannel.open(snapshot.archivo(), StandardOpenOption.READ)) {
+                WritableByteChannel destino = Channels.newChannel(out);
+                long enviados = 0;
+                while (enviados < snapshot.bytes()) {
+                    enviados += canal.transferTo(enviados, snapshot.bytes() - enviados, destino);
+                }
+            }
+        };
+        return respuesta.body(cuerpo);
+    }
+
+    @GetMapping(value = "/{section}/export.csv", produces = "text/csv")
+    public ResponseEntity<StreamingResponseBody> exportarCsv(
+        @PathVariable String section,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta
+    ) {
+        ReportExportService.CsvExport export = reportExportService.preparar(section, desde, hasta);
+        StreamingResponseBody csv = out -> export.escritura().escribir(out);
+        String fileName = String.format(
+            "%s-%s-a-%s.csv",
+            section,
+            FILE_FORMAT.format(export.desde()),
+            FILE_FORMAT.format(export.hasta())
+        );
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + fileName)
+            .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+            .body(csv);
+    }
+
+    @PostMapping("/jobs")
+    public ResponseEntity<ReportJobDTO> crearTrabajo(
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+        @RequestParam(required = false) List<String> sections,
+        @RequestParam(defaultValue = "json") String formato
+    ) {
+        ReportJobDTO trabajo = reportJobService.crear(desde, hasta, sections, formato);
+        return ResponseEntity.accepted()
+            .location(ServletUriComponentsBuilder.fromCurrentRequest()
+                .path("/{id}").buildAndExpand(trabajo.id()).toUri())
+            .body(trabajo);
+    }
+
+    @GetMapping("/jobs/metricas")
+    public ResponseEntity<Map<String, Object>> metricasTrabajos() {
+        return ResponseEntity.ok(reportJobService.metricas());
+    }
+
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<ReportJobDTO> consultarTrabajo(@PathVariable String id) {
+        return ResponseEntity.ok(reportJobService.consultar(id));
+    }
+
+    @GetMapping("/jobs/{id}/resultado")
+    public ResponseEntity<FileSystemResource> descargarTrabajo(@PathVariable String id) {
+        ReportJobService.Resultado resultado = reportJobService.resultado(id);
+        MediaType tipo = "pdf".equals(resultado.formato()) ? MediaType.APPLICATION_PDF : MediaType.APPLICATION_JSON;
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + resultado.nombreArchivo())
+            .contentType(tipo)
+            .body(new FileSystemResource(resultado.archivo()));
+    }
+
+    private static boolean formatoCrudo(String format) {
+        if (format == null || format.isBlank() || format.equalsIgnoreCase("text")) {
+            return false;
+        }
+        if (format.equalsIgnoreCase("raw")) {
+            return true;
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Formato inválido. Use text o raw");
+    }
 }
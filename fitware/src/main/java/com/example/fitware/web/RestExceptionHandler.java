@@ -2,6 +2,7 @@ package com.example.fitware.web;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -23,6 +24,16 @@ public class RestExceptionHandler {
         return ResponseEntity.badRequest().body(body);
     }
 
+    /** JSON mal formado o con valores que no se pueden convertir (p. ej. un estado inválido). */
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<Map<String, Object>> handleNotReadable(HttpMessageNotReadableException ex) {
+        Throwable causa = ex.getMostSpecificCause();
+        String mensaje = causa instanceof IllegalArgumentException && causa.getMessage() != null
+            ? causa.getMessage()
+            : "El cuerpo de la petición no es válido";
+        return ResponseEntity.badRequest().body(defaultBody(HttpStatus.BAD_REQUEST, mensaje));
+    }
+
     @ExceptionHandler(ResponseStatusException.class)
     public ResponseEntity<Map<String, Object>> handleResponseStatus(ResponseStatusException ex) {
         HttpStatus status = HttpStatus.resolve(ex.getStatusCode().value());
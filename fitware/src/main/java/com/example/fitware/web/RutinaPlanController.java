@@ -3,7 +3,10 @@ package com.example.fitware.web;
 import com.example.fitware.domain.PlanAlimentacion;
 import com.example.fitware.domain.PlanAlimentos;
 import com.example.fitware.domain.Rutina;
+import com.example.fitware.service.RutinaAgendaService;
 import com.example.fitware.service.RutinaPlanService;
+import com.example.fitware.web.dto.GeneracionAgendaDTO;
+import com.example.fitware.web.dto.GeneracionAgendaResultadoDTO;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -15,9 +18,11 @@ import java.util.List;
 public class RutinaPlanController {
 
     private final RutinaPlanService service;
+    private final RutinaAgendaService agendaService;
 
-    public RutinaPlanController(RutinaPlanService service) {
+    public RutinaPlanController(RutinaPlanService service, RutinaAgendaService agendaService) {
         this.service = service;
+        this.agendaService = agendaService;
     }
 
     @GetMapping
@@ -49,6 +54,13 @@ public class RutinaPlanController {
         return ResponseEntity.noContent().build();
     }
 
+    /** Genera las sesiones de la rutina (con sus ejercicios) para uno o varios clientes. */
+    @PostMapping("/{rutinaId}/agenda")
+    public ResponseEntity<GeneracionAgendaResultadoDTO> generarAgenda(@PathVariable Integer rutinaId,
+                                                                      @RequestBody GeneracionAgendaDTO pedido) {
+        return ResponseEntity.ok(agendaService.generar(rutinaId, pedido));
+    }
+
     @GetMapping("/planes")
     public ResponseEntity<List<PlanAlimentacion>> listarPlanes(@RequestParam(required = false) Integer rutinaId) {
         return ResponseEntity.ok(service.listarPlanes(rutinaId));
@@ -2,11 +2,22 @@ package com.example.fitware.web;
 
 import com.example.fitware.domain.Sesion;
 import com.example.fitware.domain.SesionEjercicios;
+import com.example.fitware.service.PresupuestoConexiones;
 import com.example.fitware.service.SesionService;
+import com.example.fitware.web.dto.AsignacionEjercicioDTO;
+import com.example.fitware.web.dto.AsignacionResultadoDTO;
+import com.example.fitware.web.dto.ConflictoSesionDTO;
+import com.example.fitware.web.dto.SesionDetalleDTO;
+import com.example.fitware.web.dto.SesionPaginaDTO;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.net.URI;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -14,32 +25,89 @@ import java.util.List;
 public class SesionController {
 
     private final SesionService service;
+    private final PresupuestoConexiones presupuesto;
 
-    public SesionController(SesionService service) {
+    public SesionController(SesionService service, PresupuestoConexiones presupuesto) {
         this.service = service;
+        this.presupuesto = presupuesto;
     }
 
+    /**
+     * Sesiones con su cliente anidado; sin {@code clienteCedula}, todas. Para recorrer la tabla
+     * completa sin cargarla en memoria están {@code /pagina} y {@code /stream}.
+     */
     @GetMapping
     public ResponseEntity<List<Sesion>> listar(@RequestParam(required = false) String clienteCedula) {
         return ResponseEntity.ok(service.listarSesiones(clienteCedula));
     }
 
+    @GetMapping("/pagina")
+    public ResponseEntity<SesionPaginaDTO> pagina(@RequestParam(required = false) String cursor,
+                                                  @RequestParam(defaultValue = "50") int limite,
+                                                  @RequestParam(required = false) String clienteCedula,
+                                                  @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+                                                  @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+                                                  @RequestParam(required = false) String estado) {
+        SesionService.FiltroSesiones filtro = service.filtro(clienteCedula, desde, hasta, estado);
+        return ResponseEntity.ok(service.paginaSesiones(filtro, cursor, limite));
+    }
+
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> stream(@RequestParam(required = false) String clienteCedula,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+                                                        @RequestParam(required = false) String estado) {
+        // Se valida antes de responder para que los errores lleguen como 400/404 y no a mitad del cuerpo
+        SesionService.FiltroSesiones filtro = service.filtro(clienteCedula, desde, hasta, estado);
+        // El cuerpo retiene una conexión mientras dura: comparte el presupuesto del trabajo pesado
+        StreamingResponseBody body = out -> {
+            try (PresupuestoConexiones.Permiso permiso = presupuesto.ocupar()) {
+                service.escribirSesiones(filtro, out);
+            }
+        };
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(body);
+    }
+
     @GetMapping("/{sesionId}")
     public ResponseEntity<Sesion> obtener(@PathVariable Integer sesionId) {
         return ResponseEntity.ok(service.obtenerSesion(sesionId));
     }
 
+    @GetMapping("/conflicts")
+    public ResponseEntity<List<ConflictoSesionDTO>> conflictos(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+                                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+                                                               @RequestParam(required = false) String clienteCedula) {
+        return ResponseEntity.ok(service.conflictos(desde, hasta, clienteCedula));
+    }
+
+    @GetMapping("/{sesionId}/full")
+    public ResponseEntity<SesionDetalleDTO> detalle(@PathVariable Integer sesionId) {
+        return ResponseEntity.ok(service.detalleSesion(sesionId));
+    }
+
     @PostMapping("/{clienteCedula}")
-    public ResponseEntity<Sesion> crear(@PathVariable String clienteCedula, @RequestBody Sesion s) {
-        Sesion created = service.crearSesion(clienteCedula, s);
+    public ResponseEntity<Sesion> crear(@PathVariable String clienteCedula,
+                                        @RequestParam(defaultValue = "false") boolean permitirSolape,
+                                        @RequestBody Sesion s) {
+        Sesion created = service.crearSesion(clienteCedula, s, permitirSolape);
         return ResponseEntity.created(URI.create("/api/sesiones/" + created.getId())).body(created);
     }
 
+    @PostMapping("/{clienteCedula}/batch")
+    public ResponseEntity<List<Sesion>> crearLote(@PathVariable String clienteCedula,
+                                                  @RequestParam(defaultValue = "false") boolean permitirSolape,
+                                                  @RequestBody List<Sesion> sesiones) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(service.crearSesiones(clienteCedula, sesiones, permitirSolape));
+    }
+
     @PutMapping("/{sesionId}")
     public ResponseEntity<Sesion> actualizar(@PathVariable Integer sesionId,
                                              @RequestParam(required = false) String clienteCedula,
+                                             @RequestParam(defaultValue = "false") boolean permitirSolape,
                                              @RequestBody Sesion s) {
-        return ResponseEntity.ok(service.actualizarSesion(sesionId, clienteCedula, s));
+        return ResponseEntity.ok(service.actualizarSesion(sesionId, clienteCedula, s, permitirSolape));
     }
 
     @DeleteMapping("/{sesionId}")
@@ -68,6 +136,12 @@ public class SesionController {
         return ResponseEntity.created(URI.create("/api/sesiones/ejercicios/" + created.getId())).body(created);
     }
 
+    @PostMapping("/{sesionId}/ejercicios")
+    public ResponseEntity<List<AsignacionResultadoDTO>> asignarVarios(@PathVariable Integer sesionId,
+                                                                      @RequestBody List<AsignacionEjercicioDTO> ejercicios) {
+        return ResponseEntity.ok(service.asignarEjercicios(sesionId, ejercicios));
+    }
+
     @PutMapping("/ejercicios/{id}")
     public ResponseEntity<SesionEjercicios> actualizarAsignacion(@PathVariable Integer id,
                                                                  @RequestParam(required = false) Integer ejercicioId,
@@ -0,0 +1,9 @@
+package com.example.fitware.web.dto;
+
+/** Ejercicio a asignar en una asignación masiva a una sesión. */
+public record AsignacionEjercicioDTO(
+    Integer ejercicioId,
+    Integer repeticiones,
+    Integer series,
+    String estado
+) {}
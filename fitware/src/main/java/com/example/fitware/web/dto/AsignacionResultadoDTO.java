@@ -0,0 +1,16 @@
+package com.example.fitware.web.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Resultado por ítem de una asignación masiva.
+ * {@code resultado}: CREADO, DUPLICADO, EJERCICIO_NO_ENCONTRADO o INVALIDO.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record AsignacionResultadoDTO(
+    int indice,
+    Integer ejercicioId,
+    String resultado,
+    Integer asignacionId,
+    String mensaje
+) {}
@@ -0,0 +1,20 @@
+package com.example.fitware.web.dto;
+
+import java.util.List;
+
+/** Página de resultados de la búsqueda de clientes; {@code total} cuenta todas las coincidencias. */
+public record BusquedaClientesDTO(
+    String consulta,
+    int total,
+    int pagina,
+    int tamano,
+    List<Item> items
+) {
+
+    public record Item(
+        String cedula,
+        String nombre,
+        String apellidos,
+        int puntaje
+    ) {}
+}
@@ -0,0 +1,14 @@
+package com.example.fitware.web.dto;
+
+import java.time.LocalDateTime;
+
+/** Par de sesiones del mismo cliente cuyos horarios se solapan. */
+public record ConflictoSesionDTO(
+    String clienteCedula,
+    Integer sesionId,
+    LocalDateTime inicio,
+    LocalDateTime fin,
+    Integer otraSesionId,
+    LocalDateTime otraInicio,
+    LocalDateTime otraFin
+) {}
@@ -0,0 +1,11 @@
+package com.example.fitware.web.dto;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+
+/** Un día del patrón semanal: día, hora de inicio y duración (60 minutos si no se indica). */
+public record DiaAgendaDTO(
+    DayOfWeek dia,
+    LocalTime hora,
+    Integer duracionMinutos
+) {}
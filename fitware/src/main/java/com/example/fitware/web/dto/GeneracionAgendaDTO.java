@@ -0,0 +1,16 @@
+package com.example.fitware.web.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Pedido de generación de sesiones a partir de una rutina. Los ejercicios se asignan
+ * a cada sesión generada; {@code clientes} puede ser un grupo completo.
+ */
+public record GeneracionAgendaDTO(
+    List<String> clientes,
+    LocalDate fechaInicio,
+    List<DiaAgendaDTO> semana,
+    List<AsignacionEjercicioDTO> ejercicios,
+    Boolean permitirSolape
+) {}
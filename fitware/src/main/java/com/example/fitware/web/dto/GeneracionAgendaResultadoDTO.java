@@ -0,0 +1,21 @@
+package com.example.fitware.web.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public record GeneracionAgendaResultadoDTO(
+    Integer rutinaId,
+    LocalDate desde,
+    LocalDate hasta,
+    int sesionesPorCliente,
+    List<Cliente> clientes
+) {
+
+    /** Resultado de un cliente; si {@code error} no es null no se creó nada para él. */
+    public record Cliente(
+        String cedula,
+        int sesionesCreadas,
+        int asignacionesCreadas,
+        String error
+    ) {}
+}
@@ -0,0 +1,18 @@
+package com.example.fitware.web.dto;
+
+import java.util.List;
+
+/**
+ * Resultado de una carga masiva de progreso. Solo se detallan los primeros errores;
+ * {@code rechazadas} cuenta todos.
+ */
+public record IngestaProgresoDTO(
+    long lineas,
+    long insertadas,
+    long rechazadas,
+    List<Error> errores,
+    boolean erroresTruncados
+) {
+
+    public record Error(long linea, String mensaje) {}
+}
@@ -0,0 +1,14 @@
+package com.example.fitware.web.dto;
+
+import java.time.Instant;
+
+public record PurgaClienteDTO(
+    String cedula,
+    String estado,
+    long asignacionesBorradas,
+    long sesionesBorradas,
+    long progresosBorrados,
+    Instant iniciada,
+    Instant finalizada,
+    String error
+) {}
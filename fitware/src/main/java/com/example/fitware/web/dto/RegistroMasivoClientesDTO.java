@@ -0,0 +1,23 @@
+package com.example.fitware.web.dto;
+
+import java.util.List;
+
+/** Resultado del registro masivo de clientes, con el detalle de cada lote (una transacción por lote). */
+public record RegistroMasivoClientesDTO(
+    int recibidos,
+    int creados,
+    int actualizados,
+    int rechazados,
+    List<Lote> lotes
+) {
+
+    public record Lote(
+        int lote,
+        List<String> creados,
+        List<String> actualizados,
+        List<Rechazo> rechazados
+    ) {}
+
+    /** {@code indice}: posición del registro en la solicitud. */
+    public record Rechazo(int indice, String cedula, String mensaje) {}
+}
@@ -0,0 +1,19 @@
+package com.example.fitware.web.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Columna tipada de una sección. {@code values} es {@code long[]} para id/long,
+ * {@code double[]} para double y un arreglo de textos o fechas ISO para el resto.
+ * {@code nulls} lista las filas sin dato en las columnas numéricas.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ReportColumnDTO(
+    String key,
+    String label,
+    String type,
+    String unit,
+    Integer decimals,
+    Object values,
+    int[] nulls
+) {}
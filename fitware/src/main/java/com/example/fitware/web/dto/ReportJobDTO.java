@@ -0,0 +1,20 @@
+package com.example.fitware.web.dto;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+public record ReportJobDTO(
+    String id,
+    String estado,
+    String formato,
+    LocalDate desde,
+    LocalDate hasta,
+    List<String> sections,
+    int seccionesCompletadas,
+    int seccionesTotales,
+    Instant creado,
+    Instant finalizado,
+    Instant expiraEn,
+    String error
+) {}
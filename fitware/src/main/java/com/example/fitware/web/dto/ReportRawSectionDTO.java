@@ -0,0 +1,27 @@
+package com.example.fitware.web.dto;
+
+import java.util.List;
+
+public record ReportRawSectionDTO(
+    String id,
+    String category,
+    String title,
+    String description,
+    int rowCount,
+    List<ReportColumnDTO> columns,
+    long durationMs
+) {
+
+    public static ReportRawSectionDTO de(ReportSectionDTO section) {
+        List<ReportColumnDTO> columns = section.columns() == null ? List.of() : section.columns();
+        return new ReportRawSectionDTO(
+            section.id(),
+            section.category(),
+            section.title(),
+            section.description(),
+            section.rowCount(),
+            columns,
+            section.durationMs()
+        );
+    }
+}
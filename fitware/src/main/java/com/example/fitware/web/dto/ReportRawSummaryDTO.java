@@ -0,0 +1,22 @@
+package com.example.fitware.web.dto;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+public record ReportRawSummaryDTO(
+    LocalDate from,
+    LocalDate to,
+    Instant generatedAt,
+    List<ReportRawSectionDTO> sections
+) {
+
+    public static ReportRawSummaryDTO de(ReportSummaryDTO resumen) {
+        return new ReportRawSummaryDTO(
+            resumen.from(),
+            resumen.to(),
+            resumen.generatedAt(),
+            resumen.sections().stream().map(ReportRawSectionDTO::de).toList()
+        );
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.fitware.web.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.util.List;
 
 public record ReportSectionDTO(
@@ -8,5 +10,17 @@ public record ReportSectionDTO(
     String title,
     String description,
     List<String> headers,
-    List<List<String>> rows
-) {}
+    List<List<String>> rows,
+    long durationMs,
+    @JsonIgnore List<ReportColumnDTO> columns,
+    @JsonIgnore int rowCount
+) {
+
+    public ReportSectionDTO withDurationMs(long millis) {
+        return new ReportSectionDTO(id, category, title, description, headers, rows, millis, columns, rowCount);
+    }
+
+    public ReportSectionDTO withRows(List<List<String>> textRows) {
+        return new ReportSectionDTO(id, category, title, description, headers, textRows, durationMs, columns, rowCount);
+    }
+}
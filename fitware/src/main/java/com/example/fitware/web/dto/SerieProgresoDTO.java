@@ -0,0 +1,31 @@
+package com.example.fitware.web.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Serie de progreso reducida: cada punto resume los registros de {@code diasPorPunto} días
+ * consecutivos. Los tramos sin registros no aparecen.
+ */
+public record SerieProgresoDTO(
+    String clienteCedula,
+    LocalDate desde,
+    LocalDate hasta,
+    int diasPorPunto,
+    long registros,
+    List<Punto> puntos
+) {
+
+    /** {@code desde}/{@code hasta}: fechas del primer y último registro del tramo. */
+    public record Punto(
+        LocalDate desde,
+        LocalDate hasta,
+        int registros,
+        Double pesoMin,
+        Double pesoMax,
+        Double pesoPromedio,
+        Double imcMin,
+        Double imcMax,
+        Double imcPromedio
+    ) {}
+}
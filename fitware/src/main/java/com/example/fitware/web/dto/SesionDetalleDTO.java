@@ -0,0 +1,20 @@
+package com.example.fitware.web.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/** Sesión con el nombre del cliente y sus ejercicios, armada desde una sola consulta. */
+public record SesionDetalleDTO(
+    Integer id,
+    String clienteCedula,
+    String clienteNombre,
+    String estado,
+    LocalDateTime fechaInicio,
+    LocalDateTime fechaFin,
+    Double gastoCalorico,
+    int totalEjercicios,
+    int totalSeries,
+    int totalRepeticiones,
+    int ejerciciosCompletados,
+    List<SesionEjercicioDetalleDTO> ejercicios
+) {}
@@ -0,0 +1,14 @@
+package com.example.fitware.web.dto;
+
+/** Asignación de la vista de detalle, con los datos del ejercicio ya resueltos. */
+public record SesionEjercicioDetalleDTO(
+    Integer id,
+    Integer sesionId,
+    Integer ejercicioId,
+    String ejercicioNombre,
+    String ejercicioTipo,
+    String ejercicioEquipamiento,
+    Integer repeticiones,
+    Integer series,
+    String estado
+) {}
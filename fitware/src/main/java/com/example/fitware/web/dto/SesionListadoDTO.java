@@ -0,0 +1,17 @@
+package com.example.fitware.web.dto;
+
+import java.time.LocalDateTime;
+
+/** Fila plana del listado de sesiones (sin el cliente anidado). */
+public record SesionListadoDTO(
+    Integer id,
+    String clienteCedula,
+    String estado,
+    LocalDateTime fechaInicio,
+    LocalDateTime fechaFin,
+    Double gastoCalorico,
+    int totalEjercicios,
+    int totalSeries,
+    int totalRepeticiones,
+    int ejerciciosCompletados
+) {}
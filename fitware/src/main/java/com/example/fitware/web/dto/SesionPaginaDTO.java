@@ -0,0 +1,9 @@
+package com.example.fitware.web.dto;
+
+import java.util.List;
+
+/** Página del listado; {@code siguienteCursor} es null en la última. */
+public record SesionPaginaDTO(
+    List<SesionListadoDTO> items,
+    String siguienteCursor
+) {}
@@ -0,0 +1,147 @@
+-- Objetos auxiliares que la aplicación mantiene por su cuenta.
+-- Se ejecuta en cada arranque (spring.sql.init.mode=always), así que todo debe ser idempotente.
+
+-- ---------------------------------------------------------------------------
+-- Agregados mensuales para reportes (ver ReportRollupService)
+-- ---------------------------------------------------------------------------
+CREATE TABLE IF NOT EXISTS reporte_sesion_mensual (
+    mes                   DATE             NOT NULL,
+    cliente_cedula        VARCHAR          NOT NULL REFERENCES cliente (usuario_cedula) ON DELETE CASCADE,
+    estado                VARCHAR(30)      NOT NULL,
+    total_sesiones        BIGINT           NOT NULL DEFAULT 0,
+    suma_calorias         DOUBLE PRECISION NOT NULL DEFAULT 0,
+    sesiones_con_calorias BIGINT           NOT NULL DEFAULT 0,
+    PRIMARY KEY (mes, cliente_cedula, estado)
+);
+
+CREATE TABLE IF NOT EXISTS reporte_progreso_mensual (
+    mes                DATE             NOT NULL,
+    cliente_cedula     VARCHAR          NOT NULL REFERENCES cliente (usuario_cedula) ON DELETE CASCADE,
+    registros          BIGINT           NOT NULL DEFAULT 0,
+    suma_peso          DOUBLE PRECISION NOT NULL DEFAULT 0,
+    registros_con_peso BIGINT           NOT NULL DEFAULT 0,
+    PRIMARY KEY (mes, cliente_cedula)
+);
+
+-- Carga inicial: sólo cuando la tabla está vacía
+INSERT INTO reporte_sesion_mensual (mes, cliente_cedula, estado, total_sesiones, suma_calorias, sesiones_con_calorias)
+SELECT CAST(DATE_TRUNC('month', s.fecha_inicio) AS DATE),
+       s.cliente_cedula,
+       COALESCE(UPPER(s.estado), 'SIN_ESTADO'),
+       COUNT(*),
+       COALESCE(SUM(s.gasto_calorico), 0),
+       COUNT(s.gasto_calorico)
+FROM sesion s
+WHERE s.fecha_inicio IS NOT NULL
+  AND NOT EXISTS (SELECT 1 FROM reporte_sesion_mensual)
+GROUP BY 1, 2, 3;
+
+INSERT INTO reporte_progreso_mensual (mes, cliente_cedula, registros, suma_peso, registros_con_peso)
+SELECT CAST(DATE_TRUNC('month', p.fecha) AS DATE),
+       p.cliente_cedula,
+       COUNT(*),
+       COALESCE(SUM(p.peso), 0),
+       COUNT(p.peso)
+FROM progreso p
+WHERE p.fecha IS NOT NULL
+  AND NOT EXISTS (SELECT 1 FROM reporte_progreso_mensual)
+GROUP BY 1, 2;
+
+-- Los meses incompletos de cada extremo del rango se leen de las tablas base
+CREATE INDEX IF NOT EXISTS idx_sesion_fecha_inicio ON sesion (fecha_inicio);
+CREATE INDEX IF NOT EXISTS idx_progreso_fecha ON progreso (fecha);
+
+-- ---------------------------------------------------------------------------
+-- Resumen de progreso por cliente (ver ProgresoResumenService)
+-- ---------------------------------------------------------------------------
+CREATE TABLE IF NOT EXISTS cliente_progreso_resumen (
+    cliente_cedula VARCHAR PRIMARY KEY REFERENCES cliente (usuario_cedula) ON DELETE CASCADE,
+    ultima_fecha   DATE,
+    registros      BIGINT NOT NULL DEFAULT 0
+);
+
+-- Último peso e IMC registrados (el registro más reciente que tenga el valor)
+ALTER TABLE cliente_progreso_resumen ADD COLUMN IF NOT EXISTS ultimo_peso DOUBLE PRECISION;
+ALTER TABLE cliente_progreso_resumen ADD COLUMN IF NOT EXISTS ultimo_imc DOUBLE PRECISION;
+
+-- Completa los clientes que aún no tienen fila (carga inicial o altas hechas fuera de la API)
+INSERT INTO cliente_progreso_resumen (cliente_cedula, ultima_fecha, registros, ultimo_peso, ultimo_imc)
+SELECT c.usuario_cedula,
+       (SELECT MAX(p.fecha) FROM progreso p WHERE p.cliente_cedula = c.usuario_cedula),
+       (SELECT COUNT(*) FROM progreso p WHERE p.cliente_cedula = c.usuario_cedula),
+       (SELECT p.peso FROM progreso p
+        WHERE p.cliente_cedula = c.usuario_cedula AND p.peso IS NOT NULL
+        ORDER BY p.fecha DESC, p.id DESC LIMIT 1),
+       (SELECT p.imc FROM progreso p
+        WHERE p.cliente_cedula = c.usuario_cedula AND p.imc IS NOT NULL
+        ORDER BY p.fecha DESC, p.id DESC LIMIT 1)
+FROM cliente c
+WHERE NOT EXISTS (
+    SELECT 1 FROM cliente_progreso_resumen r WHERE r.cliente_cedula = c.usuario_cedula
+);
+
+-- Filas creadas antes de existir las columnas: solo las que tienen registros y aún no tienen valores
+UPDATE cliente_progreso_resumen r
+SET ultimo_peso = (SELECT p.peso FROM progreso p
+                   WHERE p.cliente_cedula = r.cliente_cedula AND p.peso IS NOT NULL
+                   ORDER BY p.fecha DESC, p.id DESC LIMIT 1),
+    ultimo_imc = (SELECT p.imc FROM progreso p
+                  WHERE p.cliente_cedula = r.cliente_cedula AND p.imc IS NOT NULL
+                  ORDER BY p.fecha DESC, p.id DESC LIMIT 1)
+WHERE r.registros > 0
+  AND r.ultimo_peso IS NULL
+  AND r.ultimo_imc IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_progreso_cliente_fecha ON progreso (cliente_cedula, fecha);
+CREATE INDEX IF NOT EXISTS idx_cliente_progreso_resumen_ultima
+    ON cliente_progreso_resumen (ultima_fecha NULLS FIRST, cliente_cedula);
+
+-- ---------------------------------------------------------------------------
+-- Secuencias de ids en bloques de 50 (allocationSize de Sesion, SesionEjercicios y Progreso)
+-- ---------------------------------------------------------------------------
+ALTER SEQUENCE IF EXISTS sesion_id_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS sesion_ejercicios_id_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS progreso_id_seq INCREMENT BY 50;
+
+-- ---------------------------------------------------------------------------
+-- Listado de sesiones por cursor (ver SesionService.paginaSesiones)
+-- ---------------------------------------------------------------------------
+CREATE INDEX IF NOT EXISTS idx_sesion_fecha_inicio_id ON sesion (fecha_inicio DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_sesion_cliente_fecha_inicio_id ON sesion (cliente_cedula, fecha_inicio DESC, id DESC);
+
+-- ---------------------------------------------------------------------------
+-- Filtros por estado de sesión (s.estado = 'Completada' AND rango de fecha_inicio)
+-- ---------------------------------------------------------------------------
+CREATE INDEX IF NOT EXISTS idx_sesion_estado_fecha_inicio ON sesion (estado, fecha_inicio);
+
+-- ---------------------------------------------------------------------------
+-- Totales de carga por sesión (ver SesionTotalesService)
+-- ---------------------------------------------------------------------------
+ALTER TABLE sesion ADD COLUMN IF NOT EXISTS total_ejercicios INTEGER;
+ALTER TABLE sesion ADD COLUMN IF NOT EXISTS total_series INTEGER;
+ALTER TABLE sesion ADD COLUMN IF NOT EXISTS total_repeticiones INTEGER;
+ALTER TABLE sesion ADD COLUMN IF NOT EXISTS ejercicios_completados INTEGER;
+
+-- Carga inicial: sólo las sesiones creadas antes de existir las columnas (quedan en NULL)
+UPDATE sesion s
+SET total_ejercicios = COALESCE(t.ejercicios, 0),
+    total_series = COALESCE(t.series, 0),
+    total_repeticiones = COALESCE(t.repeticiones, 0),
+    ejercicios_completados = COALESCE(t.completados, 0)
+FROM sesion x
+LEFT JOIN (
+    SELECT se.sesion_id,
+           COUNT(*) AS ejercicios,
+           SUM(se.series) AS series,
+           SUM(se.repeticiones) AS repeticiones,
+           COUNT(*) FILTER (WHERE se.estado = 'Completado') AS completados
+    FROM sesion_ejercicios se
+    GROUP BY se.sesion_id
+) t ON t.sesion_id = x.id
+WHERE x.id = s.id
+  AND s.total_ejercicios IS NULL;
+
+ALTER TABLE sesion ALTER COLUMN total_ejercicios SET DEFAULT 0;
+ALTER TABLE sesion ALTER COLUMN total_series SET DEFAULT 0;
+ALTER TABLE sesion ALTER COLUMN total_repeticiones SET DEFAULT 0;
+ALTER TABLE sesion ALTER COLUMN ejercicios_completados SET DEFAULT 0;
@@ -1,10 +1,8 @@
 package com.example.fitware;
 
 import org.junit.jupiter.api.Test;
-import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
-class FitwareApplicationTests {
+class FitwareApplicationTests extends PostgresEmbebido {
 
 	@Test
 	void contextLoads() {
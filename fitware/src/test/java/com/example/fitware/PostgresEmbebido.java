@@ -0,0 +1,45 @@
+package com.example.fitware;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Base de las pruebas de integración: un PostgreSQL embebido por JVM en lugar de la BD remota.
+ * Hibernate crea las tablas del modelo y después corre schema.sql, como en una BD ya migrada.
+ */
+@SpringBootTest(properties = {
+    "spring.jpa.hibernate.ddl-auto=create",
+    "spring.jpa.defer-datasource-initialization=true",
+    // Lotes pequeños para que las pruebas crucen varios
+    "fitware.clientes.purga.lote=2",
+    // Un N+1 que pase el presupuesto de sentencias hace fallar la petición
+    "fitware.sql.presupuesto-estricto=true",
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn",
+})
+@AutoConfigureMockMvc
+public abstract class PostgresEmbebido {
+
+    private static final EmbeddedPostgres POSTGRES = iniciar();
+
+    private static EmbeddedPostgres iniciar() {
+        try {
+            return EmbeddedPostgres.start();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("No se pudo iniciar PostgreSQL embebido", ex);
+        }
+    }
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+}
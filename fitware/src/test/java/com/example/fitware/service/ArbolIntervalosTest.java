@@ -0,0 +1,196 @@
+package com.example.fitware.service;
+
+import com.example.fitware.service.ArbolIntervalos.Intervalo;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ArbolIntervalosTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 3, 3, 0, 0);
+
+    private static LocalDateTime h(int horas) {
+        return BASE.plusHours(horas);
+    }
+
+    private static Intervalo intervalo(int id, int desde, int hasta) {
+        return new Intervalo(id, h(desde), h(hasta));
+    }
+
+    private static List<Integer> ids(List<Intervalo> intervalos) {
+        return intervalos.stream().map(Intervalo::id).toList();
+    }
+
+    /** Cota de altura de un AVL: 1,44·log2(n + 2). */
+    private static void assertBalanceado(ArbolIntervalos arbol) {
+        double cota = 1.45 * Math.log(arbol.tamano() + 2) / Math.log(2);
+        assertThat(arbol.altura()).isLessThanOrEqualTo((int) cota);
+    }
+
+    @Test
+    void intervalosSemiabiertosNoSeTocanEnLosBordes() {
+        ArbolIntervalos arbol = new ArbolIntervalos();
+        arbol.insertar(intervalo(1, 10, 11));
+
+        assertThat(arbol.solapes(h(11), h(12))).isEmpty();
+        assertThat(arbol.solapes(h(9), h(10))).isEmpty();
+        assertThat(ids(arbol.solapes(h(9), h(10).plusMinutes(1)))).containsExactly(1);
+        assertThat(ids(arbol.solapes(h(11).minusMinutes(1), h(12)))).containsExactly(1);
+        assertThat(ids(arbol.solapes(h(10), h(11)))).containsExactly(1);
+        assertThat(ids(arbol.solapes(h(0), h(24)))).containsExactly(1);
+    }
+
+    @Test
+    void solapesEnOrdenDeInicioConEmpatesPorId() {
+        ArbolIntervalos arbol = new ArbolIntervalos();
+        arbol.insertar(intervalo(7, 5, 8));
+        arbol.insertar(intervalo(3, 5, 6));
+        arbol.insertar(intervalo(9, 1, 20));
+        arbol.insertar(intervalo(4, 7, 9));
+
+        assertThat(ids(arbol.solapes(h(5), h(8)))).containsExactly(9, 3, 7, 4);
+    }
+
+    @Test
+    void insertarConElMismoIdReemplaza() {
+        ArbolIntervalos arbol = new ArbolIntervalos();
+        arbol.insertar(intervalo(1, 10, 11));
+        arbol.insertar(intervalo(1, 20, 21));
+
+        assertThat(arbol.tamano()).isEqualTo(1);
+        assertThat(arbol.solapes(h(10), h(11))).isEmpty();
+        assertThat(ids(arbol.solapes(h(20), h(21)))).containsExactly(1);
+    }
+
+    @Test
+    void insercionesOrdenadasSeRebalancean() {
+        ArbolIntervalos ascendente = new ArbolIntervalos();
+        ArbolIntervalos descendente = new ArbolIntervalos();
+        for (int i = 0; i < 1_000; i++) {
+            ascendente.insertar(intervalo(i, i, i + 1));
+            descendente.insertar(intervalo(i, 1_000 - i, 1_001 - i));
+        }
+        assertBalanceado(ascendente);
+        assertBalanceado(descendente);
+        assertThat(ascendente.altura()).isLessThanOrEqualTo(11);
+
+        for (int i = 0; i < 1_000; i += 2) {
+            ascendente.quitar(i);
+        }
+        assertThat(ascendente.tamano()).isEqualTo(500);
+        assertBalanceado(ascendente);
+        assertThat(ids(ascendente.solapes(h(10), h(14)))).containsExactly(11, 13);
+    }
+
+    @Test
+    void maxFinSeMantieneTrasLasRotaciones() {
+        ArbolIntervalos arbol = new ArbolIntervalos();
+        // El intervalo largo empieza primero: las rotaciones lo bajan al subárbol izquierdo
+        arbol.insertar(intervalo(0, 0, 500));
+        for (int i = 1; i <= 100; i++) {
+            arbol.insertar(intervalo(i, i, i + 1));
+        }
+        assertBalanceado(arbol);
+
+        assertThat(ids(arbol.solapes(h(300), h(301)))).containsExactly(0);
+        assertThat(ids(arbol.solapes(h(50), h(51)))).containsExactly(0, 50);
+    }
+
+    @Test
+    void maxFinSeRecalculaAlReemplazarPorElSucesor() {
+        ArbolIntervalos arbol = new ArbolIntervalos();
+        arbol.insertar(intervalo(1, 10, 11));
+        arbol.insertar(intervalo(2, 5, 6));
+        arbol.insertar(intervalo(3, 20, 21));
+        arbol.insertar(intervalo(4, 15, 100));   // sucesor de la raíz (id 1), con el fin mayor
+        arbol.insertar(intervalo(5, 25, 26));
+
+        arbol.quitar(1);   // nodo con dos hijos: lo reemplaza el intervalo 4
+
+        assertThat(ids(arbol.solapes(h(10), h(11)))).isEmpty();
+        assertThat(ids(arbol.solapes(h(60), h(61)))).containsExactly(4);
+        assertThat(ids(arbol.solapes(h(0), h(200)))).containsExactly(2, 4, 3, 5);
+
+        arbol.quitar(4);   // y al quitar el largo, ya nada cubre la hora 60
+        assertThat(arbol.solapes(h(60), h(61))).isEmpty();
+        assertThat(ids(arbol.solapes(h(0), h(200)))).containsExactly(2, 3, 5);
+    }
+
+    @Test
+    void quitarUnIdInexistenteNoHaceNada() {
+        ArbolIntervalos arbol = new ArbolIntervalos();
+        arbol.insertar(intervalo(1, 0, 1));
+        arbol.quitar(99);
+
+        assertThat(arbol.tamano()).isEqualTo(1);
+        assertThat(arbol.vacio()).isFalse();
+        arbol.quitar(1);
+        assertThat(arbol.vacio()).isTrue();
+        assertThat(arbol.altura()).isZero();
+    }
+
+    @Test
+    void podarQuitaLosQueTerminanEnOAntesDelLimite() {
+        ArbolIntervalos arbol = new ArbolIntervalos();
+        arbol.insertar(intervalo(1, 0, 5));
+        arbol.insertar(intervalo(2, 3, 10));
+        arbol.insertar(intervalo(3, 8, 11));
+        arbol.insertar(intervalo(4, 0, 30));
+
+        arbol.podar(h(10));
+
+        assertThat(ids(arbol.solapes(h(0), h(100)))).containsExactly(4, 3);
+        arbol.podar(h(30));
+        assertThat(arbol.vacio()).isTrue();
+    }
+
+    @Test
+    void coincideConUnaBusquedaLinealEnOperacionesAleatorias() {
+        Random random = new Random(42);
+        ArbolIntervalos arbol = new ArbolIntervalos();
+        Map<Integer, Intervalo> esperados = new HashMap<>();
+        Comparator<Intervalo> orden = Comparator.comparing(Intervalo::inicio).thenComparingInt(Intervalo::id);
+
+        for (int paso = 0; paso < 5_000; paso++) {
+            int id = random.nextInt(300);
+            int operacion = random.nextInt(10);
+            if (operacion < 6) {
+                int desde = random.nextInt(1_000);
+                // Algunos largos para que maxFin dependa de nodos lejanos
+                int duracion = random.nextInt(10) == 0 ? 1 + random.nextInt(400) : 1 + random.nextInt(8);
+                Intervalo nuevo = intervalo(id, desde, desde + duracion);
+                arbol.insertar(nuevo);
+                esperados.put(id, nuevo);
+            } else if (operacion < 9) {
+                arbol.quitar(id);
+                esperados.remove(id);
+            } else {
+                LocalDateTime limite = h(random.nextInt(1_000));
+                arbol.podar(limite);
+                esperados.values().removeIf(i -> !i.fin().isAfter(limite));
+            }
+
+            int desde = random.nextInt(1_100);
+            LocalDateTime inicio = h(desde);
+            LocalDateTime fin = h(desde + 1 + random.nextInt(20));
+            List<Intervalo> lineal = new ArrayList<>();
+            for (Intervalo i : esperados.values()) {
+                if (i.solapa(inicio, fin)) {
+                    lineal.add(i);
+                }
+            }
+            lineal.sort(orden);
+            assertThat(arbol.solapes(inicio, fin)).as("paso %d", paso).isEqualTo(lineal);
+            assertThat(arbol.tamano()).isEqualTo(esperados.size());
+            assertBalanceado(arbol);
+        }
+    }
+}
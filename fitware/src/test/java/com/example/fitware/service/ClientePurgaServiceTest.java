@@ -0,0 +1,184 @@
+package com.example.fitware.service;
+
+import com.example.fitware.PostgresEmbebido;
+import com.example.fitware.domain.Cliente;
+import com.example.fitware.domain.Ejercicio;
+import com.example.fitware.domain.EstadoEjercicio;
+import com.example.fitware.domain.EstadoSesion;
+import com.example.fitware.domain.Progreso;
+import com.example.fitware.domain.Sesion;
+import com.example.fitware.domain.Usuario;
+import com.example.fitware.repository.EjercicioRepository;
+import com.example.fitware.service.SesionService.PlantillaEjercicio;
+import com.example.fitware.web.dto.PurgaClienteDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClientePurgaServiceTest extends PostgresEmbebido {
+
+    private static final String AGREGADO_SESIONES = """
+        SELECT mes, cliente_cedula, estado, total_sesiones, suma_calorias, sesiones_con_calorias
+        FROM reporte_sesion_mensual
+        WHERE cliente_cedula IN ('7001', '7002')
+        ORDER BY 1, 2, 3
+        """;
+
+    /** El mismo cálculo de la carga inicial de schema.sql. */
+    private static final String RECALCULO_SESIONES = """
+        SELECT CAST(DATE_TRUNC('month', s.fecha_inicio) AS DATE) AS mes,
+               s.cliente_cedula,
+               COALESCE(UPPER(s.estado), 'SIN_ESTADO') AS estado,
+               COUNT(*) AS total_sesiones,
+               COALESCE(SUM(s.gasto_calorico), 0) AS suma_calorias,
+               COUNT(s.gasto_calorico) AS sesiones_con_calorias
+        FROM sesion s
+        WHERE s.fecha_inicio IS NOT NULL AND s.cliente_cedula IN ('7001', '7002')
+        GROUP BY 1, 2, 3
+        ORDER BY 1, 2, 3
+        """;
+
+    private static final String AGREGADO_PROGRESOS = """
+        SELECT mes, cliente_cedula, registros, suma_peso, registros_con_peso
+        FROM reporte_progreso_mensual
+        WHERE cliente_cedula IN ('7001', '7002')
+        ORDER BY 1, 2
+        """;
+
+    private static final String RECALCULO_PROGRESOS = """
+        SELECT CAST(DATE_TRUNC('month', p.fecha) AS DATE) AS mes,
+               p.cliente_cedula,
+               COUNT(*) AS registros,
+               COALESCE(SUM(p.peso), 0) AS suma_peso,
+               COUNT(p.peso) AS registros_con_peso
+        FROM progreso p
+        WHERE p.fecha IS NOT NULL AND p.cliente_cedula IN ('7001', '7002')
+        GROUP BY 1, 2
+        ORDER BY 1, 2
+        """;
+
+    @Autowired
+    private ClienteService clienteService;
+    @Autowired
+    private SesionService sesionService;
+    @Autowired
+    private ClientePurgaService purgaService;
+    @Autowired
+    private EjercicioRepository ejercicios;
+    @Autowired
+    private JdbcTemplate jdbc;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void cadaLoteDejaAgregadosTotalesYResumenAlDia() throws InterruptedException {
+        registrar("7001");
+        registrar("7002");
+        Ejercicio ejercicio = new Ejercicio();
+        ejercicio.setNombre("Sentadilla");
+        Integer ejercicioId = ejercicios.save(ejercicio).getId();
+        List<PlantillaEjercicio> plantilla = List.of(
+            new PlantillaEjercicio(ejercicioId, 10, 3, EstadoEjercicio.PENDIENTE));
+
+        sesionService.crearSesionesConEjercicios("7001", List.of(
+            sesion(2024, 1, 3, EstadoSesion.COMPLETADA, 300.0),
+            sesion(2024, 1, 10, EstadoSesion.COMPLETADA, null),
+            sesion(2024, 1, 17, EstadoSesion.PENDIENTE, 250.0),
+            sesion(2024, 2, 7, EstadoSesion.COMPLETADA, 400.0),
+            sesion(2024, 2, 14, EstadoSesion.PENDIENTE, null)
+        ), plantilla, true);
+        sesionService.crearSesionesConEjercicios("7002", List.of(
+            sesion(2024, 1, 3, EstadoSesion.COMPLETADA, 500.0)), plantilla, true);
+        for (int dia = 1; dia <= 5; dia++) {
+            progreso("7001", LocalDate.of(2024, 1 + dia % 2, dia), dia == 3 ? null : 80.0 + dia);
+        }
+        progreso("7002", LocalDate.of(2024, 1, 9), 70.0);
+        assertCoherente();
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        assertThat(porLotes(tx, purgaService::borrarAsignaciones, () ->
+            assertThat(jdbc.queryForObject(
+                "SELECT SUM(total_ejercicios) FROM sesion WHERE cliente_cedula = '7001'", Long.class))
+                .isEqualTo(jdbc.queryForObject("""
+                    SELECT COUNT(*) FROM sesion_ejercicios se
+                    JOIN sesion s ON s.id = se.sesion_id
+                    WHERE s.cliente_cedula = '7001'
+                    """, Long.class))))
+            .containsExactly(2, 2, 1);
+        assertThat(porLotes(tx, purgaService::borrarSesiones, this::assertCoherente))
+            .containsExactly(2, 2, 1);
+        assertThat(porLotes(tx, purgaService::borrarProgresos, () -> {
+            assertCoherente();
+            assertThat(jdbc.queryForObject(
+                "SELECT registros FROM cliente_progreso_resumen WHERE cliente_cedula = '7001'", Long.class))
+                .isEqualTo(jdbc.queryForObject(
+                    "SELECT COUNT(*) FROM progreso WHERE cliente_cedula = '7001'", Long.class));
+        })).containsExactly(2, 2, 1);
+
+        assertThat(jdbc.queryForList("SELECT cliente_cedula FROM reporte_sesion_mensual WHERE cliente_cedula IN ('7001', '7002')", String.class))
+            .containsExactly("7002");
+        assertThat(jdbc.queryForList("SELECT cliente_cedula FROM reporte_progreso_mensual WHERE cliente_cedula IN ('7001', '7002')", String.class))
+            .containsExactly("7002");
+
+        purgaService.iniciar("7001");
+        PurgaClienteDTO purga = purgaService.consultar("7001");
+        for (int i = 0; i < 100 && "EN_PROCESO".equals(purga.estado()); i++) {
+            Thread.sleep(50);
+            purga = purgaService.consultar("7001");
+        }
+        assertThat(purga.estado()).isEqualTo("COMPLETADO");
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM cliente WHERE usuario_cedula = '7001'", Long.class)).isZero();
+    }
+
+    /** Borra lote por lote, revisando el estado después de cada confirmación. */
+    private static List<Integer> porLotes(TransactionTemplate tx, ToIntFunction<String> lote, Runnable revisar) {
+        List<Integer> borradas = new ArrayList<>();
+        int n;
+        while ((n = tx.execute(status -> lote.applyAsInt("7001"))) > 0) {
+            borradas.add(n);
+            revisar.run();
+        }
+        return borradas;
+    }
+
+    private void assertCoherente() {
+        assertThat(jdbc.queryForList(AGREGADO_SESIONES)).isEqualTo(jdbc.queryForList(RECALCULO_SESIONES));
+        assertThat(jdbc.queryForList(AGREGADO_PROGRESOS)).isEqualTo(jdbc.queryForList(RECALCULO_PROGRESOS));
+    }
+
+    private void registrar(String cedula) {
+        Usuario u = new Usuario();
+        u.setCedula(cedula);
+        u.setNombre("Cliente");
+        u.setApellidos(cedula);
+        Cliente c = new Cliente();
+        c.setFechaRegistro(LocalDate.of(2023, 12, 1));
+        clienteService.registrarCliente(u, c);
+    }
+
+    private void progreso(String cedula, LocalDate fecha, Double peso) {
+        Progreso p = new Progreso();
+        p.setFecha(fecha);
+        p.setPeso(peso);
+        clienteService.agregarProgreso(cedula, p);
+    }
+
+    private static Sesion sesion(int anio, int mes, int dia, EstadoSesion estado, Double calorias) {
+        Sesion s = new Sesion();
+        s.setEstado(estado);
+        s.setFechaInicio(LocalDateTime.of(anio, mes, dia, 18, 0));
+        s.setFechaFin(LocalDateTime.of(anio, mes, dia, 19, 0));
+        s.setGastoCalorico(calorias);
+        return s;
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.fitware.service;
+
+import com.example.fitware.domain.Cliente;
+import com.example.fitware.repository.ClienteRepository;
+import com.example.fitware.repository.ProgresoRepository;
+import com.example.fitware.repository.SesionEjerciciosRepository;
+import com.example.fitware.repository.SesionRepository;
+import com.example.fitware.repository.UsuarioRepository;
+import com.example.fitware.web.dto.SerieProgresoDTO;
+import com.example.fitware.web.dto.SerieProgresoDTO.Punto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Answers.RETURNS_SELF;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ClienteServiceSerieTest {
+
+    private static final LocalDate INICIO = LocalDate.of(2024, 1, 1);
+
+    private final List<Object[]> filas = new ArrayList<>();
+    private ClienteService service;
+
+    @BeforeEach
+    void preparar() {
+        ClienteRepository cRepo = mock(ClienteRepository.class);
+        Cliente cliente = new Cliente();
+        cliente.setUsuarioCedula("1001");
+        when(cRepo.findById("1001")).thenReturn(Optional.of(cliente));
+
+        Query query = mock(Query.class, RETURNS_SELF);
+        when(query.getResultStream()).thenAnswer(inv -> filas.stream());
+        when(query.getSingleResult()).thenAnswer(inv -> filas.isEmpty()
+            ? new Object[] {null, null}
+            : new Object[] {filas.get(0)[0], filas.get(filas.size() - 1)[0]});
+        EntityManager entityManager = mock(EntityManager.class);
+        when(entityManager.createNativeQuery(anyString())).thenReturn(query);
+
+        service = new ClienteService(cRepo, mock(UsuarioRepository.class), mock(ProgresoRepository.class),
+            mock(SesionRepository.class), mock(SesionEjerciciosRepository.class), mock(ReportRollupService.class),
+            mock(ProgresoResumenService.class), event -> { }, mock(AgendaSesiones.class),
+            mock(IndiceClientes.class), entityManager);
+    }
+
+    /** Las filas llegan ordenadas por fecha, como las devuelve la consulta. */
+    private void registro(int dia, Double peso, Double imc) {
+        filas.add(new Object[] {java.sql.Date.valueOf(INICIO.plusDays(dia - 1)),
+            peso == null ? null : BigDecimal.valueOf(peso), imc});
+    }
+
+    @Test
+    void elUltimoTramoIncluyeElDiaHastaAunqueQuedeIncompleto() {
+        registro(1, 80.0, null);
+        registro(3, 81.0, null);
+        registro(6, 79.0, null);
+        registro(10, 78.0, null);
+
+        // 10 días en 3 puntos: tramos de 4 días, el último con solo 2 (días 9 y 10)
+        SerieProgresoDTO serie = service.serieProgreso("1001", INICIO, INICIO.plusDays(9), 3);
+
+        assertThat(serie.diasPorPunto()).isEqualTo(4);
+        assertThat(serie.registros()).isEqualTo(4);
+        assertThat(serie.puntos()).extracting(Punto::registros).containsExactly(2, 1, 1);
+        Punto ultimo = serie.puntos().get(2);
+        assertThat(ultimo.desde()).isEqualTo(INICIO.plusDays(9));
+        assertThat(ultimo.hasta()).isEqualTo(INICIO.plusDays(9));
+        assertThat(ultimo.pesoPromedio()).isEqualTo(78.0);
+    }
+
+    @Test
+    void unSoloRegistroEsUnSoloPunto() {
+        registro(5, 70.5, 22.0);
+
+        SerieProgresoDTO serie = service.serieProgreso("1001", null, null, null);
+
+        assertThat(serie.desde()).isEqualTo(INICIO.plusDays(4));
+        assertThat(serie.hasta()).isEqualTo(INICIO.plusDays(4));
+        assertThat(serie.diasPorPunto()).isEqualTo(1);
+        assertThat(serie.puntos()).singleElement().satisfies(p -> {
+            assertThat(p.registros()).isEqualTo(1);
+            assertThat(p.pesoMin()).isEqualTo(70.5);
+            assertThat(p.pesoMax()).isEqualTo(70.5);
+            assertThat(p.pesoPromedio()).isEqualTo(70.5);
+            assertThat(p.imcPromedio()).isEqualTo(22.0);
+        });
+    }
+
+    @Test
+    void rangoMasCortoQueLosPuntosPedidosUsaUnDiaPorPunto() {
+        registro(1, 80.0, null);
+        registro(1, 81.0, null);
+        registro(2, 82.0, null);
+        registro(4, 83.0, null);
+
+        SerieProgresoDTO serie = service.serieProgreso("1001", INICIO, INICIO.plusDays(4), 200);
+
+        assertThat(serie.diasPorPunto()).isEqualTo(1);
+        // Dos registros del mismo día comparten punto; el día 3 no tiene registros y no aparece
+        assertThat(serie.puntos()).extracting(Punto::desde)
+            .containsExactly(INICIO, INICIO.plusDays(1), INICIO.plusDays(3));
+        assertThat(serie.puntos()).extracting(Punto::registros).containsExactly(2, 1, 1);
+    }
+
+    @Test
+    void minimoMaximoYPromedioPorTramoIgnorandoValoresFaltantes() {
+        registro(1, 80.0, 25.0);
+        registro(2, 84.0, null);
+        registro(7, 76.0, 24.0);
+        registro(8, null, 23.0);
+        registro(9, 90.0, 26.0);
+
+        SerieProgresoDTO serie = service.serieProgreso("1001", INICIO, INICIO.plusDays(13), 2);
+
+        assertThat(serie.diasPorPunto()).isEqualTo(7);
+        assertThat(serie.puntos()).hasSize(2);
+        Punto primero = serie.puntos().get(0);
+        assertThat(primero.desde()).isEqualTo(INICIO);
+        assertThat(primero.hasta()).isEqualTo(INICIO.plusDays(6));
+        assertThat(primero.registros()).isEqualTo(3);
+        assertThat(primero.pesoMin()).isEqualTo(76.0);
+        assertThat(primero.pesoMax()).isEqualTo(84.0);
+        assertThat(primero.pesoPromedio()).isCloseTo(80.0, within(1e-9));
+        assertThat(primero.imcMin()).isEqualTo(24.0);
+        assertThat(primero.imcMax()).isEqualTo(25.0);
+        assertThat(primero.imcPromedio()).isCloseTo(24.5, within(1e-9));
+        Punto segundo = serie.puntos().get(1);
+        assertThat(segundo.registros()).isEqualTo(2);
+        assertThat(segundo.pesoMin()).isEqualTo(90.0);
+        assertThat(segundo.pesoPromedio()).isEqualTo(90.0);
+        assertThat(segundo.imcPromedio()).isCloseTo(24.5, within(1e-9));
+    }
+
+    @Test
+    void tramoSinPesoNiImcDevuelveNulos() {
+        registro(1, null, null);
+
+        Punto punto = service.serieProgreso("1001", INICIO, INICIO, 10).puntos().get(0);
+
+        assertThat(punto.registros()).isEqualTo(1);
+        assertThat(punto.pesoMin()).isNull();
+        assertThat(punto.pesoPromedio()).isNull();
+        assertThat(punto.imcMax()).isNull();
+    }
+
+    @Test
+    void sinRegistrosNiFechasDevuelveSerieVacia() {
+        SerieProgresoDTO serie = service.serieProgreso("1001", null, null, null);
+
+        assertThat(serie.registros()).isZero();
+        assertThat(serie.puntos()).isEmpty();
+    }
+
+    @Test
+    void validaPuntosYRango() {
+        assertThatThrownBy(() -> service.serieProgreso("1001", INICIO, INICIO, 0))
+            .isInstanceOf(ResponseStatusException.class);
+        assertThatThrownBy(() -> service.serieProgreso("1001", INICIO, INICIO.minusDays(1), 10))
+            .isInstanceOf(ResponseStatusException.class);
+    }
+}
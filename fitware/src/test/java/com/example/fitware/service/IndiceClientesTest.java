@@ -0,0 +1,116 @@
+package com.example.fitware.service;
+
+import com.example.fitware.domain.Usuario;
+import com.example.fitware.web.dto.BusquedaClientesDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IndiceClientesTest {
+
+    private IndiceClientes indice;
+
+    @BeforeEach
+    void cargar() {
+        EntityManager entityManager = mock(EntityManager.class);
+        Query query = mock(Query.class);
+        when(entityManager.createNativeQuery(anyString())).thenReturn(query);
+        when(query.getResultList()).thenReturn(List.<Object[]>of(
+            new Object[] {"1001", "José", "Pérez Gómez"},
+            new Object[] {"1002", "Josefina", "Ruiz"},
+            new Object[] {"2004", "Mariajose", "Castro"},
+            new Object[] {"1-0203-0456", "Ana", "Rojas"}
+        ));
+        indice = new IndiceClientes(entityManager);
+        indice.precargar();
+    }
+
+    private List<String> cedulas(String consulta) {
+        return indice.buscar(consulta, 0, 10).items().stream().map(BusquedaClientesDTO.Item::cedula).toList();
+    }
+
+    @Test
+    void ordenaPorPalabraExactaPrefijoYSubcadena() {
+        BusquedaClientesDTO r = indice.buscar("JOSE", 0, 10);
+
+        assertThat(r.total()).isEqualTo(3);
+        assertThat(r.items()).extracting(BusquedaClientesDTO.Item::cedula).containsExactly("1001", "1002", "2004");
+        assertThat(r.items()).extracting(BusquedaClientesDTO.Item::puntaje).containsExactly(50, 30, 10);
+    }
+
+    @Test
+    void todosLosTerminosDebenAparecerSinImportarTildes() {
+        assertThat(cedulas("jose perez")).containsExactly("1001");
+        assertThat(cedulas("josé gomez")).containsExactly("1001");
+        assertThat(cedulas("jose rojas")).isEmpty();
+    }
+
+    @Test
+    void prefijosDeUnoYDosCaracteres() {
+        // Empates de puntaje: por apellidos (Pérez antes que Ruiz)
+        assertThat(cedulas("j")).containsExactly("1001", "1002");
+        // Con menos de 3 caracteres solo cuenta el inicio de palabra: "Mariajose" no aparece
+        assertThat(cedulas("jo")).containsExactly("1001", "1002");
+        assertThat(cedulas("r")).containsExactly("1-0203-0456", "1002");
+        assertThat(cedulas("x")).isEmpty();
+    }
+
+    @Test
+    void paginaSobreElOrdenCompleto() {
+        BusquedaClientesDTO r = indice.buscar("jose", 1, 2);
+
+        assertThat(r.total()).isEqualTo(3);
+        assertThat(r.items()).extracting(BusquedaClientesDTO.Item::cedula).containsExactly("2004");
+        assertThat(indice.buscar("jose", 5, 2).items()).isEmpty();
+    }
+
+    @Test
+    void cedulaConGuionesSeBuscaConOSinPuntuacion() {
+        BusquedaClientesDTO conGuiones = indice.buscar("1-0203-0456", 0, 10);
+        BusquedaClientesDTO sinGuiones = indice.buscar("102030456", 0, 10);
+
+        assertThat(conGuiones.items()).extracting(BusquedaClientesDTO.Item::puntaje).containsExactly(100);
+        assertThat(sinGuiones.items()).extracting(BusquedaClientesDTO.Item::cedula).containsExactly("1-0203-0456");
+        assertThat(sinGuiones.items().get(0).puntaje()).isEqualTo(100);
+        assertThat(cedulas("1 0203")).containsExactly("1-0203-0456");
+        assertThat(cedulas("1001")).containsExactly("1001");
+    }
+
+    @Test
+    void renombrarReemplazaLasPalabrasAnteriores() {
+        indice.registrar(usuario("1001", "Pedro", "Pérez Gómez"));
+
+        assertThat(cedulas("jose")).containsExactly("1002", "2004");
+        assertThat(cedulas("pedro")).containsExactly("1001");
+        assertThat(cedulas("perez")).containsExactly("1001");
+    }
+
+    @Test
+    void retirarYReutilizarElEspacio() {
+        indice.retirar("1002");
+        assertThat(cedulas("josefina")).isEmpty();
+        assertThat(cedulas("ruiz")).isEmpty();
+
+        indice.registrar(usuario("3005", "Luis", "Ruiz"));
+        assertThat(cedulas("ruiz")).containsExactly("3005");
+        assertThat(cedulas("jose")).containsExactly("1001", "2004");
+        indice.retirar("no-existe");
+        assertThat(cedulas("luis")).containsExactly("3005");
+    }
+
+    private static Usuario usuario(String cedula, String nombre, String apellidos) {
+        Usuario u = new Usuario();
+        u.setCedula(cedula);
+        u.setNombre(nombre);
+        u.setApellidos(apellidos);
+        return u;
+    }
+}
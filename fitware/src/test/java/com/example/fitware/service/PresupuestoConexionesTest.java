@@ -0,0 +1,47 @@
+package com.example.fitware.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PresupuestoConexionesTest {
+
+    @Test
+    void reservaLasConexionesDelCrud() {
+        assertThat(new PresupuestoConexiones(10, 2, Duration.ZERO).total()).isEqualTo(8);
+        // Nunca menos de un permiso, aunque la reserva cubra todo el pool
+        assertThat(new PresupuestoConexiones(2, 2, Duration.ZERO).total()).isEqualTo(1);
+    }
+
+    @Test
+    void sinPermisosLibresRespondeTooManyRequests() {
+        PresupuestoConexiones presupuesto = new PresupuestoConexiones(4, 2, Duration.ofMillis(10));
+        PresupuestoConexiones.Permiso primero = presupuesto.ocupar();
+        PresupuestoConexiones.Permiso segundo = presupuesto.ocuparEsperando();
+
+        assertThatThrownBy(presupuesto::ocupar)
+            .isInstanceOfSatisfying(ResponseStatusException.class,
+                ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS));
+
+        primero.close();
+        presupuesto.ocupar().close();
+        segundo.close();
+    }
+
+    @Test
+    void cerrarDosVecesDevuelveUnSoloPermiso() {
+        PresupuestoConexiones presupuesto = new PresupuestoConexiones(3, 2, Duration.ofMillis(10));
+        PresupuestoConexiones.Permiso permiso = presupuesto.ocupar();
+        permiso.close();
+        permiso.close();
+
+        PresupuestoConexiones.Permiso otro = presupuesto.ocupar();
+        assertThatThrownBy(presupuesto::ocupar).isInstanceOf(ResponseStatusException.class);
+        otro.close();
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.fitware.service;
+
+import com.example.fitware.domain.Cliente;
+import com.example.fitware.domain.Progreso;
+import com.example.fitware.repository.ClienteRepository;
+import com.example.fitware.repository.ProgresoRepository;
+import com.example.fitware.service.ProgresoIngestaService.Formato;
+import com.example.fitware.web.dto.IngestaProgresoDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProgresoIngestaServiceTest {
+
+    private ProgresoRepository pRepo;
+    private EntityManager entityManager;
+    private final List<List<Object>> consultadas = new ArrayList<>();
+    private List<String> clientes;
+
+    @BeforeEach
+    void preparar() {
+        pRepo = mock(ProgresoRepository.class);
+        entityManager = mock(EntityManager.class);
+        clientes = List.of("1001", "1002");
+        Query query = mock(Query.class);
+        when(entityManager.createNativeQuery(anyString())).thenReturn(query);
+        when(query.setParameter(any(String.class), any())).thenAnswer(inv -> {
+            consultadas.add(List.copyOf((Collection<?>) inv.getArgument(1)));
+            return query;
+        });
+        when(query.getResultList()).thenAnswer(inv -> clientes.stream()
+            .filter(consultadas.get(consultadas.size() - 1)::contains)
+            .toList());
+    }
+
+    private ProgresoIngestaService servicio(int lote) {
+        ClienteRepository cRepo = mock(ClienteRepository.class);
+        when(cRepo.getReferenceById(anyString())).thenAnswer(inv -> {
+            Cliente c = new Cliente();
+            c.setUsuarioCedula(inv.getArgument(0));
+            return c;
+        });
+        PlatformTransactionManager tm = mock(PlatformTransactionManager.class);
+        when(tm.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        return new ProgresoIngestaService(cRepo, pRepo, mock(ReportRollupService.class),
+            mock(ProgresoResumenService.class), event -> { }, entityManager,
+            new ObjectMapper(), tm, lote);
+    }
+
+    private static ByteArrayInputStream archivo(String contenido) {
+        return new ByteArrayInputStream(contenido.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void camposCsvRespetaComillasYComillasEscapadas() {
+        assertThat(ProgresoIngestaService.camposCsv("1001,2024-01-05,80.5,,\"Tras la cena, 2h\""))
+            .containsExactly("1001", "2024-01-05", "80.5", "", "Tras la cena, 2h");
+        assertThat(ProgresoIngestaService.camposCsv("1001,2024-01-05,,,\"Dijo \"\"bien\"\"\""))
+            .containsExactly("1001", "2024-01-05", "", "", "Dijo \"bien\"");
+        assertThat(ProgresoIngestaService.camposCsv("\"\",\"\"\"\""))
+            .containsExactly("", "\"");
+        assertThat(ProgresoIngestaService.camposCsv("a,b,"))
+            .containsExactly("a", "b", "");
+    }
+
+    @Test
+    void camposCsvRechazaComillasSinCerrar() {
+        assertThatThrownBy(() -> ProgresoIngestaService.camposCsv("1001,\"sin cerrar"))
+            .hasMessage("Comillas sin cerrar");
+    }
+
+    @Test
+    void csvConFinDeLineaCrlfYEncabezado() {
+        IngestaProgresoDTO r = servicio(10).ingerir(archivo(
+            "\uFEFFcedula,fecha,peso,imc,observaciones\r\n"
+                + "1001,2024-01-05,80.5,24.1,\"Ayuno, mañana\"\r\n"
+                + "\r\n"
+                + "1002,2024-01-06\r\n"), Formato.CSV);
+
+        assertThat(r.lineas()).isEqualTo(2);
+        assertThat(r.insertadas()).isEqualTo(2);
+        assertThat(r.rechazadas()).isZero();
+        List<Progreso> guardados = guardados();
+        assertThat(guardados.get(0).getObservaciones()).isEqualTo("Ayuno, mañana");
+        assertThat(guardados.get(1).getFecha()).isEqualTo(LocalDate.of(2024, 1, 6));
+        assertThat(guardados.get(1).getPeso()).isNull();
+    }
+
+    @Test
+    void jsonLinesInsertaValidasYReportaErroresPorLinea() {
+        IngestaProgresoDTO r = servicio(10).ingerir(archivo("""
+            {"cedula":"1001","fecha":"2024-02-01","peso":81.2,"imc":24.5,"observaciones":"  "}
+            {"cedula":"1001","fecha":"01/02/2024"}
+            {"cedula":"9999","fecha":"2024-02-01"}
+            no es json
+            {"cedula":"1002","fecha":"2024-02-02","peso":-3}
+            {"cedula":"1002","fecha":"2024-02-03"}
+            """), Formato.JSONL);
+
+        assertThat(r.lineas()).isEqualTo(6);
+        assertThat(r.insertadas()).isEqualTo(2);
+        assertThat(r.rechazadas()).isEqualTo(4);
+        assertThat(r.errores()).extracting(IngestaProgresoDTO.Error::linea).containsExactly(2L, 3L, 4L, 5L);
+        assertThat(r.errores().get(0).mensaje()).startsWith("Fecha inválida");
+        assertThat(r.errores().get(1).mensaje()).isEqualTo("Cliente no encontrado: 9999");
+        assertThat(r.errores().get(2).mensaje()).startsWith("JSON inválido");
+        assertThat(r.errores().get(3).mensaje()).isEqualTo("El peso debe ser mayor a cero");
+        List<Progreso> guardados = guardados();
+        assertThat(guardados.get(0).getImc()).isEqualTo(24.5);
+        assertThat(guardados.get(0).getObservaciones()).isNull();
+    }
+
+    @Test
+    void loteFallidoNoFiltraElErrorYVuelveAConsultarSusCedulas() {
+        when(pRepo.saveAll(anyCollection()))
+            .thenThrow(new DataIntegrityViolationException("violates foreign key constraint \"fk_cliente\""))
+            .thenAnswer(inv -> inv.getArgument(0));
+
+        IngestaProgresoDTO r = servicio(2).ingerir(archivo("""
+            1001,2024-03-01
+            1002,2024-03-01
+            1001,2024-03-02
+            """), Formato.CSV);
+
+        assertThat(r.insertadas()).isEqualTo(1);
+        assertThat(r.rechazadas()).isEqualTo(2);
+        assertThat(r.errores()).allSatisfy(e -> assertThat(e.mensaje())
+            .isEqualTo("Lote no guardado por un error al escribir en la base de datos"));
+        // El segundo lote no confía en que 1001 siga existiendo tras el fallo del primero
+        assertThat(consultadas).hasSize(2);
+        assertThat(consultadas.get(1)).containsExactly((Object) "1001");
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Progreso> guardados() {
+        ArgumentCaptor<List<Progreso>> captor = ArgumentCaptor.forClass(List.class);
+        verify(pRepo, times(1)).saveAll(captor.capture());
+        return captor.getValue();
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.fitware.service;
+
+import com.example.fitware.PostgresEmbebido;
+import com.example.fitware.domain.Cliente;
+import com.example.fitware.domain.EstadoSesion;
+import com.example.fitware.domain.Sesion;
+import com.example.fitware.domain.Usuario;
+import com.example.fitware.web.dto.ReportSectionDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * La pasada con GROUPING SETS (conjuntos 3, 5 y 6) debe dar las mismas secciones que las
+ * consultas separadas. La ventana corta enero y abril, así que cada sección mezcla los agregados
+ * mensuales de febrero y marzo con los tramos sueltos de los extremos.
+ */
+class ReportServiceFusionadasTest extends PostgresEmbebido {
+
+    private static final LocalDate DESDE = LocalDate.of(2023, 1, 15);
+    private static final LocalDate HASTA = LocalDate.of(2023, 4, 10);
+    private static final List<String> FUSIONABLES =
+        List.of("sesiones-estado", "top-clientes-sesiones", "mes-activo-calorias");
+
+    @Autowired
+    private ReportService reportService;
+    @Autowired
+    private ClienteService clienteService;
+    @Autowired
+    private SesionService sesionService;
+
+    private int calorias;
+
+    @Test
+    void lasSeccionesFusionadasCoincidenConLasConsultasSeparadas() {
+        // Completadas por cliente: 6, 5, 4, 3, 2 y 1 (la última queda fuera del top 5).
+        // Por mes: enero 4, febrero 8, marzo 6, abril 3
+        sesiones("9101", EstadoSesion.COMPLETADA, "01-20", "02-01", "02-02", "03-01", "03-02", "04-05");
+        sesiones("9102", EstadoSesion.COMPLETADA, "01-25", "02-03", "02-04", "03-03", "04-08");
+        sesiones("9103", EstadoSesion.COMPLETADA, "01-18", "02-05", "02-06", "03-04");
+        sesiones("9104", EstadoSesion.COMPLETADA, "02-07", "03-05", "04-02");
+        sesiones("9105", EstadoSesion.COMPLETADA, "01-30", "02-08");
+        sesiones("9106", EstadoSesion.COMPLETADA, "03-06");
+        sesiones("9101", EstadoSesion.PENDIENTE, "02-10");
+        sesiones("9103", EstadoSesion.PENDIENTE, "04-09");
+        sesiones("9106", EstadoSesion.PENDIENTE, "01-16");
+        // Fuera de la ventana, en los meses de borde y en meses completos: no deben contar
+        sesiones("9106", EstadoSesion.COMPLETADA, "01-05", "01-06", "01-07", "04-20", "04-21", "04-22");
+        sesiones("9106", EstadoSesion.COMPLETADA, "2022-12-01", "2022-12-02", "2023-05-01");
+
+        Map<String, ReportSectionDTO> separadas = FUSIONABLES.stream()
+            .map(id -> reportService.generarResumen(DESDE, HASTA, List.of(id), false).sections().get(0))
+            .collect(Collectors.toMap(ReportSectionDTO::id, Function.identity()));
+
+        assertIguales(reportService.generarResumen(DESDE, HASTA, FUSIONABLES, false).sections(), separadas);
+        assertIguales(reportService.generarResumen(DESDE, HASTA, FUSIONABLES, true).sections(), separadas);
+        assertIguales(reportService.generarResumen(DESDE, HASTA,
+            List.of("top-clientes-sesiones", "mes-activo-calorias"), false).sections(), separadas);
+
+        // Y los valores son los del conjunto de prueba, no dos resultados vacíos iguales
+        assertThat(separadas.get("sesiones-estado").rows()).hasSize(2);
+        assertThat(separadas.get("sesiones-estado").rows().get(0)).contains("21");
+        ReportSectionDTO top = separadas.get("top-clientes-sesiones");
+        assertThat(top.rows()).hasSize(5);
+        assertThat(top.rows()).extracting(fila -> fila.get(1)).containsExactly("6", "5", "4", "3", "2");
+        assertThat(separadas.get("mes-activo-calorias").rows()).singleElement()
+            .satisfies(fila -> assertThat(fila.get(1)).isEqualTo("8"));
+    }
+
+    private static void assertIguales(List<ReportSectionDTO> fusionadas, Map<String, ReportSectionDTO> separadas) {
+        assertThat(fusionadas).isNotEmpty();
+        for (ReportSectionDTO seccion : fusionadas) {
+            assertThat(seccion)
+                .as(seccion.id())
+                .usingRecursiveComparison()
+                .ignoringFields("durationMs")
+                .isEqualTo(separadas.get(seccion.id()));
+        }
+    }
+
+    /** Fechas "MM-dd" de 2023 o completas; una de cada tres sesiones sin calorías. */
+    private void sesiones(String cedula, EstadoSesion estado, String... fechas) {
+        if (!clienteExiste(cedula)) {
+            registrar(cedula);
+        }
+        List<Sesion> nuevas = new ArrayList<>();
+        for (String fecha : fechas) {
+            LocalDate dia = LocalDate.parse(fecha.length() == 5 ? "2023-" + fecha : fecha);
+            Sesion s = new Sesion();
+            s.setEstado(estado);
+            s.setFechaInicio(dia.atTime(18, 0));
+            s.setFechaFin(dia.atTime(19, 0));
+            s.setGastoCalorico(++calorias % 3 == 0 ? null : 200.0 + 15 * calorias);
+            nuevas.add(s);
+        }
+        sesionService.crearSesionesConEjercicios(cedula, nuevas, List.of(), true);
+    }
+
+    private boolean clienteExiste(String cedula) {
+        try {
+            clienteService.obtenerCliente(cedula);
+            return true;
+        } catch (RuntimeException ex) {
+            return false;
+        }
+    }
+
+    private void registrar(String cedula) {
+        Usuario u = new Usuario();
+        u.setCedula(cedula);
+        u.setNombre("Cliente");
+        u.setApellidos(cedula);
+        Cliente c = new Cliente();
+        c.setFechaRegistro(LocalDate.of(2022, 11, 1));
+        clienteService.registrarCliente(u, c);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.fitware.service;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class ReportServiceRechazoTest {
+
+    private final ThreadPoolExecutor executor =
+        new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new ArrayBlockingQueue<>(1));
+
+    @AfterEach
+    void apagar() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void conLaColaLlenaRespondeTooManyRequestsSinCorrerSecciones() throws Exception {
+        CountDownLatch liberar = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                liberar.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        EntityManager entityManager = mock(EntityManager.class);
+        ReportService service = new ReportService(entityManager, mock(PlatformTransactionManager.class), executor,
+            true, mock(ReportCache.class), new PresupuestoConexiones(10, 2, Duration.ofSeconds(1)));
+
+        // El único hilo está ocupado y la cola admite una sección: el reporte completo no cabe
+        assertThatThrownBy(() -> service.generarResumen(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31), null))
+            .isInstanceOfSatisfying(ResponseStatusException.class,
+                ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS));
+
+        // La sección que alcanzó a encolarse quedó cancelada y no consulta nada
+        liberar.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        verifyNoInteractions(entityManager);
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.fitware.service;
+
+import com.example.fitware.domain.Rutina;
+import com.example.fitware.domain.Sesion;
+import com.example.fitware.repository.EjercicioRepository;
+import com.example.fitware.repository.RutinaRepository;
+import com.example.fitware.web.dto.DiaAgendaDTO;
+import com.example.fitware.web.dto.GeneracionAgendaDTO;
+import com.example.fitware.web.dto.GeneracionAgendaResultadoDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RutinaAgendaServiceTest {
+
+    private static final LocalDate LUNES = LocalDate.of(2025, 3, 3);
+
+    private SesionService sesionService;
+    private ThreadPoolExecutor executor;
+    private RutinaAgendaService service;
+
+    @BeforeEach
+    void preparar() {
+        Rutina rutina = new Rutina();
+        rutina.setDuracionSemanas(1);
+        RutinaRepository rRepo = mock(RutinaRepository.class);
+        when(rRepo.findById(1)).thenReturn(Optional.of(rutina));
+        sesionService = mock(SesionService.class);
+        when(sesionService.crearSesionesConEjercicios(anyString(), anyList(), anyList(), anyBoolean()))
+            .thenAnswer(inv -> inv.getArgument(1));
+        executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new ArrayBlockingQueue<>(2));
+        service = new RutinaAgendaService(rRepo, mock(EjercicioRepository.class), sesionService, executor,
+            new PresupuestoConexiones(10, 2, Duration.ofSeconds(1)));
+    }
+
+    @AfterEach
+    void apagar() {
+        executor.shutdownNow();
+    }
+
+    private static GeneracionAgendaDTO pedido(List<String> clientes, Integer duracionMinutos) {
+        return new GeneracionAgendaDTO(clientes, LUNES,
+            List.of(new DiaAgendaDTO(DayOfWeek.MONDAY, LocalTime.of(7, 0), duracionMinutos),
+                new DiaAgendaDTO(DayOfWeek.THURSDAY, LocalTime.of(18, 30), 45)),
+            List.of(), false);
+    }
+
+    @Test
+    void generaCadaClienteConLaDuracionPorDefectoDeLaAgenda() {
+        GeneracionAgendaResultadoDTO r = service.generar(1, pedido(List.of("1001", "1002"), null));
+
+        assertThat(r.sesionesPorCliente()).isEqualTo(2);
+        assertThat(r.clientes()).extracting(GeneracionAgendaResultadoDTO.Cliente::sesionesCreadas).containsExactly(2, 2);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Sesion>> captor = ArgumentCaptor.forClass(List.class);
+        verify(sesionService).crearSesionesConEjercicios(eq("1001"), captor.capture(), anyList(), eq(false));
+        List<Sesion> sesiones = captor.getValue();
+        assertThat(Duration.between(sesiones.get(0).getFechaInicio(), sesiones.get(0).getFechaFin()))
+            .isEqualTo(AgendaSesiones.DURACION_POR_DEFECTO);
+        assertThat(Duration.between(sesiones.get(1).getFechaInicio(), sesiones.get(1).getFechaFin()))
+            .isEqualTo(Duration.ofMinutes(45));
+    }
+
+    @Test
+    void sinCupoParaTodoElGrupoRespondeTooManyRequestsSinGenerarNinguno() {
+        CountDownLatch liberar = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                liberar.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        // El único hilo está ocupado y la cola admite 2: un grupo de 3 no cabe
+        assertThatThrownBy(() -> service.generar(1, pedido(List.of("1001", "1002", "1003"), 60)))
+            .isInstanceOfSatisfying(ResponseStatusException.class,
+                ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS));
+        liberar.countDown();
+        verify(sesionService, never()).crearSesionesConEjercicios(anyString(), anyList(), anyList(), anyBoolean());
+    }
+
+    @Test
+    void conElPoolApagadoFallaLaPeticionEntera() {
+        executor.shutdown();
+
+        assertThatThrownBy(() -> service.generar(1, pedido(List.of("1001"), 60)))
+            .isInstanceOfSatisfying(ResponseStatusException.class,
+                ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS));
+    }
+}
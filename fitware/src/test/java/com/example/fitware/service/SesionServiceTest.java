@@ -0,0 +1,106 @@
+package com.example.fitware.service;
+
+import com.example.fitware.PostgresEmbebido;
+import com.example.fitware.domain.Cliente;
+import com.example.fitware.domain.Ejercicio;
+import com.example.fitware.domain.EstadoEjercicio;
+import com.example.fitware.domain.EstadoSesion;
+import com.example.fitware.domain.Sesion;
+import com.example.fitware.domain.Usuario;
+import com.example.fitware.repository.EjercicioRepository;
+import com.example.fitware.service.SesionService.PlantillaEjercicio;
+import com.example.fitware.web.dto.ConflictoSesionDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class SesionServiceTest extends PostgresEmbebido {
+
+    @Autowired
+    private SesionService sesionService;
+    @Autowired
+    private ClienteService clienteService;
+    @Autowired
+    private EjercicioRepository ejercicios;
+
+    private final AtomicInteger secuencia = new AtomicInteger();
+
+    @Test
+    void elAltaMasivaDevuelveLosTotalesRecalculados() {
+        String cedula = registrar();
+        List<PlantillaEjercicio> plantilla = List.of(
+            new PlantillaEjercicio(ejercicio(), 10, 3, EstadoEjercicio.PENDIENTE),
+            new PlantillaEjercicio(ejercicio(), 8, 4, EstadoEjercicio.COMPLETADO));
+        List<Sesion> nuevas = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            nuevas.add(sesion(LocalDateTime.of(2024, 5, 6 + i, 7, 0), LocalDateTime.of(2024, 5, 6 + i, 8, 0)));
+        }
+
+        List<Sesion> creadas = sesionService.crearSesionesConEjercicios(cedula, nuevas, plantilla, true);
+
+        assertThat(creadas).hasSize(2).allSatisfy(s -> {
+            assertThat(s.getTotalEjercicios()).isEqualTo(2);
+            assertThat(s.getTotalSeries()).isEqualTo(7);
+            assertThat(s.getTotalRepeticiones()).isEqualTo(18);
+            assertThat(s.getEjerciciosCompletados()).isEqualTo(1);
+        });
+        // Lo mismo que quedó guardado
+        assertThat(sesionService.listarSesiones(cedula))
+            .extracting(Sesion::getTotalEjercicios, Sesion::getTotalSeries)
+            .containsOnly(tuple(2, 7));
+    }
+
+    @Test
+    void losConflictosIncluyenLaSesionQueEmpezoAntesDeLaVentana() {
+        String cedula = registrar();
+        LocalDate dia = LocalDate.of(2024, 6, 10);
+        List<Sesion> creadas = sesionService.crearSesionesConEjercicios(cedula, List.of(
+            // Empieza la noche anterior y sigue abierta al comenzar la ventana
+            sesion(dia.minusDays(1).atTime(22, 0), dia.atTime(2, 0)),
+            sesion(dia.atTime(1, 0), dia.atTime(1, 30)),
+            // Se solapan entre sí, pero todo ocurre antes de la ventana
+            sesion(dia.minusDays(2).atTime(10, 0), dia.minusDays(2).atTime(12, 0)),
+            sesion(dia.minusDays(2).atTime(11, 0), null)), List.of(), true);
+
+        List<ConflictoSesionDTO> conflictos = sesionService.conflictos(dia, dia, cedula);
+
+        assertThat(conflictos).singleElement().satisfies(c -> {
+            assertThat(c.sesionId()).isEqualTo(creadas.get(0).getId());
+            assertThat(c.otraSesionId()).isEqualTo(creadas.get(1).getId());
+        });
+    }
+
+    private Sesion sesion(LocalDateTime inicio, LocalDateTime fin) {
+        Sesion s = new Sesion();
+        s.setEstado(EstadoSesion.PENDIENTE);
+        s.setFechaInicio(inicio);
+        s.setFechaFin(fin);
+        return s;
+    }
+
+    private String registrar() {
+        String cedula = "83" + secuencia.incrementAndGet() + "-" + System.nanoTime();
+        Usuario u = new Usuario();
+        u.setCedula(cedula);
+        u.setNombre("Cliente");
+        u.setApellidos(cedula);
+        Cliente c = new Cliente();
+        c.setFechaRegistro(LocalDate.of(2024, 1, 1));
+        clienteService.registrarCliente(u, c);
+        return cedula;
+    }
+
+    private Integer ejercicio() {
+        Ejercicio e = new Ejercicio();
+        e.setNombre("Ejercicio " + secuencia.incrementAndGet() + "-" + System.nanoTime());
+        return ejercicios.save(e).getId();
+    }
+}
@@ -0,0 +1,258 @@
+package com.example.fitware.web;
+
+import com.example.fitware.PostgresEmbebido;
+import com.example.fitware.config.ConsultasPorPeticionConfig;
+import com.example.fitware.domain.Alimento;
+import com.example.fitware.domain.Cliente;
+import com.example.fitware.domain.Ejercicio;
+import com.example.fitware.domain.Entrenador;
+import com.example.fitware.domain.EstadoEjercicio;
+import com.example.fitware.domain.EstadoSesion;
+import com.example.fitware.domain.PlanAlimentacion;
+import com.example.fitware.domain.Progreso;
+import com.example.fitware.domain.Rutina;
+import com.example.fitware.domain.Sesion;
+import com.example.fitware.domain.Usuario;
+import com.example.fitware.repository.AlimentoRepository;
+import com.example.fitware.repository.EjercicioRepository;
+import com.example.fitware.repository.EntrenadorRepository;
+import com.example.fitware.service.ClienteService;
+import com.example.fitware.service.RutinaPlanService;
+import com.example.fitware.service.SesionService;
+import com.example.fitware.service.SesionService.PlantillaEjercicio;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Sentencias SQL por listado con una fila y con varias: si crecen con las filas hay un N+1.
+ * Cada fila nueva cuelga de un padre distinto (entrenador, rutina, ejercicio...) para que una
+ * asociación cargada fila por fila se note en la cuenta.
+ */
+class ConsultasPorListadoTest extends PostgresEmbebido {
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private ClienteService clienteService;
+    @Autowired
+    private SesionService sesionService;
+    @Autowired
+    private RutinaPlanService rutinaPlanService;
+    @Autowired
+    private EntrenadorRepository entrenadores;
+    @Autowired
+    private EjercicioRepository ejercicios;
+    @Autowired
+    private AlimentoRepository alimentos;
+
+    private Statistics estadisticas;
+    private final AtomicInteger secuencia = new AtomicInteger();
+
+    @BeforeEach
+    void preparar() {
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    /** Sentencias que preparó la petición completa, incluido el cuerpo en streaming. */
+    private long sentencias(String url) throws Exception {
+        estadisticas.clear();
+        MvcResult resultado = mvc.perform(get(url)).andReturn();
+        if (resultado.getRequest().isAsyncStarted()) {
+            mvc.perform(asyncDispatch(resultado)).andExpect(status().isOk());
+        } else {
+            assertThat(resultado.getResponse().getStatus()).as(url).isEqualTo(200);
+        }
+        return estadisticas.getPrepareStatementCount();
+    }
+
+    private void assertNoCreceConLasFilas(String unaFila, String variasFilas) throws Exception {
+        long una = sentencias(unaFila);
+        long varias = sentencias(variasFilas);
+        assertThat(una).as(unaFila).isPositive();
+        assertThat(varias).as(variasFilas).isEqualTo(una);
+    }
+
+    private void assertNoCreceConLasFilas(String url, Runnable agregarFilas) throws Exception {
+        long antes = sentencias(url);
+        agregarFilas.run();
+        assertThat(sentencias(url)).as(url).isEqualTo(antes);
+    }
+
+    @Test
+    void clientes() throws Exception {
+        registrar();
+        assertNoCreceConLasFilas("/api/clientes", () -> {
+            for (int i = 0; i < 4; i++) {
+                registrar();
+            }
+        });
+    }
+
+    @Test
+    void progresoDeUnCliente() throws Exception {
+        String uno = conProgresos(1);
+        String varios = conProgresos(5);
+        assertNoCreceConLasFilas("/api/clientes/" + uno + "/progreso", "/api/clientes/" + varios + "/progreso");
+    }
+
+    @Test
+    void sesionesDeUnCliente() throws Exception {
+        String uno = conSesiones(1, 0);
+        String varios = conSesiones(5, 0);
+        for (String listado : List.of("/api/sesiones?clienteCedula=", "/api/sesiones/pagina?clienteCedula=",
+            "/api/sesiones/stream?clienteCedula=")) {
+            assertNoCreceConLasFilas(listado + uno, listado + varios);
+        }
+    }
+
+    @Test
+    void todasLasSesiones() throws Exception {
+        conSesiones(1, 0);
+        assertNoCreceConLasFilas("/api/sesiones", () -> conSesiones(4, 0));
+    }
+
+    @Test
+    void ejerciciosDeUnaSesion() throws Exception {
+        Integer una = sesionDe(conSesiones(1, 1));
+        Integer varias = sesionDe(conSesiones(1, 5));
+        assertNoCreceConLasFilas("/api/sesiones/" + una + "/ejercicios", "/api/sesiones/" + varias + "/ejercicios");
+    }
+
+    @Test
+    void rutinasYPlanes() throws Exception {
+        rutinaConPlan();
+        List<Integer> planes = new ArrayList<>();
+        assertNoCreceConLasFilas("/api/rutinas", () -> {
+            for (int i = 0; i < 4; i++) {
+                planes.add(rutinaConPlan());
+            }
+        });
+        assertNoCreceConLasFilas("/api/rutinas/planes", () -> planes.add(rutinaConPlan()));
+    }
+
+    @Test
+    void alimentosDeUnPlan() throws Exception {
+        Integer uno = conAlimentos(1);
+        Integer varios = conAlimentos(5);
+        assertNoCreceConLasFilas("/api/rutinas/planes/" + uno + "/alimentos", "/api/rutinas/planes/" + varios + "/alimentos");
+    }
+
+    @Test
+    void ejercicios() throws Exception {
+        ejercicio();
+        assertNoCreceConLasFilas("/api/ejercicios", () -> {
+            for (int i = 0; i < 4; i++) {
+                ejercicio();
+            }
+        });
+    }
+
+    @Test
+    void elStreamingCuentaLasSentenciasDeSuHilo() throws Exception {
+        String cedula = conSesiones(3, 0);
+        estadisticas.clear();
+        MvcResult resultado = mvc.perform(get("/api/sesiones/stream?clienteCedula=" + cedula)).andReturn();
+        mvc.perform(asyncDispatch(resultado)).andExpect(status().isOk());
+
+        // El cuerpo corre en el applicationTaskExecutor y aun así suma en la petición
+        AtomicInteger contador = (AtomicInteger) resultado.getRequest().getAttribute(ConsultasPorPeticionConfig.ATRIBUTO);
+        assertThat(contador.get()).isEqualTo(estadisticas.getPrepareStatementCount()).isPositive();
+    }
+
+    private String registrar() {
+        String cedula = "81" + secuencia.incrementAndGet() + "-" + System.nanoTime();
+        Usuario u = new Usuario();
+        u.setCedula(cedula);
+        u.setNombre("Cliente");
+        u.setApellidos(cedula);
+        Cliente c = new Cliente();
+        c.setFechaRegistro(LocalDate.of(2024, 1, 1));
+        clienteService.registrarCliente(u, c);
+        return cedula;
+    }
+
+    private String conProgresos(int n) {
+        String cedula = registrar();
+        for (int i = 0; i < n; i++) {
+            Progreso p = new Progreso();
+            p.setFecha(LocalDate.of(2024, 2, 1 + i));
+            p.setPeso(80.0 + i);
+            clienteService.agregarProgreso(cedula, p);
+        }
+        return cedula;
+    }
+
+    /** Un cliente con {@code sesiones} sesiones, cada una con {@code porSesion} ejercicios distintos. */
+    private String conSesiones(int sesiones, int porSesion) {
+        String cedula = registrar();
+        List<PlantillaEjercicio> plantilla = new ArrayList<>();
+        for (int i = 0; i < porSesion; i++) {
+            plantilla.add(new PlantillaEjercicio(ejercicio(), 10, 3, EstadoEjercicio.PENDIENTE));
+        }
+        List<Sesion> nuevas = new ArrayList<>();
+        for (int i = 0; i < sesiones; i++) {
+            Sesion s = new Sesion();
+            s.setEstado(EstadoSesion.PENDIENTE);
+            s.setFechaInicio(LocalDateTime.of(2024, 3, 1 + i, 18, 0));
+            s.setFechaFin(LocalDateTime.of(2024, 3, 1 + i, 19, 0));
+            nuevas.add(s);
+        }
+        sesionService.crearSesionesConEjercicios(cedula, nuevas, plantilla, true);
+        return cedula;
+    }
+
+    private Integer sesionDe(String cedula) {
+        return sesionService.listarSesiones(cedula).get(0).getId();
+    }
+
+    private Integer ejercicio() {
+        Ejercicio e = new Ejercicio();
+        e.setNombre("Ejercicio " + secuencia.incrementAndGet());
+        return ejercicios.save(e).getId();
+    }
+
+    /** Cada rutina con su propio entrenador. */
+    private Integer rutinaConPlan() {
+        Entrenador entrenador = new Entrenador();
+        entrenador.setCedula("82" + secuencia.incrementAndGet() + "-" + System.nanoTime());
+        entrenador.setNombre("Entrenador");
+        entrenador.setApellidos(entrenador.getCedula());
+        entrenadores.save(entrenador);
+        Rutina rutina = new Rutina();
+        rutina.setNombre("Rutina");
+        rutina.setDuracionSemanas(4);
+        Integer rutinaId = rutinaPlanService.crearRutina(entrenador.getCedula(), rutina).getId();
+        PlanAlimentacion plan = new PlanAlimentacion();
+        plan.setNombre("Plan");
+        return rutinaPlanService.crearPlan(rutinaId, plan).getId();
+    }
+
+    private Integer conAlimentos(int n) {
+        Integer planId = rutinaConPlan();
+        for (int i = 0; i < n; i++) {
+            Alimento a = new Alimento();
+            a.setNombre("Alimento " + secuencia.incrementAndGet());
+            rutinaPlanService.agregarAlimento(planId, alimentos.save(a).getId(), "100 g", "Almuerzo");
+        }
+        return planId;
+    }
+}